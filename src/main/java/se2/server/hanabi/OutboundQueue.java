@@ -0,0 +1,303 @@
+package se2.server.hanabi;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import se2.server.hanabi.game.AsyncLogSink;
+import se2.server.hanabi.game.GameLogger;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded queue of outgoing messages for one WebSocket session, drained by a single writer task.
+ * Senders only enqueue, so a client that reads slowly never blocks the thread that ran the game action.
+ * When the queue is full the {@link SlowConsumerPolicy} decides what happens to queued state updates;
+ * replies to the client's own requests are never dropped.
+ */
+public class OutboundQueue {
+    private static final GameLogger logger = GameLogger.sinkOnly(AsyncLogSink.stdout());
+
+    // messages sent per drain before the writer hands its thread back to other sessions
+    private static final int MAX_MESSAGES_PER_DRAIN = 32;
+
+    /**
+     * What to do with a session whose outbound queue is full.
+     */
+    public enum SlowConsumerPolicy {
+        /**
+         * Replace the queued state updates with one snapshot at the newest one's version, so a client
+         * that applies deltas in order never sees a version gap; no single state update is ever dropped
+         */
+        COALESCE,
+        /**
+         * Drop the oldest queued state update to make room for the newest one. With deltas this leaves
+         * a version gap, which the client notices by the baseVersion and closes with a SYNC
+         */
+        DROP,
+        /** Close the session, the client has to reconnect and resync */
+        DISCONNECT
+    }
+
+    private final WebSocketSession session;
+    private final Executor writer;
+    private final int capacity;
+    private final SlowConsumerPolicy policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean closed;
+    private volatile int depth;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private volatile long lastLatencyNanos;
+
+    /**
+     * @param session the session the messages are written to
+     * @param writer the pool the writer task runs on
+     * @param capacity the maximum number of queued messages
+     * @param policy what to do once the queue is full
+     */
+    public OutboundQueue(WebSocketSession session, Executor writer, int capacity, SlowConsumerPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Outbound capacity must be positive: " + capacity);
+        }
+        this.session = session;
+        this.writer = writer;
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * Queues a reply to the client. Replies are never coalesced or dropped; if the queue is
+     * full of replies the client is not reading at all and the session is closed.
+     */
+    public void send(TextMessage message) {
+        enqueue(message, false, null);
+    }
+
+    /**
+     * Queues a self-contained game state update, which may be coalesced or dropped by the slow-consumer policy.
+     */
+    public void sendState(TextMessage message) {
+        sendState(message, () -> message);
+    }
+
+    /**
+     * Queues a game state update that builds on the ones before it, like a delta.
+     * @param snapshot encodes the complete state at the update's version, sent in place of it and the
+     * updates before it when they are coalesced; may run on any thread that sends to this queue, with the queue locked
+     */
+    public void sendState(TextMessage message, Supplier<TextMessage> snapshot) {
+        enqueue(message, true, snapshot);
+    }
+
+    private void enqueue(TextMessage message, boolean state, Supplier<TextMessage> snapshot) {
+        if (closed) {
+            return;
+        }
+        boolean disconnect = false;
+        lock.lock();
+        try {
+            TextMessage queued = queue.size() < capacity ? message : makeRoom(message, state, snapshot);
+            if (queued == null) {
+                disconnect = true;
+            } else {
+                queue.addLast(new Pending(queued, state, snapshot, System.nanoTime()));
+                depth = queue.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (disconnect) {
+            disconnect();
+        } else {
+            schedule();
+        }
+    }
+
+    // called with the lock held and a full queue; returns the message to queue, or null if the session has to go
+    private TextMessage makeRoom(TextMessage message, boolean state, Supplier<TextMessage> snapshot) {
+        if (policy == SlowConsumerPolicy.DISCONNECT) {
+            return null;
+        }
+        if (policy == SlowConsumerPolicy.COALESCE) {
+            if (state) {
+                int before = queue.size();
+                queue.removeIf(pending -> pending.state);
+                int removed = before - queue.size();
+                if (removed == 0) {
+                    return null;
+                }
+                dropped.add(removed);
+                // the new update may build on the removed ones, the state at its version replaces them all
+                return snapshot.get();
+            }
+            return coalesceQueuedStates() ? message : null;
+        }
+        Iterator<Pending> it = queue.iterator();
+        while (it.hasNext()) {
+            if (it.next().state) {
+                it.remove();
+                dropped.increment();
+                return message;
+            }
+        }
+        return null;
+    }
+
+    // replaces the queued state updates with one snapshot in the newest one's place; false if that frees no room
+    private boolean coalesceQueuedStates() {
+        Pending newest = null;
+        int states = 0;
+        for (Pending pending : queue) {
+            if (pending.state) {
+                newest = pending;
+                states++;
+            }
+        }
+        if (states < 2) {
+            return false;
+        }
+        Pending replacement = new Pending(newest.snapshot.get(), true, newest.snapshot, newest.enqueuedAt);
+        Deque<Pending> kept = new ArrayDeque<>(capacity);
+        for (Pending pending : queue) {
+            if (pending == newest) {
+                kept.addLast(replacement);
+            } else if (!pending.state) {
+                kept.addLast(pending);
+            }
+        }
+        queue.clear();
+        queue.addAll(kept);
+        dropped.add(states - 1);
+        return true;
+    }
+
+    private void disconnect() {
+        close();
+        logger.warn("Closing slow WebSocket session " + session.getId() + ": outbound queue full");
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.error("Error closing slow session: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Discards every queued message and ignores later ones.
+     */
+    public void close() {
+        closed = true;
+        lock.lock();
+        try {
+            queue.clear();
+            depth = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            writer.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        int written = 0;
+        Pending pending;
+        while (written < MAX_MESSAGES_PER_DRAIN && (pending = poll()) != null) {
+            write(pending);
+            written++;
+        }
+        scheduled.set(false);
+        // either the batch limit was hit or a message was queued after the last poll but before the flag was cleared
+        if (depth > 0) {
+            schedule();
+        }
+    }
+
+    private Pending poll() {
+        lock.lock();
+        try {
+            Pending pending = queue.pollFirst();
+            depth = queue.size();
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(Pending pending) {
+        if (closed || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.sendMessage(pending.message);
+            long latency = System.nanoTime() - pending.enqueuedAt;
+            lastLatencyNanos = latency;
+            totalLatencyNanos.add(latency);
+            sent.increment();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error sending to WebSocket session " + session.getId() + ": " + e.getMessage());
+        }
+    }
+
+    public boolean isOpen() {
+        return !closed && session.isOpen();
+    }
+
+    public int getQueueDepth() {
+        return depth;
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the mean time in nanoseconds between queueing a message and finishing its send
+     */
+    public long getAverageLatencyNanos() {
+        long count = sent.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / count;
+    }
+
+    /**
+     * @return the time in nanoseconds the most recently sent message spent queued and sending
+     */
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    private static final class Pending {
+        private final TextMessage message;
+        private final boolean state;
+        // the state at this update's version, null for replies
+        private final Supplier<TextMessage> snapshot;
+        private final long enqueuedAt;
+
+        private Pending(TextMessage message, boolean state, Supplier<TextMessage> snapshot, long enqueuedAt) {
+            this.message = message;
+            this.state = state;
+            this.snapshot = snapshot;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -1,32 +1,75 @@
 package se2.server.hanabi;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import se2.server.hanabi.api.StateDelta;
+import se2.server.hanabi.api.StateSnapshot;
+import se2.server.hanabi.game.AsyncLogSink;
 import se2.server.hanabi.game.GameLogger;
 import se2.server.hanabi.game.GameManager;
-import se2.server.hanabi.model.Card;
+import se2.server.hanabi.game.GameSnapshot;
+import se2.server.hanabi.game.GameStateLog;
+import se2.server.hanabi.game.commands.CommandDecoder;
+import se2.server.hanabi.game.commands.GameCommand;
 import se2.server.hanabi.model.GameActionMessage;
+import se2.server.hanabi.services.ActionBatchRunner;
+import se2.server.hanabi.services.GameActionExecutor;
 import se2.server.hanabi.services.LobbyManager;
+import se2.server.hanabi.services.StatePublisher;
 import se2.server.hanabi.util.ActionResult;
-import se2.server.hanabi.game.HintType;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
-public class SimpleWebSocketHandler extends TextWebSocketHandler {
-    private static final GameLogger logger = new GameLogger();
+public class SimpleWebSocketHandler extends TextWebSocketHandler implements StatePublisher {
+    private static final GameLogger logger = GameLogger.sinkOnly(AsyncLogSink.stdout());
+    private static final String OUTBOUND_ATTRIBUTE = "outbound";
+    private static final String LOBBY_ID_ATTRIBUTE = "lobbyId";
+    private static final String PLAYER_ID_ATTRIBUTE = "playerId";
+    public static final int DEFAULT_OUTBOUND_CAPACITY = 16;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final LobbyManager lobbyManager;
+    private final GameActionExecutor actionExecutor;
+    private final ActionBatchRunner batchRunner;
+    private final Executor outboundWriters;
+    private final int outboundCapacity;
+    private final OutboundQueue.SlowConsumerPolicy slowConsumerPolicy;
     
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    // lobbyId -> playerId -> outbound queue, so a broadcast only touches the sessions of its own lobby
+    private final Map<String, Map<Integer, OutboundQueue>> lobbySessions = new ConcurrentHashMap<>();
 
-    public SimpleWebSocketHandler(LobbyManager lobbyManager) {
+    public SimpleWebSocketHandler(LobbyManager lobbyManager, GameActionExecutor actionExecutor) {
+        this(lobbyManager, actionExecutor, Runnable::run);
+    }
+
+    public SimpleWebSocketHandler(LobbyManager lobbyManager, GameActionExecutor actionExecutor, Executor outboundWriters) {
+        this(lobbyManager, actionExecutor, outboundWriters, DEFAULT_OUTBOUND_CAPACITY, OutboundQueue.SlowConsumerPolicy.COALESCE);
+    }
+
+    /**
+     * @param outboundWriters runs the writer tasks that drain the per-session outbound queues
+     * @param outboundCapacity the maximum number of messages queued per session
+     * @param slowConsumerPolicy what to do with a session whose queue is full
+     */
+    public SimpleWebSocketHandler(LobbyManager lobbyManager, GameActionExecutor actionExecutor, Executor outboundWriters,
+                                  int outboundCapacity, OutboundQueue.SlowConsumerPolicy slowConsumerPolicy) {
         this.lobbyManager = lobbyManager;
+        this.actionExecutor = actionExecutor;
+        this.batchRunner = new ActionBatchRunner(lobbyManager, actionExecutor);
+        this.outboundWriters = outboundWriters;
+        this.outboundCapacity = outboundCapacity;
+        this.slowConsumerPolicy = slowConsumerPolicy;
     }
 
     @Override
@@ -48,12 +91,24 @@ public class SimpleWebSocketHandler extends TextWebSocketHandler {
 
         Map<String, String> parameters = extractParameters(query);
         String lobbyId = parameters.get("lobbyId");
-        String playerId = parameters.get("playerId");
+        Integer playerId = parsePlayerId(parameters.get("playerId"));
         
         if (lobbyId != null && playerId != null) {
-            String sessionKey = createSessionKey(lobbyId, playerId);
-            sessions.put(sessionKey, session);
+            // all sends go through the queue, its single writer keeps them off the action thread
+            OutboundQueue outbound = new OutboundQueue(session, outboundWriters, outboundCapacity, slowConsumerPolicy);
+            session.getAttributes().put(OUTBOUND_ATTRIBUTE, outbound);
+            session.getAttributes().put(LOBBY_ID_ATTRIBUTE, lobbyId);
+            session.getAttributes().put(PLAYER_ID_ATTRIBUTE, playerId);
+            OutboundQueue previous = lobbySessions
+                    .computeIfAbsent(lobbyId, id -> new ConcurrentHashMap<>())
+                    .put(playerId, outbound);
+            if (previous == null) {
+                lobbyManager.sessionOpened(lobbyId);
+            } else {
+                previous.close();
+            }
             logger.info("WebSocket connection established for player " + playerId + " in lobby " + lobbyId);
+            resync(outbound, lobbyId, playerId, parseVersion(parameters.get("version")));
         } else {
             logger.error("WebSocket connection rejected: missing lobbyId or playerId");
             session.close(CloseStatus.BAD_DATA);
@@ -66,113 +121,219 @@ public class SimpleWebSocketHandler extends TextWebSocketHandler {
         String payload = message.getPayload();
         logger.info("Received from client: " + payload);
         
+        OutboundQueue outbound = outbound(session);
         try {
             GameActionMessage actionMessage = objectMapper.readValue(payload, GameActionMessage.class);
-            processGameAction(session, actionMessage);
+            processGameAction(outbound, actionMessage);
         } catch (IOException e) {
             logger.error("Error processing message: " + e.getMessage());
-            session.sendMessage(new TextMessage("{\"error\": \"Invalid message format\"}"));
+            outbound.send(new TextMessage("{\"error\": \"Invalid message format\"}"));
         }
     }
     
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws IOException {
+        Object lobbyId = session.getAttributes().get(LOBBY_ID_ATTRIBUTE);
+        Object playerId = session.getAttributes().get(PLAYER_ID_ATTRIBUTE);
+        Object outbound = session.getAttributes().get(OUTBOUND_ATTRIBUTE);
+        if (outbound instanceof OutboundQueue) {
+            ((OutboundQueue) outbound).close();
+        }
 
-        sessions.values().removeIf(s -> s.getId().equals(session.getId()));
+        if (lobbyId instanceof String && playerId instanceof Integer) {
+            boolean[] removed = new boolean[1];
+            // a reconnect may already have replaced this session, only remove it if it is still registered
+            lobbySessions.computeIfPresent((String) lobbyId, (id, players) -> {
+                removed[0] = players.remove(playerId, outbound);
+                return players.isEmpty() ? null : players;
+            });
+            if (removed[0]) {
+                lobbyManager.sessionClosed((String) lobbyId);
+            }
+        }
         logger.info("WebSocket connection closed with status: " + status);
     }
       
-    private void processGameAction(WebSocketSession session, GameActionMessage actionMessage) throws IOException  {
+    private void processGameAction(OutboundQueue session, GameActionMessage actionMessage) throws IOException  {
+        if (actionMessage.getActionType() == GameActionMessage.ActionType.BATCH) {
+            processBatch(session, actionMessage);
+            return;
+        }
         String lobbyId = actionMessage.getLobbyId();
         GameManager gameManager = lobbyManager.getGameManager(lobbyId);
         
         if (gameManager == null) {
-            session.sendMessage(new TextMessage("{\"error\": \"Game or lobby not found\"}"));
+            session.send(new TextMessage("{\"error\": \"Game or lobby not found\"}"));
             return;
         }
         
-        if (actionMessage.getActionType() == null) {
-            session.sendMessage(new TextMessage("{\"error\": \"Missing or invalid action type. Make sure to include 'action' field.\"}"));
+        if (actionMessage.getActionType() == GameActionMessage.ActionType.SYNC) {
+            if (actionMessage.getPlayerId() == null) {
+                session.send(new TextMessage("{\"error\": \"Missing playerId\"}"));
+                return;
+            }
+            resync(session, lobbyId, actionMessage.getPlayerId(), actionMessage.getVersion());
             return;
         }
-        
-        ActionResult result;
-        
-        switch (actionMessage.getActionType()) {
-            case PLAY:
-                result = gameManager.playCard(actionMessage.getPlayerId(), actionMessage.getCardIndex());
-                break;
-            case DISCARD:
-                result = gameManager.discardCard(actionMessage.getPlayerId(), actionMessage.getCardIndex());
-                break;
-            case HINT:
-                Object value;
-                if (actionMessage.getHintType() == HintType.COLOR) {
-                    try {
-                        value = Card.Color.valueOf(actionMessage.getHintValue().toUpperCase());
-                    } catch (IllegalArgumentException e) {
-                        session.sendMessage(new TextMessage("{\"error\": \"Invalid color value\"}"));
-                        return;
-                    }
-                } else {
-                    try {
-                        value = Integer.parseInt(actionMessage.getHintValue());
-                        if ((Integer)value < 1 || (Integer)value > 5) {
-                            session.sendMessage(new TextMessage("{\"error\": \"Invalid card value (must be 1-5)\"}"));
-                            return;
-                        }
-                    } catch (NumberFormatException e) {
-                        session.sendMessage(new TextMessage("{\"error\": \"Invalid hint value format\"}"));
-                        return;
-                    }
-                }
-                
-                result = gameManager.giveHint(
-                    actionMessage.getPlayerId(), 
-                    actionMessage.getToPlayerId(), 
-                    actionMessage.getHintType(), 
-                    value
-                );
-                break;
-            case CHEAT:
-                result = gameManager.incrementStrikes();
-                break;
-            case DEFUSE:
-                result = gameManager.defuseStrike(actionMessage.getPlayerId());
-                break;
-            case ADD_STRIKE:
-                result = gameManager.addStrikeCheat(actionMessage.getPlayerId());
-                break;
-            case DEFUSE_ATTEMPT:
-                result = gameManager.handleDefuseAttempt(
-                    actionMessage.getPlayerId(),
-                    actionMessage.getSequence(),
-                    actionMessage.getProximity()
-                );
-                break;
-            default:
-                session.sendMessage(new TextMessage("{\"error\": \"Unknown action type\"}"));
-                return;
+
+        CommandDecoder.Result decoded = CommandDecoder.decode(actionMessage);
+        if (!decoded.isValid()) {
+            session.send(new TextMessage(toJson(Map.of("error", decoded.error()))));
+            return;
         }
+        GameCommand command = decoded.command();
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(result)));
+        // reply and delta are queued on the mailbox, so deltas reach every session in version order;
+        // the I/O thread does not wait for the action
+        actionExecutor.execute(lobbyId, () -> {
+            try {
+                ActionResult result = gameManager.execute(command);
+                session.send(new TextMessage(toJson(result)));
+                return result;
+            } finally {
+                publish(lobbyId);
+            }
+        }).whenComplete((result, failure) -> {
+            if (failure != null) {
+                sendFailure(session, failure);
+            }
+        });
+    }
 
-        broadcastGameUpdate(lobbyId, gameManager);
+    /**
+     * Runs the actions of a BATCH frame in order and answers with all results at once.
+     * Each affected lobby gets one delta for the whole batch instead of one per action.
+     */
+    private void processBatch(OutboundQueue session, GameActionMessage batch) {
+        List<GameActionMessage> actions = batch.getActions();
+        if (actions == null || actions.isEmpty()) {
+            session.send(new TextMessage("{\"error\": \"Missing actions\"}"));
+            return;
+        }
+        if (actions.size() > ActionBatchRunner.MAX_BATCH_SIZE) {
+            session.send(new TextMessage("{\"error\": \"Too many actions, the limit is " + ActionBatchRunner.MAX_BATCH_SIZE + "\"}"));
+            return;
+        }
+        batchRunner.run(actions, batch.getLobbyId(), this).whenComplete((results, failure) -> {
+            if (failure != null) {
+                sendFailure(session, failure);
+            } else {
+                session.send(new TextMessage(toJson(Map.of("results", results))));
+            }
+        });
+    }
+
+    // answers a request whose mailbox task failed or was rejected, the session stays open
+    private void sendFailure(OutboundQueue session, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof RejectedExecutionException) {
+            session.send(new TextMessage("{\"error\": \"Game or lobby not found\"}"));
+        } else {
+            logger.error("Error running game action: " + cause);
+            session.send(new TextMessage("{\"error\": \"Action failed\"}"));
+        }
+    }
+
+    /**
+     * Captures what changed in the lobby's game since the last push and sends it to all its sessions as one delta
+     */
+    @Override
+    public void publish(String lobbyId) {
+        GameManager gameManager = lobbyManager.getGameManager(lobbyId);
+        if (gameManager == null) {
+            return;
+        }
+        StateDelta delta = gameManager.getStateLog().capture();
+        if (delta != null) {
+            broadcastDelta(lobbyId, gameManager, delta, null);
+        }
+    }
+
+    /**
+     * Brings a client up to date: the buffered deltas after the version it knows if there are
+     * any, a full snapshot otherwise. Runs on the lobby's mailbox so the state cannot change halfway.
+     * @param knownVersion the last version the client applied, null if it has none
+     */
+    private void resync(OutboundQueue target, String lobbyId, int playerId, Long knownVersion) {
+        GameManager gameManager = lobbyManager.getGameManager(lobbyId);
+        if (gameManager == null) {
+            return;
+        }
+        actionExecutor.execute(lobbyId, () -> {
+            GameStateLog stateLog = gameManager.getStateLog();
+            // changes made outside this handler, e.g. over REST, get a version of their own first
+            StateDelta pending = stateLog.capture();
+            if (pending != null) {
+                broadcastDelta(lobbyId, gameManager, pending, playerId);
+            }
+            List<StateDelta> deltas = knownVersion == null ? null : stateLog.since(knownVersion);
+            if (deltas == null) {
+                target.send(new TextMessage(gameManager.getStatusEncoder().encodeSnapshot(playerId)));
+            } else {
+                deltas.forEach(delta -> target.send(new TextMessage(toJson(delta.viewFor(playerId)))));
+            }
+            return null;
+        }).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                sendFailure(target, failure);
+            }
+        });
     }
     
-    private void broadcastGameUpdate(String lobbyId, GameManager gameManager) {
-        for (Map.Entry<String, WebSocketSession> entry : sessions.entrySet()) {
-            if (entry.getKey().startsWith(lobbyId + ":") && entry.getValue().isOpen()) {
-                try {
-                    int playerId = Integer.parseInt(entry.getKey().split(":")[1]);
-                    String gameStatus = objectMapper.writeValueAsString(gameManager.getStatusFor(playerId));
-                    entry.getValue().sendMessage(new TextMessage(gameStatus));
-                } catch (Exception e) {
-                    logger.error("Error broadcasting game update: " + e.getMessage());
+    // runs on the lobby's mailbox right after the capture, so the published snapshot is the state at the delta's version
+    private void broadcastDelta(String lobbyId, GameManager gameManager, StateDelta delta, Integer skipPlayerId) {
+        Map<Integer, OutboundQueue> players = lobbySessions.get(lobbyId);
+        if (players == null) {
+            return;
+        }
+        // most players see the same delta, it is encoded once and only views with hidden cards get their own
+        TextMessage shared = null;
+        GameSnapshot published = gameManager.getSnapshot();
+        long version = delta.getVersion();
+        for (Map.Entry<Integer, OutboundQueue> entry : players.entrySet()) {
+            OutboundQueue target = entry.getValue();
+            if (!target.isOpen() || entry.getKey().equals(skipPlayerId)) {
+                continue;
+            }
+            int playerId = entry.getKey();
+            // a slow session's queue may send this in place of its deltas, from any thread, so it only reads the immutable snapshot
+            Supplier<TextMessage> snapshot = () -> new TextMessage(toJson(new StateSnapshot(version, published.statusFor(playerId))));
+            StateDelta view = delta.viewFor(playerId);
+            if (view != delta) {
+                target.sendState(new TextMessage(toJson(view)), snapshot);
+            } else {
+                if (shared == null) {
+                    shared = new TextMessage(toJson(delta));
                 }
+                target.sendState(shared, snapshot);
             }
         }
     }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private OutboundQueue outbound(WebSocketSession session) {
+        Object outbound = session.getAttributes().get(OUTBOUND_ATTRIBUTE);
+        if (outbound instanceof OutboundQueue) {
+            return (OutboundQueue) outbound;
+        }
+        // not registered at handshake, answer inline
+        return new OutboundQueue(session, Runnable::run, outboundCapacity, slowConsumerPolicy);
+    }
+
+    /**
+     * @return the outbound queue of a connected player, for its queue depth and send latency, or null if not connected
+     */
+    public OutboundQueue getOutbound(String lobbyId, int playerId) {
+        Map<Integer, OutboundQueue> players = lobbySessions.get(lobbyId);
+        return players == null ? null : players.get(playerId);
+    }
     
     private Map<String, String> extractParameters(String query) {
         Map<String, String> parameters = new ConcurrentHashMap<>();
@@ -189,7 +350,25 @@ public class SimpleWebSocketHandler extends TextWebSocketHandler {
         return parameters;
     }
     
-    private String createSessionKey(String lobbyId, String playerId) {
-        return lobbyId + ":" + playerId;
+    private Long parseVersion(String version) {
+        if (version == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Integer parsePlayerId(String playerId) {
+        if (playerId == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(playerId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -1,11 +1,14 @@
 package se2.server.hanabi;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import se2.server.hanabi.config.WorkerPools;
+import se2.server.hanabi.services.GameActionExecutor;
 import se2.server.hanabi.services.LobbyManager;
 
 @Configuration
@@ -13,15 +16,26 @@ import se2.server.hanabi.services.LobbyManager;
 public class WebSocketConfig implements WebSocketConfigurer {
     
     private final LobbyManager lobbyManager;
+    private final GameActionExecutor actionExecutor;
+    private final WorkerPools workerPools;
+    private final int outboundCapacity;
+    private final OutboundQueue.SlowConsumerPolicy slowConsumerPolicy;
     
     @Autowired
-    public WebSocketConfig(LobbyManager lobbyManager) {
+    public WebSocketConfig(LobbyManager lobbyManager, GameActionExecutor actionExecutor, WorkerPools workerPools,
+                           @Value("${hanabi.ws.outbound.capacity:16}") int outboundCapacity,
+                           @Value("${hanabi.ws.outbound.slow-consumer-policy:COALESCE}") OutboundQueue.SlowConsumerPolicy slowConsumerPolicy) {
         this.lobbyManager = lobbyManager;
+        this.actionExecutor = actionExecutor;
+        this.workerPools = workerPools;
+        this.outboundCapacity = outboundCapacity;
+        this.slowConsumerPolicy = slowConsumerPolicy;
     }
     
     @Bean
     public SimpleWebSocketHandler webSocketHandler() {
-        return new SimpleWebSocketHandler(lobbyManager);
+        return new SimpleWebSocketHandler(lobbyManager, actionExecutor, workerPools.getBroadcastWorkers(),
+                outboundCapacity, slowConsumerPolicy);
     }
     
     @Override
@@ -35,6 +35,8 @@ public class GameStatus {
     @Getter
     private final int currentScore;
     @Getter
+    private final int maxPossibleScore;
+    @Getter
     private final int currentPlayerId;
 
     @Getter
@@ -55,6 +57,7 @@ public class GameStatus {
             boolean gameOver,
             boolean gameLost,
             int currentScore,
+            int maxPossibleScore,
             int currentPlayerId,
             List<Card> ownHand)
     {
@@ -71,6 +74,7 @@ public class GameStatus {
         this.gameOver = gameOver;
         this.gameLost = gameLost;
         this.currentScore = currentScore;
+        this.maxPossibleScore = maxPossibleScore;
         this.currentPlayerId = currentPlayerId;
         this.ownHand = ownHand;
     }
@@ -0,0 +1,23 @@
+package se2.server.hanabi.api;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a lobby listing
+ */
+@Getter
+public class LobbyPage {
+    private final List<LobbySummary> lobbies;
+    // id of the last lobby on this page, pass it as cursor to get the next page; null on the last page
+    private final String nextCursor;
+    // version of the lobby index the page was read from
+    private final long version;
+
+    public LobbyPage(List<LobbySummary> lobbies, String nextCursor, long version) {
+        this.lobbies = lobbies;
+        this.nextCursor = nextCursor;
+        this.version = version;
+    }
+}
@@ -0,0 +1,26 @@
+package se2.server.hanabi.api;
+
+import lombok.Getter;
+import se2.server.hanabi.model.Lobby;
+
+/**
+ * Lightweight, immutable view of a lobby for listings
+ */
+@Getter
+public class LobbySummary {
+    private final String id;
+    private final int playerCount;
+    private final boolean gameStarted;
+    private final boolean casualMode;
+
+    public LobbySummary(String id, int playerCount, boolean gameStarted, boolean casualMode) {
+        this.id = id;
+        this.playerCount = playerCount;
+        this.gameStarted = gameStarted;
+        this.casualMode = casualMode;
+    }
+
+    public static LobbySummary of(Lobby lobby) {
+        return new LobbySummary(lobby.getId(), lobby.getPlayers().size(), lobby.isGameStarted(), lobby.isCasualMode());
+    }
+}
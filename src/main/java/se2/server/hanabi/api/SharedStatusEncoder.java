@@ -0,0 +1,135 @@
+package se2.server.hanabi.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.game.GameSnapshot;
+import se2.server.hanabi.model.Card;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the JSON of {@link GameStatus} and {@link StateSnapshot} for one game.
+ * Everything except the hands is the same for all players, so that part is encoded once per
+ * published {@link GameSnapshot} and every player's message is that cached skeleton plus the player's
+ * own hand section, both taken from the same snapshot.
+ * The output is the same JSON Jackson writes for the objects, so clients see no difference.
+ * Not thread-safe, all calls must run on the game's mailbox after the state has been captured.
+ */
+public class SharedStatusEncoder {
+    // serializes a GameStatus without the fields that differ per player
+    private static final ObjectMapper SKELETON_MAPPER = new ObjectMapper().addMixIn(GameStatus.class, PublicFieldsOnly.class);
+    private static final byte[] SNAPSHOT_PREFIX = "{\"type\":\"snapshot\",\"version\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STATUS_FIELD = ",\"status\":".getBytes(StandardCharsets.UTF_8);
+
+    private final GameManager game;
+    // the snapshot the skeleton was encoded from, every committed action publishes a new one
+    private GameSnapshot cachedSnapshot;
+    // the public fields as an unterminated JSON object: {"players":[...],...,"currentPlayerId":3
+    private byte[] skeleton;
+    private final ByteArrayOutputStream section = new ByteArrayOutputStream(512);
+
+    public SharedStatusEncoder(GameManager game) {
+        this.game = game;
+    }
+
+    /**
+     * @return the JSON of {@code getStatusFor(playerId)}
+     */
+    public byte[] encodeStatus(int playerId) {
+        GameSnapshot state = game.getSnapshot();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(skeleton(state).length + 512);
+        writeStatus(out, state, playerId);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the JSON of a {@link StateSnapshot} of the current version for the player
+     */
+    public byte[] encodeSnapshot(int playerId) {
+        GameSnapshot state = game.getSnapshot();
+        byte[] version = Long.toString(game.getStateLog().getVersion()).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(skeleton(state).length + 576);
+        out.writeBytes(SNAPSHOT_PREFIX);
+        out.writeBytes(version);
+        out.writeBytes(STATUS_FIELD);
+        writeStatus(out, state, playerId);
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private void writeStatus(ByteArrayOutputStream out, GameSnapshot state, int playerId) {
+        out.writeBytes(skeleton(state));
+        byte[] playerSection = writePlayerSection(state, playerId);
+        // the section is a complete object, its opening brace becomes the comma after the skeleton
+        out.write(',');
+        out.write(playerSection, 1, playerSection.length - 1);
+    }
+
+    private byte[] writePlayerSection(GameSnapshot state, int playerId) {
+        section.reset();
+        try (JsonGenerator json = SKELETON_MAPPER.getFactory().createGenerator(section, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            List<Card> ownHand = state.getHands().getOrDefault(playerId, List.of());
+            json.writeArrayFieldStart("playerCardIds");
+            for (Card card : ownHand) {
+                json.writeNumber(card.getId());
+            }
+            json.writeEndArray();
+            json.writeObjectFieldStart("visibleHands");
+            for (Map.Entry<Integer, List<Card>> hand : state.getHands().entrySet()) {
+                if (hand.getKey() != playerId) {
+                    json.writeFieldName(hand.getKey().toString());
+                    writeCards(json, hand.getValue());
+                }
+            }
+            json.writeEndObject();
+            json.writeFieldName("ownHand");
+            writeCards(json, ownHand);
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return section.toByteArray();
+    }
+
+    // same layout as Jackson writes for Card
+    private static void writeCards(JsonGenerator json, List<Card> cards) throws IOException {
+        json.writeStartArray();
+        for (Card card : cards) {
+            json.writeStartObject();
+            json.writeNumberField("value", card.getValue());
+            json.writeStringField("color", card.getColor().name());
+            json.writeNumberField("id", card.getId());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    private byte[] skeleton(GameSnapshot state) {
+        if (skeleton == null || cachedSnapshot != state) {
+            // any player's status carries the public fields
+            byte[] json;
+            try {
+                json = SKELETON_MAPPER.writeValueAsBytes(state.statusFor(state.getPlayers().get(0).getId()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            skeleton = Arrays.copyOf(json, json.length - 1);
+            cachedSnapshot = state;
+        }
+        return skeleton;
+    }
+
+    @JsonIgnoreProperties({"playerCardIds", "visibleHands", "ownHand"})
+    private abstract static class PublicFieldsOnly {
+    }
+}
@@ -0,0 +1,96 @@
+package se2.server.hanabi.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+import se2.server.hanabi.model.Card;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes of a game from one state version to the next.
+ * Only changed parts are set; unchanged counters stay null and are left out of the JSON.
+ * A client applies a delta only if its baseVersion is the version it currently holds,
+ * otherwise it asks for a resync.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class StateDelta {
+    private final String type = "delta";
+    private final long version;
+    private final long baseVersion;
+
+    // complete card id lists of every hand that changed, in hand order
+    private Map<Integer, List<Integer>> hands = new HashMap<>();
+    // faces of the cards that entered a hand, never sent to the card's owner
+    private Map<Integer, Card> newCards = new HashMap<>();
+    private Map<Card.Color, Integer> playedCards = new HashMap<>();
+    // cards appended to the discard pile
+    private List<Card> discarded = new ArrayList<>();
+    private Map<Integer, Card.Color> colorHints = new HashMap<>();
+    private Map<Integer, Integer> valueHints = new HashMap<>();
+    private List<Integer> removedColorHints = new ArrayList<>();
+    private List<Integer> removedValueHints = new ArrayList<>();
+    private Integer numRemainingCards;
+    private Integer numRemainingHintTokens;
+    private Integer strikes;
+    private Integer currentScore;
+    private Integer maxPossibleScore;
+    private Integer currentPlayerId;
+    private Boolean gameOver;
+    private Boolean gameLost;
+
+    public StateDelta(long baseVersion, long version) {
+        this.baseVersion = baseVersion;
+        this.version = version;
+    }
+
+    /**
+     * @return the delta as seen by the given player, without the faces of the player's own cards
+     */
+    public StateDelta viewFor(int playerId) {
+        List<Integer> ownHand = hands.get(playerId);
+        if (ownHand == null || newCards.isEmpty()) {
+            return this;
+        }
+        StateDelta view = copy();
+        view.newCards = new HashMap<>(newCards);
+        ownHand.forEach(view.newCards::remove);
+        return view;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return hands.isEmpty() && playedCards.isEmpty() && discarded.isEmpty()
+                && colorHints.isEmpty() && valueHints.isEmpty()
+                && removedColorHints.isEmpty() && removedValueHints.isEmpty()
+                && numRemainingCards == null && numRemainingHintTokens == null && strikes == null
+                && currentScore == null && maxPossibleScore == null && currentPlayerId == null && gameOver == null && gameLost == null;
+    }
+
+    private StateDelta copy() {
+        StateDelta copy = new StateDelta(baseVersion, version);
+        copy.hands = hands;
+        copy.newCards = newCards;
+        copy.playedCards = playedCards;
+        copy.discarded = discarded;
+        copy.colorHints = colorHints;
+        copy.valueHints = valueHints;
+        copy.removedColorHints = removedColorHints;
+        copy.removedValueHints = removedValueHints;
+        copy.numRemainingCards = numRemainingCards;
+        copy.numRemainingHintTokens = numRemainingHintTokens;
+        copy.strikes = strikes;
+        copy.currentScore = currentScore;
+        copy.maxPossibleScore = maxPossibleScore;
+        copy.currentPlayerId = currentPlayerId;
+        copy.gameOver = gameOver;
+        copy.gameLost = gameLost;
+        return copy;
+    }
+}
@@ -0,0 +1,19 @@
+package se2.server.hanabi.api;
+
+import lombok.Getter;
+
+/**
+ * Full game status of one player at a state version, sent on connect and on resync.
+ * Later {@link StateDelta}s build on this version.
+ */
+@Getter
+public class StateSnapshot {
+    private final String type = "snapshot";
+    private final long version;
+    private final GameStatus status;
+
+    public StateSnapshot(long version, GameStatus status) {
+        this.version = version;
+        this.status = status;
+    }
+}
@@ -1,14 +1,82 @@
 package se2.server.hanabi.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import se2.server.hanabi.game.AsyncLogSink;
+import se2.server.hanabi.game.GameLogger;
+import se2.server.hanabi.services.GameActionExecutor;
 import se2.server.hanabi.services.LobbyManager;
+import se2.server.hanabi.services.LobbyTimeouts;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class AppConfig {
+    private static final GameLogger logger = GameLogger.sinkOnly(AsyncLogSink.stdout());
+
+    // the sink is shared by the whole JVM and closed by its own shutdown hook, not with the context
+    @Bean(destroyMethod = "")
+    public AsyncLogSink logSink(
+            @Value("${hanabi.log.level:INFO}") GameLogger.LogLevel level,
+            @Value("${hanabi.log.sample-rate:1}") int sampleRate
+    ) {
+        AsyncLogSink sink = AsyncLogSink.stdout();
+        sink.configure(level, sampleRate);
+        return sink;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public WorkerPools workerPools(@Value("${hanabi.threads.virtual:false}") boolean virtualThreads) {
+        return WorkerPools.create(virtualThreads);
+    }
 
     @Bean
-    public LobbyManager lobbyManager() {
-        return new LobbyManager();
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadRequestCustomizer(WorkerPools workerPools) {
+        return protocolHandler -> {
+            if (workerPools.isVirtual()) {
+                protocolHandler.setExecutor(workerPools.getActionWorkers());
+            }
+        };
+    }
+
+    @Bean
+    public GameActionExecutor gameActionExecutor(WorkerPools workerPools) {
+        return new GameActionExecutor(workerPools.getActionWorkers());
+    }
+
+    @Bean
+    public LobbyManager lobbyManager(
+            GameActionExecutor gameActionExecutor,
+            @Value("${hanabi.lobby.ttl.pregame-seconds:1800}") long pregameTtlSeconds,
+            @Value("${hanabi.lobby.ttl.finished-seconds:600}") long finishedTtlSeconds,
+            @Value("${hanabi.lobby.ttl.disconnected-seconds:900}") long disconnectedTtlSeconds
+    ) {
+        LobbyTimeouts timeouts = new LobbyTimeouts(
+                TimeUnit.SECONDS.toMillis(pregameTtlSeconds),
+                TimeUnit.SECONDS.toMillis(finishedTtlSeconds),
+                TimeUnit.SECONDS.toMillis(disconnectedTtlSeconds));
+        return new LobbyManager(gameActionExecutor, timeouts);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService lobbyEvictionTicker(LobbyManager lobbyManager) {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lobby-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> {
+            // an exception would cancel every later run and stop eviction for good
+            try {
+                lobbyManager.evictExpiredLobbies(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                logger.error("Lobby eviction failed: " + e);
+            }
+        }, LobbyManager.EVICTION_TICK_MILLIS, LobbyManager.EVICTION_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        return ticker;
     }
 }
@@ -0,0 +1,95 @@
+package se2.server.hanabi.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import se2.server.hanabi.game.AsyncLogSink;
+import se2.server.hanabi.game.GameLogger;
+import se2.server.hanabi.util.VirtualThreads;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threads the server runs game actions, WebSocket broadcasts and (in virtual mode) requests on.
+ * In platform mode actions run on a pool of their own, so simulations and replay checks on the common
+ * fork/join pool cannot starve live lobbies, and the WebSocket outbound queues are drained on a bounded
+ * pool of daemon threads, so slow sessions can tie up at most that many OS threads.
+ * In virtual mode every task gets its own virtual thread, so a blocking send only parks a
+ * virtual thread instead of holding on to a carrier thread.
+ * The server is built for Java 17 and virtual threads are only found at runtime, so virtual mode
+ * needs a Java 21+ JVM; on the Java 17 image and in CI it falls back to platform mode.
+ */
+@Getter
+public class WorkerPools {
+    private static final GameLogger logger = GameLogger.sinkOnly(AsyncLogSink.stdout());
+
+    // mailbox drains are short and never block, one thread per core keeps them all busy
+    public static final int ACTION_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    // a blocked send holds its writer, the rest of the sessions queue behind the others
+    public static final int MAX_WRITER_THREADS = Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+    private static final long IDLE_WRITER_SECONDS = 60;
+
+    private final boolean virtual;
+    private final Executor actionWorkers;
+    private final Executor broadcastWorkers;
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService virtualExecutor;
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService actionPool;
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService writerPool;
+
+    private WorkerPools(ExecutorService virtualExecutor) {
+        this.virtualExecutor = virtualExecutor;
+        this.virtual = virtualExecutor != null;
+        this.actionPool = virtual ? null : Executors.newFixedThreadPool(ACTION_THREADS, daemonThreads("game-action"));
+        this.writerPool = virtual ? null : newWriterPool();
+        this.actionWorkers = virtual ? virtualExecutor : actionPool;
+        this.broadcastWorkers = virtual ? virtualExecutor : writerPool;
+    }
+
+    // each session has at most one drain queued, so the unbounded queue is bounded by the number of sessions
+    private static ExecutorService newWriterPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_WRITER_THREADS, MAX_WRITER_THREADS,
+                IDLE_WRITER_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreads("ws-writer"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @param virtualRequested run on virtual threads; ignored with a warning if the JVM does not support them
+     */
+    public static WorkerPools create(boolean virtualRequested) {
+        if (virtualRequested && !VirtualThreads.isSupported()) {
+            logger.warn("Virtual threads requested but Java " + Runtime.version().feature()
+                    + " does not support them (21+ needed), falling back to platform threads.");
+        }
+        boolean virtual = virtualRequested && VirtualThreads.isSupported();
+        return new WorkerPools(virtual ? VirtualThreads.newPerTaskExecutor() : null);
+    }
+
+    public void shutdown() {
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        }
+        if (actionPool != null) {
+            actionPool.shutdown();
+        }
+        if (writerPool != null) {
+            writerPool.shutdown();
+        }
+    }
+}
@@ -4,30 +4,66 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import se2.server.hanabi.api.GameStatus;
 import se2.server.hanabi.util.ActionResult;
+import se2.server.hanabi.game.GameLogger;
 import se2.server.hanabi.game.GameManager;
 import se2.server.hanabi.game.HintType;
-import se2.server.hanabi.model.Card;
+import se2.server.hanabi.game.commands.CommandDecoder;
+import se2.server.hanabi.game.commands.GameCommand;
+import se2.server.hanabi.model.GameActionMessage;
+import se2.server.hanabi.services.ActionBatchRunner;
+import se2.server.hanabi.services.GameActionExecutor;
 import se2.server.hanabi.services.LobbyManager;
+import se2.server.hanabi.services.StatePublisher;
 import se2.server.hanabi.util.ActionResultType;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @Tag(name = "Game Actions API", description = "Endpoints to perform game actions like playing cards, discarding, and giving hints")
 @RequestMapping("/api/game")
 public class GameActionController {
+
+    public static final int MAX_HISTORY_PAGE_SIZE = 500;
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    /**
+     * Response header with the sequence number to pass as since to get the entries after the page
+     */
+    public static final String NEXT_SINCE_HEADER = "X-Next-Since";
     
     private final LobbyManager lobbyManager;
+    private final GameActionExecutor actionExecutor;
+    private final ActionBatchRunner batchRunner;
+    private final StatePublisher statePublisher;
     
+    public GameActionController(LobbyManager lobbyManager, GameActionExecutor actionExecutor) {
+        this(lobbyManager, actionExecutor, StatePublisher.NONE);
+    }
+
+    /**
+     * @param statePublisher pushes the state of the lobbies a batch changed to their WebSocket clients
+     */
     @Autowired
-    public GameActionController(LobbyManager lobbyManager) {
+    public GameActionController(LobbyManager lobbyManager, GameActionExecutor actionExecutor, StatePublisher statePublisher) {
         this.lobbyManager = lobbyManager;
+        this.actionExecutor = actionExecutor;
+        this.batchRunner = new ActionBatchRunner(lobbyManager, actionExecutor);
+        this.statePublisher = statePublisher;
     }
     
     @GetMapping("/{lobbyId}/status")
@@ -51,6 +87,32 @@ public class GameActionController {
         return ResponseEntity.ok(gameManager.getStatusFor(playerId));
     }
     
+    @GetMapping("/{lobbyId}/status/at")
+    @Operation(
+            summary = "Get game status as of a turn",
+            description = "Rebuild the status a player saw during a past turn by replaying the game's action log",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Game status retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Negative turn"),
+                    @ApiResponse(responseCode = "404", description = "Game or lobby not found")
+            }
+    )
+    public ResponseEntity<GameStatus> getGameStatusAtTurn(
+            @PathVariable String lobbyId,
+            @RequestParam int playerId,
+            @RequestParam int turn
+    ) {
+        GameManager gameManager = lobbyManager.getGameManager(lobbyId);
+        if (gameManager == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (turn < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(gameManager.newReplay().atTurn(turn).statusFor(playerId));
+    }
+
     @PostMapping("/{lobbyId}/play")
     @Operation(
             summary = "Play a card",
@@ -61,23 +123,17 @@ public class GameActionController {
                     @ApiResponse(responseCode = "404", description = "Game or lobby not found")
             }
     )
-    public ResponseEntity<ActionResult> playCard(
+    public CompletableFuture<ResponseEntity<ActionResult>> playCard(
             @PathVariable String lobbyId,
             @RequestParam int playerId,
             @RequestParam int cardIndex
     ) {
         GameManager gameManager = lobbyManager.getGameManager(lobbyId);
         if (gameManager == null) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        ActionResult result = gameManager.playCard(playerId, cardIndex);
-        
-        if (result.getType() == ActionResultType.INVALID_MOVE) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
         }
         
-        return ResponseEntity.ok(result);
+        return execute(lobbyId, gameManager, new GameCommand.Play(playerId, cardIndex));
     }
     
     @PostMapping("/{lobbyId}/discard")
@@ -90,23 +146,17 @@ public class GameActionController {
                     @ApiResponse(responseCode = "404", description = "Game or lobby not found")
             }
     )
-    public ResponseEntity<ActionResult> discardCard(
+    public CompletableFuture<ResponseEntity<ActionResult>> discardCard(
             @PathVariable String lobbyId,
             @RequestParam int playerId,
             @RequestParam int cardIndex
     ) {
         GameManager gameManager = lobbyManager.getGameManager(lobbyId);
         if (gameManager == null) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        ActionResult result = gameManager.discardCard(playerId, cardIndex);
-        
-        if (result.getType() == ActionResultType.INVALID_MOVE) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
         }
         
-        return ResponseEntity.ok(result);
+        return execute(lobbyId, gameManager, new GameCommand.Discard(playerId, cardIndex));
     }
     
     @PostMapping("/{lobbyId}/hint")
@@ -119,7 +169,7 @@ public class GameActionController {
                     @ApiResponse(responseCode = "404", description = "Game or lobby not found")
             }
     )
-    public ResponseEntity<ActionResult> giveHint(
+    public CompletableFuture<ResponseEntity<ActionResult>> giveHint(
             @PathVariable String lobbyId,
             @RequestParam int fromPlayerId,
             @RequestParam int toPlayerId,
@@ -128,54 +178,166 @@ public class GameActionController {
     ) {
         GameManager gameManager = lobbyManager.getGameManager(lobbyId);
         if (gameManager == null) {
-            return ResponseEntity.notFound().build();
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
         }
         
-        Object value;
-        if (hintType == HintType.COLOR) {
-            try {
-                value = Card.Color.valueOf(hintValue.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                return ResponseEntity.badRequest().body(ActionResult.invalid("Invalid color value"));
-            }
-        } else {
-            try {
-                value = Integer.parseInt(hintValue);
-                if ((Integer)value < 1 || (Integer)value > 5) {
-                    return ResponseEntity.badRequest().body(ActionResult.invalid("Invalid card value (must be 1-5)"));
-                }
-            } catch (NumberFormatException e) {
-                return ResponseEntity.badRequest().body(ActionResult.invalid("Invalid hint value format"));
+        CommandDecoder.Result hint = CommandDecoder.hint(fromPlayerId, toPlayerId, hintType, hintValue);
+        if (!hint.isValid()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ActionResult.invalid(hint.error())));
+        }
+        return execute(lobbyId, gameManager, hint.command());
+    }
+    
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Submit a batch of actions",
+            description = "Run several actions, possibly in different lobbies, in one request. Actions of the same lobby run in "
+                    + "the given order, and each affected lobby sends one state update after its last action.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "One result per action, in request order"),
+                    @ApiResponse(responseCode = "400", description = "Empty batch or more than " + ActionBatchRunner.MAX_BATCH_SIZE + " actions")
             }
+    )
+    public CompletableFuture<ResponseEntity<List<ActionResult>>> submitBatch(
+            @RequestBody List<GameActionMessage> actions
+    ) {
+        if (actions == null || actions.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(List.of(ActionResult.invalid("Missing actions"))));
         }
-        
-        ActionResult result = gameManager.giveHint(fromPlayerId, toPlayerId, hintType, value);
-        
-        if (result.getType() == ActionResultType.INVALID_MOVE) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+        if (actions.size() > ActionBatchRunner.MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
+                    List.of(ActionResult.invalid("Too many actions, the limit is " + ActionBatchRunner.MAX_BATCH_SIZE))));
         }
-        
-        return ResponseEntity.ok(result);
+        return batchRunner.run(actions, null, statePublisher).thenApply(ResponseEntity::ok);
     }
     
     @GetMapping("/{lobbyId}/history")
     @Operation(
             summary = "Get game history",
-            description = "Get the history of moves in the current game",
+            description = "Get a page of the history of moves in the current game. Every entry has a sequence number; "
+                    + "pass the " + NEXT_SINCE_HEADER + " header of a response as since to get the entries after it. "
+                    + "A page holds at most limit entries, limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE + ". "
+                    + "Responses carry an ETag, a poll with it in If-None-Match gets 304 until new entries are logged.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Game history retrieved successfully"),
+                    @ApiResponse(responseCode = "304", description = "No new entries since the given ETag"),
+                    @ApiResponse(responseCode = "400", description = "Negative since or limit outside 1-" + MAX_HISTORY_PAGE_SIZE),
                     @ApiResponse(responseCode = "404", description = "Game or lobby not found")
             }
     )
     public ResponseEntity<List<String>> getGameHistory(
-            @PathVariable String lobbyId
+            @PathVariable String lobbyId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "" + MAX_HISTORY_PAGE_SIZE) int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         GameManager gameManager = lobbyManager.getGameManager(lobbyId);
         if (gameManager == null) {
             return ResponseEntity.notFound().build();
         }
-        
-        return ResponseEntity.ok(gameManager.getGameHistory());
+        if (since < 0 || limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        GameLogger.HistoryIterator history = gameManager.iterateGameHistory(since);
+        long first = history.getSequence();
+        long next = Math.min(history.getEndSequence(), first + limit);
+        String eTag = historyETag(gameManager, first, next);
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        List<String> page = new ArrayList<>((int) (next - first));
+        while (history.getSequence() < next) {
+            page.add(history.next());
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .header(NEXT_SINCE_HEADER, Long.toString(next))
+                .body(page);
     }
-    
-}
\ No newline at end of file
+
+    @GetMapping(value = "/{lobbyId}/history", produces = NDJSON_VALUE)
+    @Operation(
+            summary = "Stream game history",
+            description = "Stream the history of moves in the current game from the given sequence number on, "
+                    + "one JSON string per line. Entries are formatted while they are written.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Game history streamed"),
+                    @ApiResponse(responseCode = "304", description = "No new entries since the given ETag"),
+                    @ApiResponse(responseCode = "400", description = "Negative since"),
+                    @ApiResponse(responseCode = "404", description = "Game or lobby not found")
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> streamGameHistory(
+            @PathVariable String lobbyId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        GameManager gameManager = lobbyManager.getGameManager(lobbyId);
+        if (gameManager == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (since < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        GameLogger.HistoryIterator history = gameManager.iterateGameHistory(since);
+        String eTag = historyETag(gameManager, history.getSequence(), history.getEndSequence());
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+            while (history.hasNext()) {
+                String entry = history.next();
+                writer.write('"');
+                writer.write(encoder.quoteAsString(entry));
+                writer.write("\"\n");
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .header(NEXT_SINCE_HEADER, Long.toString(history.getEndSequence()))
+                .body(body);
+    }
+
+    // entries never change once logged, so the game and the range of sequence numbers identify the content
+    private static String historyETag(GameManager gameManager, long first, long next) {
+        return "\"" + Long.toHexString(gameManager.getSeed()) + "-" + first + "-" + next + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CompletableFuture<ResponseEntity<ActionResult>> execute(String lobbyId, GameManager gameManager, GameCommand command) {
+        return actionExecutor.submit(lobbyId, () -> {
+            try {
+                return gameManager.execute(command);
+            } finally {
+                // like /batch, WebSocket clients see the change as a delta
+                statePublisher.publish(lobbyId);
+            }
+        }).thenApply(GameActionController::toResponse);
+    }
+
+    private static ResponseEntity<ActionResult> toResponse(ActionResult result) {
+        if (result.getType() == ActionResultType.INVALID_MOVE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,6 +1,8 @@
 package se2.server.hanabi.controllers;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -9,11 +11,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import se2.server.hanabi.api.LobbyPage;
 import se2.server.hanabi.model.Lobby;
 import se2.server.hanabi.services.LobbyManager;
 import se2.server.hanabi.util.GameRules;
@@ -23,11 +27,19 @@ import java.util.stream.Collectors;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @Tag(name = "Lobby API", description = "Endpoints to manage lobbies, such as creating and joining a lobby.")
 public class LobbyController {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 256;
+
     private final LobbyManager lobbyManager;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // serialized lobby pages of one index version, replaced as a whole when the version moves
+    private final AtomicReference<PageCache> pageCache = new AtomicReference<>(new PageCache(-1));
 
     @Autowired
     public LobbyController(LobbyManager lobbyManager) {
@@ -232,16 +244,70 @@ public class LobbyController {
     }
 
     
-    @GetMapping("/lobbies")
+    @GetMapping(value = "/lobbies", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "List lobbies",
+            description = "Returns one page of lobby summaries ordered by lobby id. Pass the nextCursor of a page as cursor to get the following page.",
+            parameters = {
+                    @Parameter(name = "cursor", description = "Id of the last lobby of the previous page", in = ParameterIn.QUERY),
+                    @Parameter(name = "limit", description = "Maximum number of lobbies per page (1-100)", in = ParameterIn.QUERY, example = "20"),
+                    @Parameter(name = "openOnly", description = "Only list lobbies that can still be joined", in = ParameterIn.QUERY, example = "true"),
+                    @Parameter(name = "minPlayers", description = "Minimum number of players in the lobby", in = ParameterIn.QUERY),
+                    @Parameter(name = "maxPlayers", description = "Maximum number of players in the lobby", in = ParameterIn.QUERY)
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Page of lobbies retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Limit outside 1-" + MAX_PAGE_SIZE),
+                    @ApiResponse(responseCode = "500", description = "Page could not be serialized")
+            }
+    )
+    public ResponseEntity<String> getAllLobbies(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean openOnly,
+            @RequestParam(required = false) Integer minPlayers,
+            @RequestParam(required = false) Integer maxPlayers
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        long version = lobbyManager.getLobbyIndexVersion();
+        String cacheKey = cursor + "|" + limit + "|" + openOnly + "|" + minPlayers + "|" + maxPlayers;
+
+        // pages of older versions can never be hit again, so their cache is dropped with them
+        PageCache cache = pageCache.updateAndGet(current -> current.version != version ? new PageCache(version) : current);
+        String cached = cache.pages.get(cacheKey);
+        if (cached != null) {
+            return ResponseEntity.ok(cached);
+        }
+
+        LobbyPage page = lobbyManager.listLobbies(cursor, limit, openOnly, minPlayers, maxPlayers);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(page);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        // the index may have changed since the version was read, such a page must not be cached under it
+        if (page.getVersion() == version && cache.pages.size() < MAX_CACHED_PAGES) {
+            cache.pages.put(cacheKey, json);
+        }
+        return ResponseEntity.ok(json);
+    }
+
+    @GetMapping("/lobbies/stats")
     @Operation(
-            summary = "List all lobbies",
-            description = "Returns a list of all available lobbies",
+            summary = "Lobby statistics",
+            description = "Returns the number of live lobbies and how many idle lobbies have been evicted since server start",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "List of lobbies retrieved successfully")
+                    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
             }
     )
-    public ResponseEntity<java.util.Collection<Lobby>> getAllLobbies() {
-        return ResponseEntity.ok(lobbyManager.getAllLobbies());
+    public ResponseEntity<Map<String, Long>> getLobbyStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("live", (long) lobbyManager.getLiveLobbyCount());
+        stats.put("evicted", lobbyManager.getEvictedLobbyCount());
+        return ResponseEntity.ok(stats);
     }
 
     @GetMapping("/start-game/{id}/status")
@@ -281,4 +347,17 @@ public class LobbyController {
     public String getServerStatus() {
         return "Server is running and ready to accept requests.";
     }
+
+    /**
+     * Pages cached for one index version. A request still holding an older cache only fills a map
+     * nobody reads anymore.
+     */
+    private static final class PageCache {
+        private final long version;
+        private final Map<String, String> pages = new ConcurrentHashMap<>();
+
+        private PageCache(long version) {
+            this.version = version;
+        }
+    }
 }
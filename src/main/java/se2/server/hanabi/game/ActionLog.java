@@ -0,0 +1,253 @@
+package se2.server.hanabi.game;
+
+import se2.server.hanabi.game.commands.GameCommand;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Append-only log of the commands a game accepted, one 16-bit record per command.
+ * A game is fully determined by its deck seed, its seats, its hint duration and this log, so running
+ * the logged commands on a new game with the same setup rebuilds the same state.
+ * Players are stored by seat, so a record fits a command in 13 bits:
+ * <pre>
+ * bits 0-2   kind
+ * bits 3-5   seat of the acting player, {@link #NO_SEAT} if the player is not in the game
+ * bits 6-8   card index for plays and discards, target seat for hints
+ * bit  9     hint type
+ * bits 10-12 hint value, the color ordinal or the card value
+ * </pre>
+ * Records are appended on the game's mailbox; other threads may read the log at any time and see
+ * every record appended before the size they read.
+ */
+public class ActionLog {
+    private static final short MAGIC = 0x484C; // "HL"
+    private static final byte VERSION = 1;
+    private static final int INITIAL_CAPACITY = 128;
+
+    private static final int KIND_BITS = 3;
+    // seats, card indices, colors and values all fit in 3 bits
+    private static final int FIELD_BITS = 3;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+    private static final int ACTOR_SHIFT = KIND_BITS;
+    private static final int OPERAND_SHIFT = ACTOR_SHIFT + FIELD_BITS;
+    private static final int HINT_TYPE_SHIFT = OPERAND_SHIFT + FIELD_BITS;
+    private static final int HINT_VALUE_SHIFT = HINT_TYPE_SHIFT + 1;
+
+    /**
+     * Stored instead of a seat for players that are not in the game, e.g. cheats sent with an unknown id
+     */
+    public static final int NO_SEAT = FIELD_MASK;
+
+    public enum Kind {
+        PLAY, DISCARD, HINT, INCREMENT_STRIKES, DEFUSE, ADD_STRIKE;
+
+        private static final Kind[] KINDS = values();
+    }
+
+    private static final HintType[] HINT_TYPES = HintType.values();
+
+    private final long seed;
+    private final int numTurnsHintsLast;
+    private final int[] seatPlayerIds;
+    private volatile short[] records;
+    private volatile int size;
+
+    /**
+     * @param seed the seed of the game's deck
+     * @param numTurnsHintsLast the game's hint duration, -1 for persistent hints
+     * @param seatPlayerIds the player id at each seat
+     */
+    public ActionLog(long seed, int numTurnsHintsLast, int[] seatPlayerIds) {
+        this(seed, numTurnsHintsLast, seatPlayerIds, new short[INITIAL_CAPACITY], 0);
+    }
+
+    private ActionLog(long seed, int numTurnsHintsLast, int[] seatPlayerIds, short[] records, int size) {
+        if (seatPlayerIds.length >= NO_SEAT) {
+            throw new IllegalArgumentException("Too many seats: " + seatPlayerIds.length);
+        }
+        this.seed = seed;
+        this.numTurnsHintsLast = numTurnsHintsLast;
+        this.seatPlayerIds = seatPlayerIds.clone();
+        this.records = records;
+        this.size = size;
+    }
+
+    /**
+     * @return a log with the same setup and records, appending to one does not affect the other
+     */
+    public ActionLog copy() {
+        int count = size;
+        return new ActionLog(seed, numTurnsHintsLast, seatPlayerIds, Arrays.copyOf(records, Math.max(INITIAL_CAPACITY, count)), count);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumTurnsHintsLast() {
+        return numTurnsHintsLast;
+    }
+
+    public int getSeatCount() {
+        return seatPlayerIds.length;
+    }
+
+    public int getPlayerId(int seat) {
+        return seatPlayerIds[seat];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void play(int playerId, int cardIndex) {
+        append(record(Kind.PLAY, playerId, cardIndex));
+    }
+
+    public void discard(int playerId, int cardIndex) {
+        append(record(Kind.DISCARD, playerId, cardIndex));
+    }
+
+    public void hint(GameCommand.Hint hint) {
+        append(record(Kind.HINT, hint.fromPlayerId(), seatOf(hint.toPlayerId()))
+                | hint.type().ordinal() << HINT_TYPE_SHIFT | hint.value() << HINT_VALUE_SHIFT);
+    }
+
+    public void incrementStrikes() {
+        append(Kind.INCREMENT_STRIKES.ordinal() | NO_SEAT << ACTOR_SHIFT);
+    }
+
+    public void defuse(int playerId) {
+        append(record(Kind.DEFUSE, playerId, 0));
+    }
+
+    public void addStrike(int playerId) {
+        append(record(Kind.ADD_STRIKE, playerId, 0));
+    }
+
+    // must run on the game's mailbox
+    private void append(int record) {
+        short[] current = records;
+        int count = size;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+            records = current;
+        }
+        current[count] = (short) record;
+        // publishes the record to readers that read the size first
+        size = count + 1;
+    }
+
+    private int record(Kind kind, int playerId, int operand) {
+        return kind.ordinal() | seatOf(playerId) << ACTOR_SHIFT | operand << OPERAND_SHIFT;
+    }
+
+    private int seatOf(int playerId) {
+        for (int seat = 0; seat < seatPlayerIds.length; seat++) {
+            if (seatPlayerIds[seat] == playerId) {
+                return seat;
+            }
+        }
+        return NO_SEAT;
+    }
+
+    private static int playerAt(int[] playerIds, int seat) {
+        return seat == NO_SEAT ? -1 : playerIds[seat];
+    }
+
+    /**
+     * @return the raw record at the given position
+     */
+    public int record(int index) {
+        int count = size;
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+        return records[index] & 0xFFFF;
+    }
+
+    public static Kind kind(int record) {
+        return Kind.KINDS[record & ((1 << KIND_BITS) - 1)];
+    }
+
+    /**
+     * @return the acting player's seat, {@link #NO_SEAT} for commands without one
+     */
+    public static int actorSeat(int record) {
+        return (record >>> ACTOR_SHIFT) & FIELD_MASK;
+    }
+
+    /**
+     * Decodes a record back into the command that was accepted, with seats turned back into player ids.
+     * Players that were not in the game come back as id -1.
+     */
+    public GameCommand command(int index) {
+        return command(index, seatPlayerIds);
+    }
+
+    /**
+     * Decodes a record for a game with other players in the same seats, e.g. a replay of an archived game
+     * @param playerIds the player id at each seat
+     */
+    public GameCommand command(int index, int[] playerIds) {
+        int record = record(index);
+        int actor = playerAt(playerIds, actorSeat(record));
+        int operand = (record >>> OPERAND_SHIFT) & FIELD_MASK;
+        return switch (kind(record)) {
+            case PLAY -> new GameCommand.Play(actor, operand);
+            case DISCARD -> new GameCommand.Discard(actor, operand);
+            case HINT -> new GameCommand.Hint(actor, playerAt(playerIds, operand), HINT_TYPES[(record >>> HINT_TYPE_SHIFT) & 1],
+                    (record >>> HINT_VALUE_SHIFT) & FIELD_MASK);
+            case INCREMENT_STRIKES -> new GameCommand.IncrementStrikes();
+            case DEFUSE -> new GameCommand.Defuse(actor);
+            case ADD_STRIKE -> new GameCommand.AddStrike(actor);
+        };
+    }
+
+    /**
+     * @return the setup and all records so far, big-endian: magic, version, seat count, hint duration,
+     * seed, the player id of each seat, record count, then two bytes per record
+     */
+    public byte[] toBytes() {
+        int count = size;
+        short[] current = records;
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 1 + 1 + 4 + 8 + seatPlayerIds.length * 4 + 4 + count * 2)
+                .order(ByteOrder.BIG_ENDIAN);
+        buffer.putShort(MAGIC).put(VERSION).put((byte) seatPlayerIds.length)
+                .putInt(numTurnsHintsLast).putLong(seed);
+        for (int playerId : seatPlayerIds) {
+            buffer.putInt(playerId);
+        }
+        buffer.putInt(count);
+        buffer.asShortBuffer().put(current, 0, count);
+        return buffer.array();
+    }
+
+    /**
+     * Reads a log written by {@link #toBytes()}
+     * @throws IllegalArgumentException if the bytes are not a log of this version
+     */
+    public static ActionLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (buffer.getShort() != MAGIC || buffer.get() != VERSION) {
+                throw new IllegalArgumentException("Not an action log of version " + VERSION);
+            }
+            int[] seatPlayerIds = new int[buffer.get()];
+            int numTurnsHintsLast = buffer.getInt();
+            long seed = buffer.getLong();
+            for (int seat = 0; seat < seatPlayerIds.length; seat++) {
+                seatPlayerIds[seat] = buffer.getInt();
+            }
+            int count = buffer.getInt();
+            short[] records = new short[Math.max(INITIAL_CAPACITY, count)];
+            buffer.asShortBuffer().get(records, 0, count);
+            return new ActionLog(seed, numTurnsHintsLast, seatPlayerIds, records, count);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated action log", e);
+        }
+    }
+}
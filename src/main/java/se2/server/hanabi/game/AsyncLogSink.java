@@ -0,0 +1,193 @@
+package se2.server.hanabi.game;
+
+import se2.server.hanabi.game.GameLogger.LogLevel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log sink that writes from one background thread. Loggers only add their records to a lock-free queue;
+ * the writer formats whatever has queued up and writes it to the channel in large batches, so games on
+ * different threads never wait for each other or for the output.
+ * Entries below the minimum level are not recorded, INFO entries can be sampled, and when the writer
+ * falls more than the capacity behind, new entries are dropped and counted instead of queued.
+ */
+public class AsyncLogSink implements LogSink, AutoCloseable {
+    /**
+     * Room for a burst of a thousand concurrent games logging every turn (about 250k entries) before
+     * anything is dropped; a full queue holds some 15 MB of records
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    private static final int BATCH_BYTES = 1 << 16;
+    // how long an idle writer sleeps before checking the queue on its own
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final AsyncLogSink STDOUT = createStdout();
+
+    private final WritableByteChannel channel;
+    private final int capacity;
+    private final Queue<int[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean idle;
+    private volatile boolean closed;
+    private volatile LogLevel minLevel = LogLevel.INFO;
+    private volatile int sampleRate = 1;
+    // drops already reported in the output, only used by the writer
+    private long reportedDrops = 0;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder text = new StringBuilder(BATCH_BYTES);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BATCH_BYTES * 2);
+
+    /**
+     * Starts the writer thread
+     * @param channel where the formatted entries are written, one per line
+     * @param capacity the maximum number of entries waiting for the writer
+     */
+    public AsyncLogSink(WritableByteChannel channel, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Log capacity must be positive: " + capacity);
+        }
+        this.channel = channel;
+        this.capacity = capacity;
+        this.writer = new Thread(this::drainLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static AsyncLogSink createStdout() {
+        // through System.out rather than its file descriptor, so redirecting System.out still works
+        AsyncLogSink sink = new AsyncLogSink(Channels.newChannel(System.out), DEFAULT_CAPACITY);
+        Runtime.getRuntime().addShutdownHook(new Thread(sink::close, "log-writer-shutdown"));
+        return sink;
+    }
+
+    /**
+     * @return the sink the server-wide loggers write to standard output through
+     */
+    public static AsyncLogSink stdout() {
+        return STDOUT;
+    }
+
+    /**
+     * @param minLevel entries below this level are not recorded
+     * @param sampleRate keep one in this many INFO entries, 1 keeps all; warnings and errors are always kept
+     */
+    public void configure(LogLevel minLevel, int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+        }
+        this.minLevel = minLevel;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public boolean accepts(LogLevel level) {
+        if (closed || level.compareTo(minLevel) < 0) {
+            return false;
+        }
+        int rate = sampleRate;
+        return rate == 1 || level != LogLevel.INFO || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
+    @Override
+    public void write(int[] record) {
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(record);
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * @return the number of entries dropped because the writer was too far behind
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Writes everything queued so far and stops the writer
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            int[] record = queue.poll();
+            if (record == null) {
+                flush();
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+                idle = true;
+                // a producer that missed the idle flag has queued before this check
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+            queued.decrementAndGet();
+            long missed = dropped.sum() - reportedDrops;
+            if (missed > 0) {
+                text.append("[WARN] ").append(missed).append(" log entries dropped\n");
+                reportedDrops += missed;
+            }
+            text.append(GameLogger.format(record, 0)).append('\n');
+            if (text.length() >= BATCH_BYTES) {
+                flush();
+            }
+        }
+    }
+
+    private void flush() {
+        if (text.isEmpty()) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, true);
+                bytes.flip();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                bytes.clear();
+            } while (result.isOverflow());
+        } catch (IOException e) {
+            // nowhere left to report it, the batch is lost
+        }
+        text.setLength(0);
+    }
+}
@@ -0,0 +1,18 @@
+package se2.server.hanabi.game;
+
+import lombok.Getter;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Card.Color;
+
+@Getter
+public class ColorHint {
+    private final Card.Color color;
+    // the turn at whose start the hint disappears, GameState.PERSISTENT_HINT if it stays
+    private final int expiryTurn;
+
+    public ColorHint(Color color, int expiryTurn) {
+        this.color = color;
+        this.expiryTurn = expiryTurn;
+    }
+
+}
@@ -0,0 +1,118 @@
+package se2.server.hanabi.game;
+
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The highest value played per color. Fireworks only grow one card at a time through {@link #play},
+ * which also keeps the running score and the number of completed colors, so score and end condition
+ * are read without iterating. Callers get a read-only {@link Map} view, see {@link #asMap()}.
+ */
+final class Fireworks {
+    private static final Card.Color[] COLORS = Card.Color.values();
+    private final int[] values = new int[COLORS.length];
+    private final Map<Card.Color, Integer> view = new View();
+    private int score;
+    private int completedColors;
+
+    Fireworks() {
+    }
+
+    Fireworks(Fireworks source) {
+        System.arraycopy(source.values, 0, values, 0, values.length);
+        this.score = source.score;
+        this.completedColors = source.completedColors;
+    }
+
+    /**
+     * Adds the next card of the color
+     * @throws IllegalStateException if the color is already complete
+     */
+    void play(Card.Color color) {
+        int value = values[color.ordinal()];
+        if (value == GameRules.MAX_CARD_VALUE) {
+            throw new IllegalStateException("Fireworks of " + color + " are already complete");
+        }
+        values[color.ordinal()] = value + 1;
+        score++;
+        if (value + 1 == GameRules.MAX_CARD_VALUE) {
+            completedColors++;
+        }
+    }
+
+    int get(Card.Color color) {
+        return values[color.ordinal()];
+    }
+
+    int getScore() {
+        return score;
+    }
+
+    boolean isComplete() {
+        return completedColors == COLORS.length;
+    }
+
+    /**
+     * @return a live, unmodifiable view with an entry for every color
+     */
+    Map<Card.Color, Integer> asMap() {
+        return view;
+    }
+
+    private final class View extends AbstractMap<Card.Color, Integer> {
+        private final Set<Map.Entry<Card.Color, Integer>> entries = new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Card.Color, Integer>> iterator() {
+                return new Iterator<>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < COLORS.length;
+                    }
+
+                    @Override
+                    public Map.Entry<Card.Color, Integer> next() {
+                        if (next == COLORS.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Card.Color color = COLORS[next++];
+                        return new AbstractMap.SimpleImmutableEntry<>(color, values[color.ordinal()]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return COLORS.length;
+            }
+        };
+
+        @Override
+        public Integer get(Object key) {
+            return key instanceof Card.Color color ? values[color.ordinal()] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Card.Color;
+        }
+
+        @Override
+        public int size() {
+            return COLORS.length;
+        }
+
+        @Override
+        public Set<Map.Entry<Card.Color, Integer>> entrySet() {
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package se2.server.hanabi.game;
+
+import se2.server.hanabi.game.GameLogger.LogLevel;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.Map;
+
+/**
+ * The kinds of entries in a game's history. The logger stores an event as its type and int arguments
+ * and only turns it into text with {@link #format} when the history is read.
+ * In a template, {n} is the n-th argument as a number, {n:card} a card packed by {@link #card},
+ * {n:hint} a hint packed by {@link #hint} and {n:fireworks} fireworks packed by {@link #fireworks}.
+ */
+public enum GameEvent {
+    TEXT(null, null) {
+        @Override
+        void format(StringBuilder out, int[] args, int offset, int count) {
+            int length = args[offset];
+            for (int i = 0; i < length; i++) {
+                int pair = args[offset + 1 + i / 2];
+                out.append((char) (i % 2 == 0 ? pair >>> 16 : pair & 0xFFFF));
+            }
+        }
+    },
+    DEALING(LogLevel.INFO, "Dealing {0} cards per player"),
+    SETUP_COMPLETED(LogLevel.INFO, "Game setup completed. {0} cards left in deck."),
+    GOES_FIRST(LogLevel.INFO, "Player {0} goes first."),
+    TURN_ADVANCED(LogLevel.INFO, "Turn advances to {0}, turnCounter={1}"),
+    FINAL_ROUND(LogLevel.INFO, "Final round: {0} turns remaining."),
+    FINAL_ROUND_STARTED(LogLevel.INFO, "Deck is empty. Final round started! {0} turns remaining."),
+    HINTS_REMOVED(LogLevel.INFO, "{0} hints removed."),
+    HINT_TOKENS_UPDATED(LogLevel.INFO, "Hint tokens updated to {0} out of " + GameRules.MAX_HINT_TOKENS),
+    STRIKE_INCREMENTING(LogLevel.INFO, "Incrementing strikes. Current strikes: {0}"),
+    STRIKE_INCREASED(LogLevel.WARN, "Strike count increased to {0} out of " + GameRules.MAX_STRIKES),
+    STRIKES_BEFORE_INCREMENT(LogLevel.INFO, "Before increment: Strikes = {0}"),
+    STRIKES_AFTER_INCREMENT(LogLevel.INFO, "After increment: Strikes = {0}"),
+    MAX_STRIKES_REACHED(LogLevel.ERROR, "Game over: maximum strikes reached ({0})"),
+    COMPLETED_PERFECTLY(LogLevel.INFO, "Game completed perfectly!"),
+    FINAL_TURNS_REACHED(LogLevel.INFO, "Game over: final turns reached"),
+    MARKED_OVER(LogLevel.INFO, "Game is now marked as over."),
+    FINAL_SCORE(LogLevel.INFO, "Final score: {0} out of " + GameRules.MAX_SCORE),
+    PLAY_ATTEMPT(LogLevel.INFO, "Player {0} attempts to play card at index {1}"),
+    PLAY_AFTER_GAME_OVER(LogLevel.WARN, "Attempt to play card after game over by player {0}"),
+    PLAY_UNKNOWN_PLAYER(LogLevel.WARN, "Player {0} not found while playing card"),
+    PLAY_INVALID_INDEX(LogLevel.WARN, "Invalid card index {1} by player {0}"),
+    PLAYED(LogLevel.INFO, "Player {0} played card: {1:card}"),
+    PLAY_EXPECTED(LogLevel.INFO, "Card value: {0}, Expected: {1}"),
+    MISPLAYED(LogLevel.WARN, "Player {0} played an invalid card: {1:card}"),
+    WRONG_CARD(LogLevel.WARN, "Wrong card played by player {0}"),
+    FIREWORKS(LogLevel.INFO, "Played cards state: {0:fireworks}"),
+    PERFECT_GAME(LogLevel.INFO, "Perfect game achieved! Game over."),
+    PLAYED_WITH_EMPTY_DECK(LogLevel.WARN, "Deck is empty. No card drawn."),
+    DISCARD_ATTEMPT(LogLevel.INFO, "Player {0} attempts to discard card at index {1}"),
+    DISCARD_AT_MAX_HINTS(LogLevel.WARN, "Player {0} attempted to discard but hints are already at maximum."),
+    DISCARD_AFTER_GAME_OVER(LogLevel.ERROR, "Discard failed - Game is already over."),
+    DISCARD_UNKNOWN_PLAYER(LogLevel.ERROR, "Discard failed - Unknown player"),
+    DISCARD_INVALID_INDEX(LogLevel.ERROR, "Discard failed - Invalid card index {1} for player: {0}"),
+    DISCARDED(LogLevel.INFO, "Player {0} discarded {1:card} and gained a hint."),
+    DREW(LogLevel.INFO, "Player {0} drew a new card. {1} cards left in deck."),
+    DRAW_FROM_EMPTY_DECK(LogLevel.INFO, "Player {0} could not draw a card - deck is empty."),
+    HINT_UNKNOWN_TARGET(LogLevel.WARN, "Target player {0} not found while giving hint"),
+    HINT_NO_MATCH(LogLevel.INFO, "No matching cards found for hint by player {0}"),
+    /**
+     * Arguments: giver, target, hint, then position and card of each matching card
+     */
+    HINT_GIVEN(LogLevel.INFO, "Player {0} gave a hint to player {1} about {2:hint}. Matching cards: ") {
+        @Override
+        void format(StringBuilder out, int[] args, int offset, int count) {
+            super.format(out, args, offset, count);
+            for (int i = 3; i + 1 < count; i += 2) {
+                int card = args[offset + i + 1];
+                out.append("[Position: ").append(args[offset + i]).append(", ID: ").append(card >>> CARD_ID_SHIFT)
+                        .append(", Value: ").append(card & VALUE_MASK)
+                        .append(", Color: ").append(COLORS[(card >>> VALUE_BITS) & VALUE_MASK].name()).append("] ");
+            }
+        }
+    },
+    DEFUSED(LogLevel.INFO, "[CHEAT] Player {0} defused a strike! (strikes now: {1})"),
+    NO_STRIKE_TO_DEFUSE(LogLevel.INFO, "[CHEAT] Player {0} tried to defuse a strike, but none left."),
+    STRIKE_ADDED(LogLevel.INFO, "[CHEAT] Player {0} triggered a failed defuse! (strikes now: {1})"),
+    NO_STRIKE_TO_ADD(LogLevel.INFO, "[CHEAT] Player {0} tried to add a strike, but no strikes present.");
+
+    private static final Card.Color[] COLORS = Card.Color.values();
+    private static final HintType[] HINT_TYPES = HintType.values();
+    private static final int VALUE_BITS = 3;
+    private static final int VALUE_MASK = (1 << VALUE_BITS) - 1;
+    private static final int CARD_ID_SHIFT = 2 * VALUE_BITS;
+
+    private final LogLevel level;
+    // literal text and placeholders alternate, starting and ending with text
+    private final String[] texts;
+    private final int[] argIndices;
+    private final char[] argKinds;
+
+    GameEvent(LogLevel level, String template) {
+        this.level = level;
+        int placeholders = template == null ? 0 : (int) template.chars().filter(c -> c == '{').count();
+        this.texts = new String[placeholders + 1];
+        this.argIndices = new int[placeholders];
+        this.argKinds = new char[placeholders];
+        if (template == null) {
+            texts[0] = "";
+            return;
+        }
+        int position = 0;
+        for (int i = 0; i < placeholders; i++) {
+            int open = template.indexOf('{', position);
+            int close = template.indexOf('}', open);
+            texts[i] = template.substring(position, open);
+            String[] placeholder = template.substring(open + 1, close).split(":");
+            argIndices[i] = Integer.parseInt(placeholder[0]);
+            argKinds[i] = placeholder.length > 1 ? placeholder[1].charAt(0) : 'n';
+            position = close + 1;
+        }
+        texts[placeholders] = template.substring(position);
+    }
+
+    /**
+     * @return the level of the event, null for text entries, which carry their own
+     */
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Appends the message of an event
+     * @param args the array holding the arguments
+     * @param offset the index of the first argument
+     * @param count the number of arguments
+     */
+    void format(StringBuilder out, int[] args, int offset, int count) {
+        for (int i = 0; i < argIndices.length; i++) {
+            out.append(texts[i]);
+            int arg = args[offset + argIndices[i]];
+            switch (argKinds[i]) {
+                case 'c' -> out.append("Card{value=").append(arg & VALUE_MASK)
+                        .append(", color=").append(COLORS[(arg >>> VALUE_BITS) & VALUE_MASK])
+                        .append(", id=").append(arg >>> CARD_ID_SHIFT).append('}');
+                case 'h' -> out.append(HINT_TYPES[arg >>> VALUE_BITS]).append(' ').append(
+                        arg >>> VALUE_BITS == HintType.COLOR.ordinal() ? COLORS[arg & VALUE_MASK].name() : Integer.toString(arg & VALUE_MASK));
+                case 'f' -> appendFireworks(out, arg);
+                default -> out.append(arg);
+            }
+        }
+        out.append(texts[argIndices.length]);
+    }
+
+    private static void appendFireworks(StringBuilder out, int fireworks) {
+        out.append('{');
+        for (Card.Color color : COLORS) {
+            if (color.ordinal() > 0) {
+                out.append(", ");
+            }
+            out.append(color).append('=').append((fireworks >>> (color.ordinal() * VALUE_BITS)) & VALUE_MASK);
+        }
+        out.append('}');
+    }
+
+    /**
+     * Packs a card into one argument
+     */
+    public static int card(Card card) {
+        return card.getId() << CARD_ID_SHIFT | card.getColor().ordinal() << VALUE_BITS | card.getValue();
+    }
+
+    /**
+     * Packs a hint into one argument
+     * @param value the color ordinal for a color hint, the card value for a value hint
+     */
+    public static int hint(HintType type, int value) {
+        return type.ordinal() << VALUE_BITS | value;
+    }
+
+    /**
+     * Packs the played values of all colors into one argument
+     */
+    public static int fireworks(Map<Card.Color, Integer> playedCards) {
+        int packed = 0;
+        for (Map.Entry<Card.Color, Integer> entry : playedCards.entrySet()) {
+            packed |= entry.getValue() << (entry.getKey().ordinal() * VALUE_BITS);
+        }
+        return packed;
+    }
+}
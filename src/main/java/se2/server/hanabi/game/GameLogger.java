@@ -1,21 +1,110 @@
 package se2.server.hanabi.game;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.BiFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
+/**
+ * Game history as structured events. An event is stored as a header and its int arguments in a
+ * fixed-size ring; text is only built when the history is read. When the ring is full, its older half
+ * is compressed into a segment, so a long game keeps its whole history at a fraction of the heap.
+ * Writes are serialized; reads take no lock: a reader copies the ring and retries if the part it
+ * copied was spilled into a segment meanwhile, like a seqlock with the spill as its version. The segments and the ring position they end at are
+ * published together as one immutable {@link Spill}, so a reader never sees one without the other.
+ * Every entry has a sequence number, counting from 0 for the first entry ever logged and never reused,
+ * so a reader can ask for the entries after the last one it has seen.
+ */
 public class GameLogger {
 
     public enum LogLevel {
         INFO, WARN, ERROR
     }
 
-    private final List<String> history = new ArrayList<>();
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private static final int LEVEL_SHIFT = 8;
+    private static final int LENGTH_SHIFT = 10;
+    private static final int TYPE_MASK = (1 << LEVEL_SHIFT) - 1;
+    private static final GameEvent[] EVENTS = GameEvent.values();
+    private static final LogLevel[] LEVELS = LogLevel.values();
+    private static final Spill EMPTY = new Spill(new Segment[0], 0, 0);
+    private static final GameLogger DISABLED = new GameLogger(16, LogSink.NONE, false);
+
+    private final int[] ring;
+    private final int mask;
+    private final LogSink sink;
+    private final boolean keepsHistory;
+    // position after the last int written, only used by the writer
+    private long writePosition = 0;
+    // position after the last complete record, written after the record's ints
+    private volatile long published = 0;
+    // the segments and the ring position below which all records are in them, replaced as a whole
+    private volatile Spill spill = EMPTY;
+    // number of entries logged so far, only used by the writer
+    private long logged = 0;
+
+    /**
+     * Creates a logger that also writes every entry to standard output, for live games
+     */
+    public GameLogger() {
+        this(DEFAULT_CAPACITY, AsyncLogSink.stdout());
+    }
+
+    /**
+     * @param capacity the ring size in ints, a power of two
+     * @param sink where entries are sent besides the history, {@link LogSink#NONE} to keep them only here
+     */
+    public GameLogger(int capacity, LogSink sink) {
+        this(capacity, sink, true);
+    }
+
+    private GameLogger(int capacity, LogSink sink, boolean keepsHistory) {
+        if (capacity < 16 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least 16: " + capacity);
+        }
+        this.ring = new int[capacity];
+        this.mask = capacity - 1;
+        this.sink = sink;
+        this.keepsHistory = keepsHistory;
+    }
+
+    /**
+     * @return a logger that keeps no history and writes nothing, for games whose history nobody reads,
+     * like simulated ones; shared, since it has no state
+     */
+    public static GameLogger disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return a logger that only writes to the sink and keeps no history, for server-wide infrastructure
+     * messages whose history nobody reads and which would otherwise grow for the life of the process
+     */
+    public static GameLogger sinkOnly(LogSink sink) {
+        return new GameLogger(16, sink, false);
+    }
 
     public void log(LogLevel level, String message) {
-        String entry = "[" + level + "] " + message;
-        history.add(entry);
-        System.out.println(entry);
+        if (!keepsHistory && !sink.accepts(level)) {
+            return;
+        }
+        String text = String.valueOf(message);
+        int length = text.length();
+        int[] args = new int[1 + (length + 1) / 2];
+        args[0] = length;
+        for (int i = 0; i < length; i++) {
+            args[1 + i / 2] |= i % 2 == 0 ? text.charAt(i) << 16 : text.charAt(i);
+        }
+        append(GameEvent.TEXT, level, args, args.length, 0, 0, 0);
     }
 
     public void info(String message) {
@@ -30,12 +119,426 @@ public class GameLogger {
         log(LogLevel.ERROR, message);
     }
 
-    public List<String> getHistory() {
-        return Collections.unmodifiableList(history);
+    public void event(GameEvent event) {
+        append(event, event.getLevel(), null, 0, 0, 0, 0);
     }
 
-    public void clear() {
-        history.clear();
+    public void event(GameEvent event, int arg) {
+        append(event, event.getLevel(), null, 1, arg, 0, 0);
+    }
+
+    public void event(GameEvent event, int arg0, int arg1) {
+        append(event, event.getLevel(), null, 2, arg0, arg1, 0);
+    }
+
+    public void event(GameEvent event, int arg0, int arg1, int arg2) {
+        append(event, event.getLevel(), null, 3, arg0, arg1, arg2);
+    }
+
+    /**
+     * Logs an event with any number of arguments
+     * @param count the number of arguments to take from the start of the array
+     */
+    public void event(GameEvent event, int[] args, int count) {
+        append(event, event.getLevel(), args, count, 0, 0, 0);
+    }
+
+    // the first arguments come from args if it is not null, otherwise from arg0 to arg2
+    private void append(GameEvent event, LogLevel level, int[] args, int count, int arg0, int arg1, int arg2) {
+        int header = event.ordinal() | level.ordinal() << LEVEL_SHIFT | count << LENGTH_SHIFT;
+        if (sink.accepts(level)) {
+            int[] record = new int[1 + count];
+            record[0] = header;
+            for (int i = 0; i < count; i++) {
+                record[1 + i] = args != null ? args[i] : i == 0 ? arg0 : i == 1 ? arg1 : arg2;
+            }
+            sink.write(record);
+        }
+        if (keepsHistory) {
+            store(header, args, count, arg0, arg1, arg2);
+        }
+    }
+
+    private synchronized void store(int header, int[] args, int count, int arg0, int arg1, int arg2) {
+        int length = 1 + count;
+        if (length > ring.length / 2) {
+            // too large for the ring, goes straight into a segment of its own
+            spill(writePosition);
+            int[] record = new int[length];
+            record[0] = header;
+            System.arraycopy(args, 0, record, 1, count);
+            logged++;
+            publishSegment(Segment.of(record, length, 1), writePosition);
+        } else {
+            while (writePosition + length - spill.position > ring.length) {
+                spillOlderHalf();
+            }
+            long position = writePosition;
+            ring[(int) (position++ & mask)] = header;
+            for (int i = 0; i < count; i++) {
+                int arg = args != null ? args[i] : i == 0 ? arg0 : i == 1 ? arg1 : arg2;
+                ring[(int) (position++ & mask)] = arg;
+            }
+            writePosition = position;
+            logged++;
+            published = position;
+        }
+    }
+
+    /**
+     * Formats the record starting at the given offset
+     */
+    static String format(int[] records, int offset) {
+        int header = records[offset];
+        StringBuilder entry = new StringBuilder(64)
+                .append('[').append(LEVELS[(header >>> LEVEL_SHIFT) & 3]).append("] ");
+        EVENTS[header & TYPE_MASK].format(entry, records, offset + 1, header >>> LENGTH_SHIFT);
+        return entry.toString();
+    }
+
+    private void spillOlderHalf() {
+        long position = spill.position;
+        long target = position + ring.length / 2;
+        while (position < target) {
+            position += 1 + (ring[(int) (position & mask)] >>> LENGTH_SHIFT);
+        }
+        spill(position);
+    }
+
+    // compresses the records up to the given position into a segment
+    private void spill(long until) {
+        long from = spill.position;
+        if (until == from) {
+            return;
+        }
+        int length = (int) (until - from);
+        int[] records = new int[length];
+        int events = 0;
+        for (int i = 0; i < length; ) {
+            int header = ring[(int) ((from + i) & mask)];
+            int recordLength = 1 + (header >>> LENGTH_SHIFT);
+            for (int j = 0; j < recordLength; j++) {
+                records[i + j] = ring[(int) ((from + i + j) & mask)];
+            }
+            i += recordLength;
+            events++;
+        }
+        publishSegment(Segment.of(records, length, events), until);
+    }
+
+    private void publishSegment(Segment segment, long spilledUntil) {
+        Spill current = spill;
+        Segment[] grown = Arrays.copyOf(current.segments, current.segments.length + 1);
+        grown[current.segments.length] = segment;
+        publishSpill(new Spill(grown, spilledUntil, current.firstSequence));
+    }
+
+    /**
+     * Replaces the spill. The ring slots below its position may be overwritten right afterwards, and those
+     * plain stores must not become visible before the new spill does, or a reader could accept a copy
+     * of overwritten slots together with the old spill; the fence keeps them after it.
+     */
+    private void publishSpill(Spill next) {
+        spill = next;
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * @return the entries logged so far, as an unmodifiable list that does not change afterwards and
+     * formats each entry when it is read
+     */
+    public History getHistory() {
+        return getHistory(0);
+    }
+
+    /**
+     * @param since the sequence number of the first entry to return
+     * @return the entries logged so far from the given sequence number on, or from the oldest one kept
+     * if it is later. Segments holding only older entries are not decompressed.
+     */
+    public History getHistory(long since) {
+        return read((start, recent) -> History.of(start.segments, recent, start.firstSequence, since));
+    }
+
+    /**
+     * Reads the history lazily, for readers that may stop before the end
+     * @param since the sequence number of the first entry to return
+     * @return the entries logged so far from the given sequence number on, or from the oldest one kept
+     * if it is later. Segments are only decompressed when the iterator reaches them.
+     */
+    public HistoryIterator iterateHistory(long since) {
+        return read((start, recent) -> new HistoryIterator(start.segments, recent, start.firstSequence, since));
+    }
+
+    // hands the segments and a copy of the ring records after them to the reader
+    private <T> T read(BiFunction<Spill, int[], T> reader) {
+        while (true) {
+            Spill start = spill;
+            long end = published;
+            int[] recent = new int[(int) (end - start.position)];
+            for (int i = 0; i < recent.length; i++) {
+                recent[i] = ring[(int) ((start.position + i) & mask)];
+            }
+            // the copy is only valid if none of it was spilled, and possibly overwritten, while copying
+            VarHandle.acquireFence();
+            if (spill == start) {
+                return reader.apply(start, recent);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        publishSpill(new Spill(EMPTY.segments, writePosition, logged));
+    }
+
+    /**
+     * @return the heap used by the compressed segments, in bytes
+     */
+    public long getCompressedBytes() {
+        long bytes = 0;
+        for (Segment segment : spill.segments) {
+            bytes += segment.compressed.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * The spilled part of the history
+     */
+    private static final class Spill {
+        private final Segment[] segments;
+        // ring position below which all records are in the segments
+        private final long position;
+        // sequence number of the first entry of the first segment, or of the ring if there are none
+        private final long firstSequence;
+
+        private Spill(Segment[] segments, long position, long firstSequence) {
+            this.segments = segments;
+            this.position = position;
+            this.firstSequence = firstSequence;
+        }
+    }
+
+    /**
+     * Records spilled from the ring, deflated
+     */
+    private static final class Segment {
+        // zlib streams are expensive to set up, each thread keeps one instead of one per segment
+        private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+        private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+
+        private final byte[] compressed;
+        private final int length;
+        private final int events;
+
+        private Segment(byte[] compressed, int length, int events) {
+            this.compressed = compressed;
+            this.length = length;
+            this.events = events;
+        }
+
+        static Segment of(int[] records, int length, int events) {
+            ByteBuffer bytes = ByteBuffer.allocate(length * Integer.BYTES);
+            bytes.asIntBuffer().put(records, 0, length);
+            Deflater deflater = DEFLATERS.get();
+            deflater.reset();
+            deflater.setInput(bytes.array());
+            deflater.finish();
+            byte[] buffer = new byte[bytes.capacity() + 64];
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                size += deflater.deflate(buffer, size, buffer.length - size);
+            }
+            return new Segment(Arrays.copyOf(buffer, size), length, events);
+        }
+
+        void inflateInto(int[] target, int offset) {
+            byte[] bytes = new byte[length * Integer.BYTES];
+            Inflater inflater = INFLATERS.get();
+            inflater.reset();
+            inflater.setInput(compressed);
+            try {
+                int size = 0;
+                while (size < bytes.length && !inflater.finished()) {
+                    size += inflater.inflate(bytes, size, bytes.length - size);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt history segment", e);
+            }
+            ByteBuffer.wrap(bytes).asIntBuffer().get(target, offset, length);
+        }
     }
-}
 
+    /**
+     * Entries of the history, as an unmodifiable list that does not change afterwards and formats each
+     * entry when it is read
+     */
+    public static final class History extends AbstractList<String> implements RandomAccess {
+        private final int[] records;
+        // start of each entry's record
+        private final int[] offsets;
+        private final long firstSequence;
+
+        private History(int[] records, int[] offsets, long firstSequence) {
+            this.records = records;
+            this.offsets = offsets;
+            this.firstSequence = firstSequence;
+        }
+
+        // first is the sequence number of the first entry of the first segment
+        static History of(Segment[] segments, int[] recent, long first, long since) {
+            int skipped = 0;
+            while (skipped < segments.length && first + segments[skipped].events <= since) {
+                first += segments[skipped++].events;
+            }
+            int length = recent.length;
+            int events = 0;
+            for (int i = skipped; i < segments.length; i++) {
+                length += segments[i].length;
+                events += segments[i].events;
+            }
+            int[] records = new int[length];
+            int position = 0;
+            for (int i = skipped; i < segments.length; i++) {
+                segments[i].inflateInto(records, position);
+                position += segments[i].length;
+            }
+            System.arraycopy(recent, 0, records, position, recent.length);
+
+            for (int i = position; i < length; i += 1 + (records[i] >>> LENGTH_SHIFT)) {
+                events++;
+            }
+            int dropped = (int) Math.min(Math.max(since - first, 0), events);
+            int offset = 0;
+            for (int i = 0; i < dropped; i++) {
+                offset += 1 + (records[offset] >>> LENGTH_SHIFT);
+            }
+            int[] offsets = new int[events - dropped];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = offset;
+                offset += 1 + (records[offset] >>> LENGTH_SHIFT);
+            }
+            return new History(records, offsets, first + dropped);
+        }
+
+        /**
+         * @return the sequence number of the first entry
+         */
+        public long getFirstSequence() {
+            return firstSequence;
+        }
+
+        /**
+         * @return the sequence number the next entry will get, i.e. the number of entries logged
+         * up to when this history was read
+         */
+        public long getNextSequence() {
+            return firstSequence + offsets.length;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= offsets.length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + offsets.length);
+            }
+            return format(records, offsets[index]);
+        }
+
+        @Override
+        public int size() {
+            return offsets.length;
+        }
+    }
+
+    /**
+     * Entries of the history in order, formatted as they are returned. Segments are decompressed one at
+     * a time when the iterator reaches them, so a reader that stops early never inflates the rest.
+     * Like {@link History}, it only covers the entries logged up to when it was created.
+     */
+    public static final class HistoryIterator implements Iterator<String> {
+        private final Segment[] segments;
+        private final int[] recent;
+        private final long endSequence;
+        private int nextSegment = 0;
+        // the records being read, a segment's or the ring's, and the start of the next entry's record in them
+        private int[] records = new int[0];
+        private int offset = 0;
+        private long sequence;
+
+        // first is the sequence number of the first entry of the first segment
+        private HistoryIterator(Segment[] segments, int[] recent, long first, long since) {
+            this.segments = segments;
+            this.recent = recent;
+            long end = first;
+            for (Segment segment : segments) {
+                end += segment.events;
+            }
+            for (int i = 0; i < recent.length; i += 1 + (recent[i] >>> LENGTH_SHIFT)) {
+                end++;
+            }
+            this.endSequence = end;
+            while (nextSegment < segments.length && first + segments[nextSegment].events <= since) {
+                first += segments[nextSegment++].events;
+            }
+            this.sequence = first;
+            while (sequence < Math.min(since, end)) {
+                load();
+                skip();
+            }
+        }
+
+        /**
+         * @return the sequence number of the entry next returns, or the end sequence once all are read
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return the sequence number the next entry will get, i.e. the number of entries logged
+         * up to when this iterator was created
+         */
+        public long getEndSequence() {
+            return endSequence;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return sequence < endSequence;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            load();
+            String entry = format(records, offset);
+            skip();
+            return entry;
+        }
+
+        // moves on to the next segment, or to the ring after the last one, once the current records are read;
+        // only called while entries are left, so the ring is never loaded twice
+        private void load() {
+            while (offset == records.length) {
+                if (nextSegment < segments.length) {
+                    Segment segment = segments[nextSegment++];
+                    records = new int[segment.length];
+                    segment.inflateInto(records, 0);
+                } else {
+                    records = recent;
+                }
+                offset = 0;
+            }
+        }
+
+        private void skip() {
+            offset += 1 + (records[offset] >>> LENGTH_SHIFT);
+            sequence++;
+        }
+    }
+}
@@ -2,9 +2,11 @@ package se2.server.hanabi.game;
 
 import lombok.Getter;
 import se2.server.hanabi.api.GameStatus;
+import se2.server.hanabi.api.SharedStatusEncoder;
 import se2.server.hanabi.game.actions.DiscardCardAction;
 import se2.server.hanabi.game.actions.HintAction;
 import se2.server.hanabi.game.actions.PlayCardAction;
+import se2.server.hanabi.game.commands.GameCommand;
 import se2.server.hanabi.model.Card;
 import se2.server.hanabi.model.Deck;
 import se2.server.hanabi.model.Player;
@@ -14,17 +16,30 @@ import se2.server.hanabi.services.DrawService;
 
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class GameManager {
-    private static final String PLAYER_PREFIX = "Player ";
     private static final String ERROR_NOT_YOUR_TURN = "Not your turn or game is over.";
-    private static final String CHEAT_PREFIX = "[CHEAT] ";
+    private static final String ERROR_INVALID_HINT = "Invalid hint type or value.";
     @Getter
     private final GameState gameState;
     @Getter
-    private final GameLogger logger = new GameLogger();
+    private final GameLogger logger;
     private final DrawService drawService = new DrawService();
+    // created on first use in games resumed from a checkpoint, see getStateLog
+    private GameStateLog stateLog;
+    // every command that changed the game, recorded as part of its action so the log is never behind
+    // the published snapshot; the test setters below are not recorded
+    @Getter
+    private final ActionLog actionLog;
+    // created on first use, replayed games never encode a status
+    private SharedStatusEncoder statusEncoder;
+    // the state as of the last committed action, read by other threads without locking
+    private volatile GameSnapshot snapshot;
+    // nesting depth of running actions, setters called by an action do not publish on their own
+    private int actionDepth = 0;
 
     /**
      * Factory method to create a new game with players
@@ -33,13 +48,33 @@ public class GameManager {
      * @return A new GameManager instance
      */
     public static GameManager createNewGame(List<Player> players, Boolean isCasualMode) {
+        return createNewGame(players, isCasualMode, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Factory method to create a new game with a given deck order
+     * @param isCasualMode sets the game mode
+     * @param players List of players
+     * @param seed the seed of the deck's shuffle, the same seed deals the same cards
+     * @return A new GameManager instance
+     */
+    public static GameManager createNewGame(List<Player> players, Boolean isCasualMode, long seed) {
+        return createNewGame(players, isCasualMode, seed, new GameLogger());
+    }
+
+    /**
+     * Factory method to create a new game that logs to the given logger
+     * @param logger the game's history, {@link GameLogger#disabled()} for games nobody reads the history of
+     * @return A new GameManager instance
+     */
+    public static GameManager createNewGame(List<Player> players, Boolean isCasualMode, long seed, GameLogger logger) {
         if (players == null || players.isEmpty() || 
             !GameRules.isPlayerCountValid(players.size())) {
             throw new IllegalArgumentException("Invalid number of players: must be between " + 
                 GameRules.MIN_PLAYERS + " and " + GameRules.MAX_PLAYERS);
         }
 
-        return new GameManager(players, isCasualMode);
+        return new GameManager(players, isCasualMode, seed, logger);
     }
 
     /**
@@ -51,18 +86,39 @@ public class GameManager {
         return createNewGame(players, false);
     }
 
-    private GameManager(List<Player> players, Boolean isCasualMode) {
+    private GameManager(List<Player> players, Boolean isCasualMode, long seed, GameLogger logger) {
+        this.logger = logger;
 
         int numTurnsHintsLast = (isCasualMode)? GameRules.TURNS_HINTS_LAST_CASUAL : GameRules.TURNS_HINTS_LAST_DEFAULT;
-        this.gameState = new GameState(players, numTurnsHintsLast, logger);
+        this.gameState = new GameState(players, numTurnsHintsLast, logger, seed);
+        this.actionLog = new ActionLog(seed, numTurnsHintsLast, players.stream().mapToInt(Player::getId).toArray());
 
-        logger.info("Starting new game with " + players.size() + " players");
+        logger.info("Starting new game with " + players.size() + " players (deck seed " + seed + ")");
         logger.info("Players: " + players.stream().map(p -> p.getId() + " (" + p.getName() + ")").collect(Collectors.joining(", ")));
 
         gameState.dealInitialCards();
+        this.stateLog = new GameStateLog(gameState);
+        publishSnapshot();
+
+        logger.event(GameEvent.SETUP_COMPLETED, gameState.getDeck().getNumRemainingCards());
+        logger.event(GameEvent.GOES_FIRST, gameState.getCurrentPlayerId());
+    }
 
-        logger.info("Game setup completed. " + gameState.getDeck().getNumRemainingCards() + " cards left in deck.");
-        logger.info(PLAYER_PREFIX + gameState.getCurrentPlayerId() + " goes first.");
+    // a game without history that continues from a copy of the given state, for replays
+    GameManager(GameState checkpoint, ActionLog actionLog) {
+        this.logger = GameLogger.disabled();
+        this.gameState = new GameState(checkpoint, logger);
+        this.actionLog = actionLog;
+        publishSnapshot();
+    }
+
+    /**
+     * Copies the game's state and action log, but not its history. Must run on the game's mailbox,
+     * or on a game no thread is changing.
+     * @return a game that continues independently from the current state
+     */
+    public GameManager copy() {
+        return new GameManager(gameState, actionLog.copy());
     }
 
     public ActionResult playCard(int playerId, int cardIndex) {
@@ -72,8 +128,13 @@ public class GameManager {
         if (!GameValidator.isValidCardIndex(this, playerId, cardIndex)) {
             return ActionResult.invalid("Invalid card index: " + cardIndex);
         }
-        logger.info(PLAYER_PREFIX + playerId + " attempts to play card at index " + cardIndex);
-        return new PlayCardAction(this, playerId, cardIndex).execute();
+        logger.event(GameEvent.PLAY_ATTEMPT, playerId, cardIndex);
+        return commit(() -> {
+            ActionResult result = new PlayCardAction(this, playerId, cardIndex).execute();
+            // validated above, so the card was played even if the result is a failure like a misplay
+            actionLog.play(playerId, cardIndex);
+            return result;
+        });
     }
 
     public ActionResult discardCard(int playerId, int cardIndex) {
@@ -84,31 +145,61 @@ public class GameManager {
             return ActionResult.invalid("Invalid card index: " + cardIndex);
         }
         if (!GameValidator.canDiscard(this)) {
-            logger.warn(PLAYER_PREFIX + playerId + " attempted to discard but hints are already at maximum.");
+            logger.event(GameEvent.DISCARD_AT_MAX_HINTS, playerId);
             return ActionResult.invalid("Cannot discard: hint tokens are already at maximum (" + GameRules.MAX_HINT_TOKENS + ").");
         }
-        logger.info(PLAYER_PREFIX + playerId + " attempts to discard card at index " + cardIndex);
-        return new DiscardCardAction(this, playerId, cardIndex).execute();
+        logger.event(GameEvent.DISCARD_ATTEMPT, playerId, cardIndex);
+        return commit(() -> {
+            ActionResult result = new DiscardCardAction(this, playerId, cardIndex).execute();
+            actionLog.discard(playerId, cardIndex);
+            return result;
+        });
+    }
+
+    /**
+     * Runs a decoded command, the shared entry point of REST and WebSocket actions
+     */
+    public ActionResult execute(GameCommand command) {
+        return command.execute(this);
     }
 
+    /**
+     * @param value a {@link Card.Color} for a color hint, an Integer for a value hint
+     */
     public ActionResult giveHint(int fromPlayerId, int toPlayerId, HintType type, Object value) {
-        if (!GameValidator.isPlayerTurn(this, fromPlayerId)) {
+        if (!GameValidator.isValidHintTypeAndValue(type, value)) {
+            return ActionResult.invalid(ERROR_INVALID_HINT);
+        }
+        return giveHint(type == HintType.COLOR
+                ? GameCommand.Hint.color(fromPlayerId, toPlayerId, (Card.Color) value)
+                : GameCommand.Hint.value(fromPlayerId, toPlayerId, (Integer) value));
+    }
+
+    public ActionResult giveHint(GameCommand.Hint hint) {
+        if (!GameValidator.isPlayerTurn(this, hint.fromPlayerId())) {
             return ActionResult.invalid(ERROR_NOT_YOUR_TURN);
         }
-        if (!GameValidator.isNotSelfHint(fromPlayerId, toPlayerId)) {
+        if (!GameValidator.isNotSelfHint(hint.fromPlayerId(), hint.toPlayerId())) {
             return ActionResult.invalid("Cannot give hint to yourself.");
         }
         if (!GameValidator.hasEnoughHints(this)) {
             return ActionResult.invalid("No hint tokens available.");
         }
-        if (!GameValidator.playerExists(this, toPlayerId)) {
+        if (!GameValidator.playerExists(this, hint.toPlayerId())) {
             return ActionResult.invalid("Target player does not exist in this game.");
         }
-        if (!GameValidator.isValidHintTypeAndValue(type, value)) {
-            return ActionResult.invalid("Invalid hint type or value.");
+        if (!GameValidator.isValidHint(hint.type(), hint.value())) {
+            return ActionResult.invalid(ERROR_INVALID_HINT);
         }
 
-        ActionResult result = new HintAction(this, fromPlayerId, toPlayerId, type, value).execute();
+        ActionResult result = commit(() -> {
+            ActionResult given = new HintAction(this, hint).execute();
+            // a hint that matches no card changes nothing
+            if (given.isSuccess()) {
+                actionLog.hint(hint);
+            }
+            return given;
+        });
         if (!result.isSuccess()) {
             return ActionResult.failure("Hint failed: " + result.getMessage());
         }
@@ -117,30 +208,40 @@ public class GameManager {
     }
 
     public ActionResult defuseStrike(int playerId) {
+        return commit(() -> applyDefuse(playerId));
+    }
+
+    private ActionResult applyDefuse(int playerId) {
         if (!gameState.isCurrentPlayer(playerId)) {
             return ActionResult.invalid("You can only defuse on your turn.");
         }
         int strikes = getStrikes();
         if (strikes > 0) {
             setStrikes(strikes - 1);
-            logger.info(CHEAT_PREFIX + PLAYER_PREFIX + playerId + " defused a strike! (strikes now: " + (strikes - 1) + ")");
+            logger.event(GameEvent.DEFUSED, playerId, strikes - 1);
             advanceTurn();
+            actionLog.defuse(playerId);
             return ActionResult.success("Strike defused!");
         } else {
-            logger.info(CHEAT_PREFIX + PLAYER_PREFIX + playerId + " tried to defuse a strike, but none left.");
+            logger.event(GameEvent.NO_STRIKE_TO_DEFUSE, playerId);
             return ActionResult.invalid("No strikes to defuse.");
         }
     }
 
     public ActionResult addStrikeCheat(int playerId) {
+        return commit(() -> applyStrikeCheat(playerId));
+    }
+
+    private ActionResult applyStrikeCheat(int playerId) {
         int strikes = getStrikes();
         if (strikes > 0) {
             setStrikes(strikes + 1);
-            logger.info(CHEAT_PREFIX + PLAYER_PREFIX + playerId + " triggered a failed defuse! (strikes now: " + (strikes + 1) + ")");
+            logger.event(GameEvent.STRIKE_ADDED, playerId, strikes + 1);
             advanceTurn();
+            actionLog.addStrike(playerId);
             return ActionResult.success("Defuse failed, strike added!");
         } else {
-            logger.info(CHEAT_PREFIX + PLAYER_PREFIX + playerId + " tried to add a strike, but no strikes present.");
+            logger.event(GameEvent.NO_STRIKE_TO_ADD, playerId);
             return ActionResult.invalid("No strikes present, cannot add another.");
         }
     }
@@ -160,41 +261,92 @@ public class GameManager {
         }
     }
 
+    public long getSeed() {
+        return gameState.getSeed();
+    }
+
     public int getCurrentPlayerId() {
         return gameState.getCurrentPlayerId();
     }
 
     /**
-     * Get the complete game status for a specific player
+     * Get the complete game status for a specific player, as of the last committed action.
+     * Safe to call from any thread.
      * @param playerId ID of the player requesting status
      * @return GameStatus object with all relevant game information
      */
     public GameStatus getStatusFor(int playerId) {
-        return new GameStatus(
-            gameState.getPlayers(),
-            gameState.getPlayerCardIds(playerId),
-            gameState.getVisibleHands(playerId),
-            gameState.getPlayedCards(),
-            gameState.getDiscardPile(),
-            gameState.getDeck().getNumRemainingCards(),
-            gameState.getCardsShowingColorHints(),
-            gameState.getCardsShowingValueHints(),
-            gameState.getNumRemainingHintTokens(),
-            gameState.getStrikes(),
-            gameState.isGameOver(),
-            gameState.isGameLost(),
-            gameState.getCurrentScore(),
-            gameState.getCurrentPlayerId(),
-            gameState.getHands().get(playerId)
-        );
+        return snapshot.statusFor(playerId);
+    }
+
+    /**
+     * Safe to call from any thread. The replay is not kept, so its checkpoints live only as long as the caller needs them.
+     * @return a new replay of this game's action log
+     */
+    public GameReplay newReplay() {
+        return GameReplay.of(this);
+    }
+
+    /**
+     * @return the immutable state as of the last committed action
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Must run on the game's mailbox. A game resumed from a checkpoint versions its state from the first call on.
+     */
+    public GameStateLog getStateLog() {
+        if (stateLog == null) {
+            stateLog = new GameStateLog(gameState);
+        }
+        return stateLog;
+    }
+
+    /**
+     * Must run on the game's mailbox
+     */
+    public SharedStatusEncoder getStatusEncoder() {
+        if (statusEncoder == null) {
+            statusEncoder = new SharedStatusEncoder(this);
+        }
+        return statusEncoder;
+    }
+
+    /**
+     * Publishes the current state to readers. Must run on the game's writer thread.
+     */
+    public void publishSnapshot() {
+        snapshot = GameSnapshot.of(gameState, snapshot);
+    }
+
+    // runs an action and publishes its complete result once, never an intermediate state
+    private ActionResult commit(Supplier<ActionResult> action) {
+        actionDepth++;
+        try {
+            return action.get();
+        } finally {
+            actionDepth--;
+            if (actionDepth == 0) {
+                publishSnapshot();
+            }
+        }
+    }
+
+    // setters outside of an action are a change of their own
+    private void publishUnlessInAction() {
+        if (actionDepth == 0) {
+            publishSnapshot();
+        }
     }
 
     public List<Card> getPlayerHand(int playerId) {
-        return gameState.getHands().get(playerId);
+        return gameState.getHand(playerId);
     }
 
     public Map<Integer, List<Card>> getVisibleHands(int viewerId) {
-        return gameState.getVisibleHands(viewerId);
+        return snapshot.getVisibleHands(viewerId);
     }
 
 
@@ -209,22 +361,34 @@ public class GameManager {
 
     public void logFinalScore() {
         int totalScore = gameState.getCurrentScore();
-        logger.info("Final score: " + totalScore + " out of " + GameRules.MAX_SCORE);
+        logger.event(GameEvent.FINAL_SCORE, totalScore);
     }
 
     public void drawCardToHand(int playerId) {
         drawService.drawCardToPlayerHand(this, playerId);
     }
 
-    public synchronized ActionResult incrementStrikes() {
+    public ActionResult incrementStrikes() {
+        if (actionDepth > 0) {
+            // part of a misplay, which is recorded as the play
+            return applyIncrementStrikes();
+        }
+        return commit(() -> {
+            ActionResult result = applyIncrementStrikes();
+            actionLog.incrementStrikes();
+            return result;
+        });
+    }
+
+    private ActionResult applyIncrementStrikes() {
         int currentTurn = gameState.getTurnCounter();
         if (gameState.getLastStrikeTurn() == currentTurn) {
             return ActionResult.success("Strike already given for this round.");
         }
-        logger.info("Before increment: Strikes = " + gameState.getStrikes());
+        logger.event(GameEvent.STRIKES_BEFORE_INCREMENT, gameState.getStrikes());
         gameState.incrementStrikes();
         gameState.setLastStrikeTurn(currentTurn);
-        logger.info("After increment: Strikes = " + gameState.getStrikes());
+        logger.event(GameEvent.STRIKES_AFTER_INCREMENT, gameState.getStrikes());
         gameState.checkEndCondition(); // Ensure game over is set if max strikes reached
         return ActionResult.success("Strike added.");
     }
@@ -233,6 +397,14 @@ public class GameManager {
         return logger.getHistory();
     }
 
+    /**
+     * @return the entries of the game's history from the given sequence number on, read as they are iterated
+     * @see GameLogger#iterateHistory(long)
+     */
+    public GameLogger.HistoryIterator iterateGameHistory(long since) {
+        return logger.iterateHistory(since);
+    }
+
 
     public List<Player> getPlayers() {
         return gameState.getPlayers();
@@ -260,6 +432,7 @@ public class GameManager {
 
     public void setNumRemainingHintTokens(int hints) {
         gameState.setNumRemainingHintTokens(hints);
+        publishUnlessInAction();
     }
 
     public int getStrikes() {
@@ -268,15 +441,22 @@ public class GameManager {
 
     public void setStrikes(int strikes) {
         gameState.setStrikes(strikes);
+        publishUnlessInAction();
     }
 
     public int getCurrentPlayerIndex() {
-        return gameState.getPlayers().indexOf(
-            gameState.getPlayers().stream()
-                .filter(p -> p.getId() == gameState.getCurrentPlayerId())
-                .findFirst()
-                .orElse(null)
-        );
+        return gameState.getCurrentSeat();
+    }
+
+    /**
+     * @return the player's seat, or -1 if the player is not in this game
+     */
+    public int getSeat(int playerId) {
+        return gameState.getSeat(playerId);
+    }
+
+    public List<Card> getHandAtSeat(int seat) {
+        return gameState.getHandAtSeat(seat);
     }
 
     public boolean isGameOver() {
@@ -285,18 +465,24 @@ public class GameManager {
 
     public void setGameOver(boolean gameOver) {
         gameState.setGameOver(gameOver);
+        publishUnlessInAction();
     }
     
     public int getCurrentScore() {
         return gameState.getCurrentScore();
     }
     
+    public int getMaxPossibleScore() {
+        return gameState.getMaxPossibleScore();
+    }
+
     public int getFinalTurnsRemaining() {
         return gameState.getFinalTurnsRemaining();
     }
     
     public void setFinalTurnsRemaining(int turns) {
         gameState.setFinalTurnsRemaining(turns);
+        publishUnlessInAction();
     }
 
     public int getNumTurnsHintsLast() {
@@ -0,0 +1,174 @@
+package se2.server.hanabi.game;
+
+import se2.server.hanabi.model.Player;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rebuilds the states of a game from its {@link ActionLog}. The logged commands are run on a new game
+ * with the same seed and seats, and a copy of the game state is kept every few actions as a checkpoint,
+ * so seeking to any point only replays the actions since the nearest checkpoint. Replayed games keep no history.
+ * The replay follows the log as it grows. Safe to use from any thread, independently of the game's mailbox;
+ * it locks with a ReentrantLock, so a virtual thread that replays does not pin its carrier.
+ */
+public class GameReplay {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+
+    private final ActionLog log;
+    private final int interval;
+    private final int[] playerIds;
+    // the state after every interval-th action, starting with the deal; never changed once added
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // the state after all replayed actions, only changed while holding the lock
+    private final GameManager head;
+    private int replayed = 0;
+    // the turn counter after each replayed action
+    private int[] turnAfterAction = new int[64];
+
+    /**
+     * @param players the players in seat order, their ids may differ from the ones in the log
+     * @param log the log to follow
+     * @param interval the number of actions between two checkpoints
+     */
+    public GameReplay(List<Player> players, ActionLog log, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+        }
+        if (players.size() != log.getSeatCount()) {
+            throw new IllegalArgumentException("The log has " + log.getSeatCount() + " seats, got " + players.size() + " players");
+        }
+        this.log = log;
+        this.interval = interval;
+        this.playerIds = players.stream().mapToInt(Player::getId).toArray();
+        this.head = newGame(players, log);
+        addCheckpoint();
+    }
+
+    /**
+     * Follows the log of a running game, with its own players
+     */
+    public static GameReplay of(GameManager game) {
+        return new GameReplay(List.copyOf(game.getPlayers()), game.getActionLog(), DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Replays a whole log without checkpoints
+     * @return the game after the last logged action
+     */
+    public static GameManager replay(List<Player> players, ActionLog log) {
+        GameManager game = newGame(players, log);
+        int[] ids = players.stream().mapToInt(Player::getId).toArray();
+        for (int i = 0, count = log.size(); i < count; i++) {
+            game.execute(log.command(i, ids));
+        }
+        return game;
+    }
+
+    /**
+     * @return one new player per seat, for replaying archived logs whose players are gone
+     */
+    public static List<Player> placeholderPlayers(int seats) {
+        List<Player> players = new ArrayList<>(seats);
+        for (int seat = 0; seat < seats; seat++) {
+            players.add(new Player("Seat " + (seat + 1)));
+        }
+        return players;
+    }
+
+    private static GameManager newGame(List<Player> players, ActionLog log) {
+        return GameManager.createNewGame(players, log.getNumTurnsHintsLast() == GameRules.TURNS_HINTS_LAST_CASUAL,
+                log.getSeed(), GameLogger.disabled());
+    }
+
+    /**
+     * @return the number of actions in the log
+     */
+    public int getActionCount() {
+        return log.size();
+    }
+
+    /**
+     * @return the state after the first count actions, 0 for the state after the deal
+     * @throws IndexOutOfBoundsException if the log has fewer actions
+     */
+    public GameSnapshot atAction(int count) {
+        Checkpoint checkpoint;
+        lock.lock();
+        try {
+            catchUp();
+            if (count < 0 || count > replayed) {
+                throw new IndexOutOfBoundsException("Action " + count + " out of bounds for " + replayed + " actions");
+            }
+            if (count == replayed) {
+                return head.getSnapshot();
+            }
+            checkpoint = checkpoints.get(count / interval);
+        } finally {
+            lock.unlock();
+        }
+        if (count % interval == 0) {
+            return checkpoint.snapshot();
+        }
+        // checkpoints are never changed, so copying one needs no lock
+        GameManager game = new GameManager(checkpoint.state(), new ActionLog(log.getSeed(), log.getNumTurnsHintsLast(), playerIds));
+        for (int i = count - count % interval; i < count; i++) {
+            game.execute(log.command(i, playerIds));
+        }
+        return game.getSnapshot();
+    }
+
+    /**
+     * @return the state during the given turn, after the actions that did not end it, or the
+     * latest state if the game has not reached that turn
+     */
+    public GameSnapshot atTurn(int turn) {
+        int count;
+        lock.lock();
+        try {
+            catchUp();
+            // turns never go back, so the actions up to the end of the turn are a prefix
+            int low = 0;
+            int high = replayed;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (turnAfterAction[middle] <= turn) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            count = low;
+        } finally {
+            lock.unlock();
+        }
+        return atAction(count);
+    }
+
+    // replays the actions logged since the last call
+    private void catchUp() {
+        int available = log.size();
+        while (replayed < available) {
+            head.execute(log.command(replayed, playerIds));
+            if (replayed == turnAfterAction.length) {
+                turnAfterAction = Arrays.copyOf(turnAfterAction, replayed * 2);
+            }
+            turnAfterAction[replayed++] = head.getSnapshot().getTurnCounter();
+            if (replayed % interval == 0) {
+                addCheckpoint();
+            }
+        }
+    }
+
+    private void addCheckpoint() {
+        checkpoints.add(new Checkpoint(new GameState(head.getGameState(), GameLogger.disabled()), head.getSnapshot()));
+    }
+
+    // the snapshot is the state's, kept so seeking to a checkpoint needs no replay
+    private record Checkpoint(GameState state, GameSnapshot snapshot) {
+    }
+}
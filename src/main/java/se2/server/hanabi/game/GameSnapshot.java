@@ -0,0 +1,123 @@
+package se2.server.hanabi.game;
+
+import lombok.Getter;
+import se2.server.hanabi.api.GameStatus;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of a game's state after a committed action.
+ * GameManager publishes a new snapshot through a volatile reference after every action, so readers on
+ * other threads build statuses from it without locks and never see a half-applied action.
+ * Parts that did not change since the previous snapshot are reused instead of copied.
+ */
+@Getter
+public final class GameSnapshot {
+    private final List<Player> players;
+    // hands by player id, in seat order
+    private final Map<Integer, List<Card>> hands;
+    private final Map<Card.Color, Integer> playedCards;
+    private final List<Card> discardPile;
+    private final int numRemainingCards;
+    private final Map<Integer, Card.Color> cardsShowingColorHints;
+    private final Map<Integer, Integer> cardsShowingValueHints;
+    private final int numRemainingHintTokens;
+    private final int strikes;
+    private final boolean gameOver;
+    private final boolean gameLost;
+    private final int currentScore;
+    private final int maxPossibleScore;
+    private final int currentPlayerId;
+    private final int turnCounter;
+    private final int numTurnsHintsLast;
+
+    private GameSnapshot(GameState state, GameSnapshot previous) {
+        this.players = previous != null ? previous.players : List.copyOf(state.getPlayers());
+
+        Map<Integer, List<Card>> copiedHands = new LinkedHashMap<>();
+        for (Player player : players) {
+            List<Card> hand = state.getHand(player.getId());
+            List<Card> previousHand = previous != null ? previous.hands.get(player.getId()) : null;
+            copiedHands.put(player.getId(), hand.equals(previousHand) ? previousHand : List.copyOf(hand));
+        }
+        this.hands = Collections.unmodifiableMap(copiedHands);
+
+        Map<Card.Color, Integer> played = state.getPlayedCards();
+        this.playedCards = previous != null && played.equals(previous.playedCards) ? previous.playedCards : Map.copyOf(played);
+        // the discard pile only grows, so the same size means the same cards
+        List<Card> discards = state.getDiscardPile();
+        this.discardPile = previous != null && discards.size() == previous.discardPile.size() ? previous.discardPile : List.copyOf(discards);
+
+        Map<Integer, Card.Color> colorHints = state.getCardsShowingColorHints();
+        this.cardsShowingColorHints = previous != null && colorHints.equals(previous.cardsShowingColorHints)
+                ? previous.cardsShowingColorHints : Collections.unmodifiableMap(colorHints);
+        Map<Integer, Integer> valueHints = state.getCardsShowingValueHints();
+        this.cardsShowingValueHints = previous != null && valueHints.equals(previous.cardsShowingValueHints)
+                ? previous.cardsShowingValueHints : Collections.unmodifiableMap(valueHints);
+
+        this.numRemainingCards = state.getDeck().getNumRemainingCards();
+        this.numRemainingHintTokens = state.getNumRemainingHintTokens();
+        this.strikes = state.getStrikes();
+        this.gameOver = state.isGameOver();
+        this.gameLost = state.isGameLost();
+        this.currentScore = state.getCurrentScore();
+        this.maxPossibleScore = state.getMaxPossibleScore();
+        this.currentPlayerId = state.getCurrentPlayerId();
+        this.turnCounter = state.getTurnCounter();
+        this.numTurnsHintsLast = state.getNumTurnsHintsLast();
+    }
+
+    /**
+     * Copies the state, reusing the parts that are unchanged since the previous snapshot
+     * @param previous the last published snapshot of the same game, or null for the first one
+     */
+    public static GameSnapshot of(GameState state, GameSnapshot previous) {
+        return new GameSnapshot(state, previous);
+    }
+
+    public GameStatus statusFor(int playerId) {
+        List<Card> ownHand = hands.getOrDefault(playerId, List.of());
+        List<Integer> playerCardIds = new ArrayList<>(ownHand.size());
+        for (Card card : ownHand) {
+            playerCardIds.add(card.getId());
+        }
+        return new GameStatus(
+            players,
+            playerCardIds,
+            getVisibleHands(playerId),
+            playedCards,
+            discardPile,
+            numRemainingCards,
+            cardsShowingColorHints,
+            cardsShowingValueHints,
+            numRemainingHintTokens,
+            strikes,
+            gameOver,
+            gameLost,
+            currentScore,
+            maxPossibleScore,
+            currentPlayerId,
+            ownHand
+        );
+    }
+
+    /**
+     * @return the hands of all other players; the lists are the snapshot's immutable hands
+     */
+    public Map<Integer, List<Card>> getVisibleHands(int viewerId) {
+        Map<Integer, List<Card>> visible = new HashMap<>();
+        for (Map.Entry<Integer, List<Card>> entry : hands.entrySet()) {
+            if (entry.getKey() != viewerId) {
+                visible.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return visible;
+    }
+}
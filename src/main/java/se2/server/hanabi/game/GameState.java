@@ -3,35 +3,50 @@ package se2.server.hanabi.game;
 import lombok.Getter;
 import lombok.Setter;
 import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.CardList;
 import se2.server.hanabi.model.Deck;
 import se2.server.hanabi.model.Player;
 import se2.server.hanabi.util.GameRules;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 /**
  * Encapsulates the state of a Hanabi game
  */
 public class GameState {
+    public static final int PERSISTENT_HINT = -1;
+    private static final int COLOR_HINT = 0;
+    private static final int VALUE_HINT = 1;
     @Getter
     private final List<Player> players;
     @Getter
     private final Map<Integer, List<Card>> hands = new HashMap<>();
+    // the player id and hand per seat, a seat is the player's index in players; hands, deck and
+    // discard pile hold packed cards, so a game keeps no card objects of its own
+    private final int[] seatPlayerIds;
+    private final CardList[] handsBySeat;
     @Getter
     private final Deck deck;
-    @Getter
-    private final Map<Card.Color, Integer> playedCards = new HashMap<>();
-    @Getter
-    private final List<Card> discardPile = new ArrayList<>();
+    private final Fireworks playedCards;
+    private final CardList discardPile = new CardList(Deck.DECK_SIZE);
+    private final List<Card> discardPileView = Collections.unmodifiableList(discardPile);
+    // per color and value, how many copies are in the discard pile
+    private final int[][] discardedCopies = new int[Card.Color.values().length][GameRules.MAX_CARD_VALUE + 1];
+    // per color, the highest value that can still be played
+    private final int[] reachableValues = new int[Card.Color.values().length];
+    private int reachableScore = GameRules.MAX_SCORE;
     @Getter
     private final int numTurnsHintsLast;
     @Getter
-    private final Map<Integer, ColorHintAndRemainingTurns> cardsShowingColorHintsAndRemainingTurns = new HashMap<>();
+    private final Map<Integer, ColorHint> cardsShowingColorHintsAndExpiry = new HashMap<>();
     @Getter
-    private final Map<Integer, ValueHintAndRemainingTurns> cardsShowingValueHintsAndRemainingTurns = new HashMap<>();
+    private final Map<Integer, ValueHint> cardsShowingValueHintsAndExpiry = new HashMap<>();
     @Getter
     private int numRemainingHintTokens = GameRules.MAX_HINT_TOKENS;
     @Setter
@@ -49,20 +64,98 @@ public class GameState {
     private final GameLogger logger;
     private int lastStrikeTurn = -1;
     private int turnCounter = 0;
+    // ring of per-turn buckets with the hints that expire at that turn, null if hints are persistent;
+    // an entry is cardId * 2 + COLOR_HINT or VALUE_HINT
+    private final int[][] hintExpiryBuckets;
+    private final int[] hintExpiryBucketSizes;
 
     /**
      * Constructor for the game state
      * @param players the list of players
      * @param numTurnsHintsLast the number of turns before hints will disappear, set to -1 for persistant hints
      * @param logger the game logger for logging game events
+     * @param seed the seed of the deck's shuffle
      */
-    public GameState(List<Player> players, int numTurnsHintsLast, GameLogger logger) {
-        this.players = players;
+    public GameState(List<Player> players, int numTurnsHintsLast, GameLogger logger, long seed) {
+        // the lobby's list keeps changing on joins and leaves, the game's seats must not
+        this.players = List.copyOf(players);
         this.numTurnsHintsLast = numTurnsHintsLast;
         this.logger = logger;
-        this.deck = new Deck();
+        this.deck = new Deck(seed);
+        this.playedCards = new Fireworks();
+        this.seatPlayerIds = new int[players.size()];
+        for (int seat = 0; seat < seatPlayerIds.length; seat++) {
+            seatPlayerIds[seat] = players.get(seat).getId();
+        }
+        this.handsBySeat = new CardList[players.size()];
+        if (numTurnsHintsLast < 0) {
+            this.hintExpiryBuckets = null;
+            this.hintExpiryBucketSizes = null;
+        } else {
+            // a hint given at turn t expires at t + numTurnsHintsLast + 1, so that many buckets plus the current one never collide
+            this.hintExpiryBuckets = new int[numTurnsHintsLast + 2][GameRules.HAND_SIZE_SMALL_GROUP];
+            this.hintExpiryBucketSizes = new int[numTurnsHintsLast + 2];
+        }
         
-        initializePlayedCards();
+        Arrays.fill(reachableValues, GameRules.MAX_CARD_VALUE);
+    }
+
+    /**
+     * Copies a game state, the copy and the source change independently afterwards.
+     * Cards and hints are immutable and shared.
+     * @param logger the game logger of the copy
+     */
+    public GameState(GameState source, GameLogger logger) {
+        this.players = source.players;
+        this.numTurnsHintsLast = source.numTurnsHintsLast;
+        this.logger = logger;
+        this.deck = source.deck.copy();
+        this.seatPlayerIds = source.seatPlayerIds.clone();
+        this.handsBySeat = new CardList[seatPlayerIds.length];
+        for (int seat = 0; seat < seatPlayerIds.length; seat++) {
+            CardList hand = source.handsBySeat[seat];
+            if (hand != null) {
+                handsBySeat[seat] = new CardList(hand);
+                hands.put(seatPlayerIds[seat], handsBySeat[seat]);
+            }
+        }
+        this.playedCards = new Fireworks(source.playedCards);
+        discardPile.addAll(source.discardPile);
+        for (int color = 0; color < discardedCopies.length; color++) {
+            System.arraycopy(source.discardedCopies[color], 0, discardedCopies[color], 0, discardedCopies[color].length);
+        }
+        System.arraycopy(source.reachableValues, 0, reachableValues, 0, reachableValues.length);
+        this.reachableScore = source.reachableScore;
+        cardsShowingColorHintsAndExpiry.putAll(source.cardsShowingColorHintsAndExpiry);
+        cardsShowingValueHintsAndExpiry.putAll(source.cardsShowingValueHintsAndExpiry);
+        this.numRemainingHintTokens = source.numRemainingHintTokens;
+        this.strikes = source.strikes;
+        this.currentPlayerIndex = source.currentPlayerIndex;
+        this.gameOver = source.gameOver;
+        this.gameLost = source.gameLost;
+        this.finalTurnsRemaining = source.finalTurnsRemaining;
+        this.lastStrikeTurn = source.lastStrikeTurn;
+        this.turnCounter = source.turnCounter;
+        if (source.hintExpiryBuckets == null) {
+            this.hintExpiryBuckets = null;
+            this.hintExpiryBucketSizes = null;
+        } else {
+            this.hintExpiryBuckets = new int[source.hintExpiryBuckets.length][];
+            for (int bucket = 0; bucket < hintExpiryBuckets.length; bucket++) {
+                hintExpiryBuckets[bucket] = source.hintExpiryBuckets[bucket].clone();
+            }
+            this.hintExpiryBucketSizes = source.hintExpiryBucketSizes.clone();
+        }
+    }
+
+    /**
+     * Constructor for the game state with a randomly shuffled deck
+     * @param players the list of players
+     * @param numTurnsHintsLast the number of turns before hints will disappear, set to -1 for persistant hints
+     * @param logger the game logger for logging game events
+     */
+    public GameState(List<Player> players, int numTurnsHintsLast, GameLogger logger) {
+        this(players, numTurnsHintsLast, logger, new SplittableRandom().nextLong());
     }
 
     /**
@@ -74,28 +167,65 @@ public class GameState {
         this(players, GameRules.TURNS_HINTS_LAST_DEFAULT, logger);
     }
 
-    private void initializePlayedCards() {
-        for (Card.Color color : Card.Color.values()) {
-            playedCards.put(color, 0);
-        }
+    /**
+     * @return the seed the deck was shuffled with, which together with the actions reproduces the game
+     */
+    public long getSeed() {
+        return deck.getSeed();
     }
 
     public void dealInitialCards() {
         int handSize = GameRules.getInitialHandSize(players.size());
-        logger.info("Dealing " + handSize + " cards per player");
+        logger.event(GameEvent.DEALING, handSize);
         
-        for (Player player : players) {
-            List<Card> hand = new ArrayList<>();
+        for (int seat = 0; seat < seatPlayerIds.length; seat++) {
+            CardList hand = new CardList(handSize);
             for (int i = 0; i < handSize; i++) {
                 Card card = deck.drawCard();
                 hand.add(card);
             }
-            hands.put(player.getId(), hand);
+            hands.put(seatPlayerIds[seat], hand);
+            handsBySeat[seat] = hand;
+        }
+    }
+
+    /**
+     * @return the player's seat, or -1 if the player is not in this game; scans at most MAX_PLAYERS ids
+     */
+    public int getSeat(int playerId) {
+        for (int seat = 0; seat < seatPlayerIds.length; seat++) {
+            if (seatPlayerIds[seat] == playerId) {
+                return seat;
+            }
         }
+        return -1;
+    }
+
+    public int getPlayerIdAtSeat(int seat) {
+        return seatPlayerIds[seat];
+    }
+
+    /**
+     * @return the hand of the player at the seat, null before the cards are dealt
+     */
+    public List<Card> getHandAtSeat(int seat) {
+        return handsBySeat[seat];
+    }
+
+    /**
+     * @return the player's hand, or null if the player is not in this game
+     */
+    public List<Card> getHand(int playerId) {
+        int seat = getSeat(playerId);
+        return seat < 0 ? null : handsBySeat[seat];
+    }
+
+    public int getCurrentSeat() {
+        return currentPlayerIndex;
     }
     
     public boolean isCurrentPlayer(int playerId) {
-        return players.get(currentPlayerIndex).getId() == playerId;
+        return seatPlayerIds[currentPlayerIndex] == playerId;
     }
 
     public boolean isActionValid(int playerId) {
@@ -103,30 +233,30 @@ public class GameState {
     }
 
     public boolean isValidCardIndex(int playerId, int cardIndex) {
-        List<Card> hand = hands.get(playerId);
+        List<Card> hand = getHand(playerId);
         return hand != null && cardIndex >= 0 && cardIndex < hand.size();
     }
     
     public boolean playerExists(int playerId) {
-        return players.stream().anyMatch(p -> p.getId() == playerId);
+        return getSeat(playerId) >= 0;
     }
 
     public int getCurrentPlayerId() {
-        return players.get(currentPlayerIndex).getId();
+        return seatPlayerIds[currentPlayerIndex];
     }
 
     public Map<Integer, Card.Color> getCardsShowingColorHints() {
         Map<Integer, Card.Color> cardsShowingColorHints = new HashMap<>();
-        cardsShowingColorHintsAndRemainingTurns.forEach((cardId, colorHintAndRemainingTurns) -> 
-            cardsShowingColorHints.put(cardId, colorHintAndRemainingTurns.getColor())
+        cardsShowingColorHintsAndExpiry.forEach((cardId, colorHint) -> 
+            cardsShowingColorHints.put(cardId, colorHint.getColor())
         );
         return cardsShowingColorHints;
     }
 
     public Map<Integer, Integer> getCardsShowingValueHints() {
         Map<Integer, Integer> cardsShowingValueHints = new HashMap<>();
-        cardsShowingValueHintsAndRemainingTurns.forEach((cardId, ValueHintAndRemainingTurns) -> 
-            cardsShowingValueHints.put(cardId, ValueHintAndRemainingTurns.getValue())
+        cardsShowingValueHintsAndExpiry.forEach((cardId, valueHint) -> 
+            cardsShowingValueHints.put(cardId, valueHint.getValue())
         );
         return cardsShowingValueHints;
     }
@@ -135,16 +265,15 @@ public class GameState {
         if (gameOver) {
             return false;
         }
-        currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+        currentPlayerIndex = (currentPlayerIndex + 1) % seatPlayerIds.length;
         turnCounter++;
-        logger.info("Turn advances to " + getCurrentPlayerId() + ", turnCounter=" + turnCounter);
+        logger.event(GameEvent.TURN_ADVANCED, getCurrentPlayerId(), turnCounter);
 
         removeExpiredShownHints();
-        decrementHintsRemainingTurns();
         
         if (finalTurnsRemaining > 0) {
             finalTurnsRemaining--;
-            logger.info("Final round: " + finalTurnsRemaining + " turns remaining.");
+            logger.event(GameEvent.FINAL_ROUND, finalTurnsRemaining);
         }
         
         return true;
@@ -154,22 +283,20 @@ public class GameState {
         if (strikes >= GameRules.MAX_STRIKES) {
             gameOver = true;
             gameLost = true;
-            logger.error("Game over: maximum strikes reached (" + strikes + ")");
+            logger.event(GameEvent.MAX_STRIKES_REACHED, strikes);
             return true;
         }
 
         gameLost = false;
-        boolean isPerfect = playedCards.values().stream().allMatch(v -> v == GameRules.MAX_CARD_VALUE);
-
-        if (isPerfect) {
+        if (isPerfect()) {
             gameOver = true;
-            logger.info("Game completed perfectly!");
+            logger.event(GameEvent.COMPLETED_PERFECTLY);
             return true;
         }
         
         if (finalTurnsRemaining == 0) {
             gameOver = true;
-            logger.info("Game over: final turns reached");
+            logger.event(GameEvent.FINAL_TURNS_REACHED);
             return true;
         }
         
@@ -180,21 +307,73 @@ public class GameState {
         if (gameLost) {
             return 0;
         } else {
-            return playedCards.values().stream().mapToInt(Integer::intValue).sum();
+            return playedCards.getScore();
         }
         
     }
+
+    /**
+     * @return the highest score the game can still reach, lower than MAX_SCORE once all copies of a needed card are discarded
+     */
+    public int getMaxPossibleScore() {
+        return gameLost ? 0 : reachableScore;
+    }
+
+    public boolean isPerfect() {
+        return playedCards.isComplete();
+    }
+
+    /**
+     * @return the highest value played per color, as a read-only view that follows later plays
+     */
+    public Map<Card.Color, Integer> getPlayedCards() {
+        return playedCards.asMap();
+    }
+
+    /**
+     * @return the highest value played of the color
+     */
+    public int getPlayedValue(Card.Color color) {
+        return playedCards.get(color);
+    }
+
+    /**
+     * Adds the next card of the color to its firework
+     * @throws IllegalStateException if the color is already complete
+     */
+    public void playFirework(Card.Color color) {
+        playedCards.play(color);
+    }
+
+    public List<Card> getDiscardPile() {
+        return discardPileView;
+    }
+
+    /**
+     * Adds a discarded or misplayed card and lowers the reachable score if it was the last copy of a needed card
+     */
+    public void addToDiscardPile(Card card) {
+        discardPile.add(card);
+        int color = card.getColor().ordinal();
+        int value = card.getValue();
+        discardedCopies[color][value]++;
+        if (discardedCopies[color][value] == GameRules.getCopiesPerColor(value) && value - 1 < reachableValues[color]) {
+            reachableScore -= reachableValues[color] - (value - 1);
+            reachableValues[color] = value - 1;
+        }
+    }
     
     public void incrementStrikes() {
-        logger.info("Incrementing strikes. Current strikes: " + strikes);
+        logger.event(GameEvent.STRIKE_INCREMENTING, strikes);
         strikes++;
-        logger.warn("Strike count increased to " + strikes + " out of " + GameRules.MAX_STRIKES);
+        logger.event(GameEvent.STRIKE_INCREASED, strikes);
     }
     
     public List<Integer> getPlayerCardIds(int playerId) {
-        List<Integer> cardIds = new ArrayList<Integer>();
-        for (Card card : hands.get(playerId)) {
-            cardIds.add(card.getId());
+        CardList hand = handsBySeat[getSeat(playerId)];
+        List<Integer> cardIds = new ArrayList<Integer>(hand.size());
+        for (int i = 0; i < hand.size(); i++) {
+            cardIds.add(hand.getId(i));
         }
         return cardIds;
     }
@@ -211,52 +390,83 @@ public class GameState {
 
     public void setNumRemainingHintTokens(int numRemainingHintTokens) {
         this.numRemainingHintTokens = Math.min(numRemainingHintTokens, GameRules.MAX_HINT_TOKENS);
-        logger.info("Hint tokens updated to " + this.numRemainingHintTokens + " out of " + GameRules.MAX_HINT_TOKENS);
+        logger.event(GameEvent.HINT_TOKENS_UPDATED, this.numRemainingHintTokens);
     }
 
     public void setGameOver(boolean gameOver) {
         this.gameOver = gameOver;
         if (gameOver) {
-            logger.info("Game is now marked as over.");
+            logger.event(GameEvent.MARKED_OVER);
         }
     }
 
     public void removeCardFromShownHints(int cardId) {
-        cardsShowingColorHintsAndRemainingTurns.remove(cardId);
-        cardsShowingValueHintsAndRemainingTurns.remove(cardId);
+        cardsShowingColorHintsAndExpiry.remove(cardId);
+        cardsShowingValueHintsAndExpiry.remove(cardId);
     }
 
-    public void removeExpiredShownHints() {
-        List<Integer> colorHintsToBeRemoved = new ArrayList<Integer>();
-        cardsShowingColorHintsAndRemainingTurns.forEach((cardId, colorHintAndRemainingTurns) -> {
-            if (colorHintAndRemainingTurns.getNumTurns()==0) {
-                colorHintsToBeRemoved.add(cardId);
-            }
-        });
-        colorHintsToBeRemoved.forEach(cardsShowingColorHintsAndRemainingTurns::remove);
-        
-        List<Integer> valueHintsToBeRemoved = new ArrayList<Integer>();
-        cardsShowingValueHintsAndRemainingTurns.forEach((cardId, valueHintAndRemainingTurns) -> {
-            if (valueHintAndRemainingTurns.getNumTurns()==0) {
-                valueHintsToBeRemoved.add(cardId);
-            }
-        });
-        valueHintsToBeRemoved.forEach(cardsShowingValueHintsAndRemainingTurns::remove);
+    /**
+     * Shows the card's color for numTurnsHintsLast turns, replacing an earlier color hint on it
+     */
+    public void addColorHint(int cardId, Card.Color color) {
+        int expiryTurn = scheduleHintExpiry(cardId, COLOR_HINT);
+        cardsShowingColorHintsAndExpiry.put(cardId, new ColorHint(color, expiryTurn));
+    }
 
-        int numHintsRemoved = colorHintsToBeRemoved.size()+valueHintsToBeRemoved.size();
-        logger.info(numHintsRemoved+" hints removed.");
+    /**
+     * Shows the card's value for numTurnsHintsLast turns, replacing an earlier value hint on it
+     */
+    public void addValueHint(int cardId, int value) {
+        int expiryTurn = scheduleHintExpiry(cardId, VALUE_HINT);
+        cardsShowingValueHintsAndExpiry.put(cardId, new ValueHint(value, expiryTurn));
     }
 
-    public void decrementHintsRemainingTurns() {
-        cardsShowingColorHintsAndRemainingTurns.forEach((cardId, colorHintAndRemainingTurns) -> {
-            colorHintAndRemainingTurns.setNumTurns(colorHintAndRemainingTurns.getNumTurns() -1);
-        });
-        cardsShowingValueHintsAndRemainingTurns.forEach((cardId, valueHintAndRemainingTurns) -> {
-            valueHintAndRemainingTurns.setNumTurns(valueHintAndRemainingTurns.getNumTurns() -1);
-        });
+    private int scheduleHintExpiry(int cardId, int hintType) {
+        if (hintExpiryBuckets == null) {
+            return PERSISTENT_HINT;
+        }
+        int expiryTurn = turnCounter + numTurnsHintsLast + 1;
+        int bucket = expiryTurn % hintExpiryBuckets.length;
+        int size = hintExpiryBucketSizes[bucket];
+        if (size == hintExpiryBuckets[bucket].length) {
+            hintExpiryBuckets[bucket] = Arrays.copyOf(hintExpiryBuckets[bucket], size * 2);
+        }
+        hintExpiryBuckets[bucket][size] = cardId * 2 + hintType;
+        hintExpiryBucketSizes[bucket] = size + 1;
+        return expiryTurn;
+    }
 
-        int numHintsShown = cardsShowingColorHintsAndRemainingTurns.size() + cardsShowingValueHintsAndRemainingTurns.size();
-        logger.info("Remaining turns for shown hints decremented. "+numHintsShown+" hints are shown");
+    /**
+     * Removes the hints that expire at the current turn. Only the current turn's bucket is visited;
+     * entries of hints that were replaced or removed since are skipped.
+     */
+    public void removeExpiredShownHints() {
+        if (hintExpiryBuckets == null) {
+            return;
+        }
+        int bucket = turnCounter % hintExpiryBuckets.length;
+        int[] entries = hintExpiryBuckets[bucket];
+        int numHintsRemoved = 0;
+        for (int i = 0; i < hintExpiryBucketSizes[bucket]; i++) {
+            int cardId = entries[i] / 2;
+            if (entries[i] % 2 == COLOR_HINT) {
+                ColorHint hint = cardsShowingColorHintsAndExpiry.get(cardId);
+                if (hint != null && hint.getExpiryTurn() == turnCounter) {
+                    cardsShowingColorHintsAndExpiry.remove(cardId);
+                    numHintsRemoved++;
+                }
+            } else {
+                ValueHint hint = cardsShowingValueHintsAndExpiry.get(cardId);
+                if (hint != null && hint.getExpiryTurn() == turnCounter) {
+                    cardsShowingValueHintsAndExpiry.remove(cardId);
+                    numHintsRemoved++;
+                }
+            }
+        }
+        hintExpiryBucketSizes[bucket] = 0;
+        if (numHintsRemoved > 0) {
+            logger.event(GameEvent.HINTS_REMOVED, numHintsRemoved);
+        }
     }
 
     public int getCurrentTurnNumber() {
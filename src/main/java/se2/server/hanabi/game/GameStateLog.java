@@ -0,0 +1,179 @@
+package se2.server.hanabi.game;
+
+import se2.server.hanabi.api.StateDelta;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versions the state of one game and keeps the most recent deltas between versions.
+ * {@link #capture()} compares the game with the last captured state and records what changed
+ * as a new version, so clients get compact deltas instead of the full status after every action.
+ * Clients that fell behind are resynced from a ring buffer of the last deltas.
+ * Not thread-safe, all calls must run on the game's mailbox.
+ */
+public class GameStateLog {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final GameState state;
+    private final StateDelta[] ring;
+    private long version;
+    private Frame last;
+
+    public GameStateLog(GameState state) {
+        this(state, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of deltas kept for resyncs
+     */
+    public GameStateLog(GameState state, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.state = state;
+        this.ring = new StateDelta[capacity];
+        this.last = Frame.of(state);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Records the changes since the last capture as a new version.
+     * @return the delta to the previous version, or null if nothing changed
+     */
+    public StateDelta capture() {
+        Frame current = Frame.of(state);
+        StateDelta delta = current.diff(last, version, version + 1);
+        if (current.discardSize > last.discardSize) {
+            delta.getDiscarded().addAll(state.getDiscardPile().subList(last.discardSize, current.discardSize));
+        }
+        if (delta.isEmpty()) {
+            return null;
+        }
+        version++;
+        ring[(int) (version % ring.length)] = delta;
+        last = current;
+        return delta;
+    }
+
+    /**
+     * @param knownVersion the version the client has applied last
+     * @return the deltas from knownVersion up to the current version, in order; null if they
+     * are no longer buffered (or the version is unknown) and the client needs a full snapshot
+     */
+    public List<StateDelta> since(long knownVersion) {
+        if (knownVersion > version || knownVersion < version - ring.length || knownVersion < 0) {
+            return null;
+        }
+        List<StateDelta> deltas = new ArrayList<>((int) (version - knownVersion));
+        for (long v = knownVersion + 1; v <= version; v++) {
+            deltas.add(ring[(int) (v % ring.length)]);
+        }
+        return deltas;
+    }
+
+    /**
+     * The parts of the game a delta can describe, copied at one version
+     */
+    private static final class Frame {
+        private final Map<Integer, List<Integer>> hands = new HashMap<>();
+        private final Map<Integer, List<Card>> handCards = new HashMap<>();
+        private final Set<Integer> cardsInHands = new HashSet<>();
+        private final Map<Card.Color, Integer> playedCards;
+        private final int discardSize;
+        private final Map<Integer, Card.Color> colorHints;
+        private final Map<Integer, Integer> valueHints;
+        private final int numRemainingCards;
+        private final int numRemainingHintTokens;
+        private final int strikes;
+        private final int currentScore;
+        private final int maxPossibleScore;
+        private final int currentPlayerId;
+        private final boolean gameOver;
+        private final boolean gameLost;
+
+        private Frame(GameState state) {
+            for (Player player : state.getPlayers()) {
+                List<Card> cards = new ArrayList<>(state.getHands().getOrDefault(player.getId(), List.of()));
+                List<Integer> ids = new ArrayList<>(cards.size());
+                for (Card card : cards) {
+                    ids.add(card.getId());
+                    cardsInHands.add(card.getId());
+                }
+                hands.put(player.getId(), ids);
+                handCards.put(player.getId(), cards);
+            }
+            this.playedCards = new HashMap<>(state.getPlayedCards());
+            this.discardSize = state.getDiscardPile().size();
+            this.colorHints = state.getCardsShowingColorHints();
+            this.valueHints = state.getCardsShowingValueHints();
+            this.numRemainingCards = state.getDeck().getNumRemainingCards();
+            this.numRemainingHintTokens = state.getNumRemainingHintTokens();
+            this.strikes = state.getStrikes();
+            this.currentScore = state.getCurrentScore();
+            this.maxPossibleScore = state.getMaxPossibleScore();
+            this.currentPlayerId = state.getCurrentPlayerId();
+            this.gameOver = state.isGameOver();
+            this.gameLost = state.isGameLost();
+        }
+
+        static Frame of(GameState state) {
+            return new Frame(state);
+        }
+
+        StateDelta diff(Frame previous, long baseVersion, long version) {
+            StateDelta delta = new StateDelta(baseVersion, version);
+            hands.forEach((playerId, ids) -> {
+                if (ids.equals(previous.hands.get(playerId))) {
+                    return;
+                }
+                delta.getHands().put(playerId, ids);
+                for (Card card : handCards.get(playerId)) {
+                    if (!previous.cardsInHands.contains(card.getId())) {
+                        delta.getNewCards().put(card.getId(), card);
+                    }
+                }
+            });
+            playedCards.forEach((color, value) -> {
+                if (!value.equals(previous.playedCards.get(color))) {
+                    delta.getPlayedCards().put(color, value);
+                }
+            });
+            colorHints.forEach((cardId, color) -> {
+                if (color != previous.colorHints.get(cardId)) {
+                    delta.getColorHints().put(cardId, color);
+                }
+            });
+            valueHints.forEach((cardId, value) -> {
+                if (!value.equals(previous.valueHints.get(cardId))) {
+                    delta.getValueHints().put(cardId, value);
+                }
+            });
+            previous.colorHints.keySet().stream().filter(id -> !colorHints.containsKey(id)).forEach(delta.getRemovedColorHints()::add);
+            previous.valueHints.keySet().stream().filter(id -> !valueHints.containsKey(id)).forEach(delta.getRemovedValueHints()::add);
+
+            delta.setNumRemainingCards(changed(numRemainingCards, previous.numRemainingCards));
+            delta.setNumRemainingHintTokens(changed(numRemainingHintTokens, previous.numRemainingHintTokens));
+            delta.setStrikes(changed(strikes, previous.strikes));
+            delta.setCurrentScore(changed(currentScore, previous.currentScore));
+            delta.setMaxPossibleScore(changed(maxPossibleScore, previous.maxPossibleScore));
+            delta.setCurrentPlayerId(changed(currentPlayerId, previous.currentPlayerId));
+            delta.setGameOver(gameOver != previous.gameOver ? gameOver : null);
+            delta.setGameLost(gameLost != previous.gameLost ? gameLost : null);
+            return delta;
+        }
+
+        private static Integer changed(int value, int previous) {
+            return value != previous ? value : null;
+        }
+    }
+}
@@ -5,17 +5,23 @@ import se2.server.hanabi.util.GameRules;
 import java.util.List;
 
 public class GameValidator {
+    private static final Card.Color[] COLORS = Card.Color.values();
+
     public static boolean isPlayerTurn(GameManager game, int playerId) {
         return !game.isGameOver() && game.getCurrentPlayerId() == playerId;
     }
 
     public static boolean isValidCardIndex(GameManager game, int playerId, int cardIndex) {
-        List<Card> hand = game.getHands().get(playerId);
+        int seat = game.getSeat(playerId);
+        if (seat < 0) {
+            return false;
+        }
+        List<Card> hand = game.getHandAtSeat(seat);
         return hand != null && cardIndex >= 0 && cardIndex < hand.size();
     }
 
     public static boolean playerExists(GameManager game, int playerId) {
-        return game.getPlayers().stream().anyMatch(p -> p.getId() == playerId);
+        return game.getSeat(playerId) >= 0;
     }
 
     public static boolean hasEnoughHints(GameManager game) {
@@ -35,6 +41,18 @@ public class GameValidator {
         return false;
     }
 
+    /**
+     * @param value the color ordinal for a color hint, the card value for a value hint
+     */
+    public static boolean isValidHint(HintType type, int value) {
+        if (type == HintType.COLOR) {
+            return value >= 0 && value < COLORS.length;
+        } else if (type == HintType.VALUE) {
+            return GameRules.isValidCardValue(value);
+        }
+        return false;
+    }
+
     public static boolean isNotSelfHint(int fromPlayerId, int toPlayerId) {
         return fromPlayerId != toPlayerId;
     }
@@ -0,0 +1,45 @@
+package se2.server.hanabi.game;
+
+import se2.server.hanabi.game.GameLogger.LogLevel;
+
+import java.io.PrintStream;
+
+/**
+ * Where a logger sends its entries besides its own history. An entry is handed over as its record,
+ * the header followed by the arguments, and is only turned into text by the sink.
+ */
+public interface LogSink {
+
+    /**
+     * Drops every entry
+     */
+    LogSink NONE = new LogSink() {
+        @Override
+        public boolean accepts(LogLevel level) {
+            return false;
+        }
+
+        @Override
+        public void write(int[] record) {
+        }
+    };
+
+    /**
+     * Tells the logger whether to build a record at all, may sample
+     */
+    default boolean accepts(LogLevel level) {
+        return true;
+    }
+
+    /**
+     * @param record the entry's header and arguments, owned by the sink from now on
+     */
+    void write(int[] record);
+
+    /**
+     * Prints every entry on the calling thread, so all writers share the stream's lock and wait for its output
+     */
+    static LogSink printing(PrintStream out) {
+        return record -> out.println(GameLogger.format(record, 0));
+    }
+}
@@ -0,0 +1,16 @@
+package se2.server.hanabi.game;
+
+import lombok.Getter;
+
+@Getter
+public class ValueHint {
+    private final int value;
+    // the turn at whose start the hint disappears, GameState.PERSISTENT_HINT if it stays
+    private final int expiryTurn;
+
+    public ValueHint(int value, int expiryTurn) {
+        this.value = value;
+        this.expiryTurn = expiryTurn;
+    }
+
+}
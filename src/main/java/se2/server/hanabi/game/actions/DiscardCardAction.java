@@ -1,5 +1,6 @@
 package se2.server.hanabi.game.actions;
 
+import se2.server.hanabi.game.GameEvent;
 import se2.server.hanabi.game.GameManager;
 import se2.server.hanabi.model.Card;
 import se2.server.hanabi.util.ActionResult;
@@ -19,24 +20,24 @@ public class DiscardCardAction {
 
     public ActionResult execute() {
         if (game.isGameOver()) {
-            game.getLogger().error("Discard failed - Game is already over.");
+            game.getLogger().event(GameEvent.DISCARD_AFTER_GAME_OVER);
             return ActionResult.failure("Game is already over");
         }
         
-        List<Card> hand = game.getHands().get(playerId);
+        List<Card> hand = game.getPlayerHand(playerId);
         if (hand == null) {
-            game.getLogger().error("Discard failed - Unknown player");
+            game.getLogger().event(GameEvent.DISCARD_UNKNOWN_PLAYER);
             return ActionResult.failure("Player not found");
         }
         if (cardIndex < 0 || cardIndex >= hand.size()) {
-            game.getLogger().error("Discard failed - Invalid card index " + cardIndex + " for player: " + playerId);
+            game.getLogger().event(GameEvent.DISCARD_INVALID_INDEX, playerId, cardIndex);
             return ActionResult.failure("Invalid card index");
         }
         Card card = hand.remove(cardIndex);
-        game.getDiscardPile().add(card);
+        game.getGameState().addToDiscardPile(card);
         game.setNumRemainingHintTokens(game.getHints() + 1);
         game.removeCardFromShownHints(card.getId());
-        game.getLogger().info("Player " + playerId + " discarded " + card + " and gained a hint.");
+        game.getLogger().event(GameEvent.DISCARDED, playerId, GameEvent.card(card));
 
         game.drawCardToHand(playerId);
         game.advanceTurn();
@@ -1,72 +1,59 @@
 package se2.server.hanabi.game.actions;
 
-import se2.server.hanabi.game.ColorHintAndRemainingTurns;
+import se2.server.hanabi.game.GameEvent;
 import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.game.commands.GameCommand;
 import se2.server.hanabi.util.ActionResult;
 import se2.server.hanabi.game.HintType;
-import se2.server.hanabi.game.ValueHintAndRemainingTurns;
 import se2.server.hanabi.model.Card;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class HintAction {
     private final GameManager game;
-    private final int fromPlayerId;
-    private final int toPlayerId;
-    private final HintType type;
-    private final Object value;
+    private final GameCommand.Hint hint;
 
-    public HintAction(GameManager game, int fromPlayerId, int toPlayerId, HintType type, Object value) {
+    public HintAction(GameManager game, GameCommand.Hint hint) {
         this.game = game;
-        this.fromPlayerId = fromPlayerId;
-        this.toPlayerId = toPlayerId;
-        this.type = type;
-        this.value = value;
+        this.hint = hint;
     }
 
     public ActionResult execute() {
-        List<Card> targetHand = game.getHands().get(toPlayerId);
+        int fromPlayerId = hint.fromPlayerId();
+        int toPlayerId = hint.toPlayerId();
+        List<Card> targetHand = game.getPlayerHand(toPlayerId);
         if (targetHand == null) {
-            game.getLogger().warn("Target player " + toPlayerId + " not found while giving hint");
+            game.getLogger().event(GameEvent.HINT_UNKNOWN_TARGET, toPlayerId);
             return ActionResult.failure("Target player not found");
         }
 
-        List<Integer> matchingCardIds = new ArrayList<>();
-        for (Card card : targetHand) {
-            if (type == HintType.COLOR && card.getColor().name().equalsIgnoreCase(value.toString())) {
-                ColorHintAndRemainingTurns colorHintAndTurns = new ColorHintAndRemainingTurns(card.getColor(), game.getNumTurnsHintsLast());
-                game.getGameState().getCardsShowingColorHintsAndRemainingTurns().put(card.getId(), colorHintAndTurns);
-                matchingCardIds.add(card.getId());
-            } else if (type == HintType.VALUE && card.getValue() == (int) value) {
-                ValueHintAndRemainingTurns valueHintAndTurns = new ValueHintAndRemainingTurns(card.getValue(), game.getNumTurnsHintsLast());
-                game.getGameState().getCardsShowingValueHintsAndRemainingTurns().put(card.getId(), valueHintAndTurns);
-                matchingCardIds.add(card.getId());
+        // giver, target and hint, then position and card of each match
+        int[] event = new int[3 + 2 * targetHand.size()];
+        int count = 3;
+        for (int i = 0; i < targetHand.size(); i++) {
+            Card card = targetHand.get(i);
+            if (hint.matches(card)) {
+                if (hint.type() == HintType.COLOR) {
+                    game.getGameState().addColorHint(card.getId(), card.getColor());
+                } else {
+                    game.getGameState().addValueHint(card.getId(), card.getValue());
+                }
+                event[count++] = i;
+                event[count++] = GameEvent.card(card);
             }
         }
 
-        if (matchingCardIds.isEmpty()) {
-            game.getLogger().info("No matching cards found for hint by player " + fromPlayerId);
+        if (count == 3) {
+            game.getLogger().event(GameEvent.HINT_NO_MATCH, fromPlayerId);
             return ActionResult.failure("No matching cards found");
         }
-        
-        StringBuilder logMessage = new StringBuilder("Player " + fromPlayerId + " gave a hint to player " + toPlayerId + " about " + type + " " + value + ". Matching cards: ");
-        
-        for (int i = 0; i < targetHand.size(); i++) {
-            Card card = targetHand.get(i);
-            if (matchingCardIds.contains(card.getId())) {
-                logMessage.append("[Position: ").append(i).append(", ID: ").append(card.getId())
-                          .append(", Value: ").append(card.getValue())
-                          .append(", Color: ").append(card.getColor().name()).append("] ");
-            }
-        }
 
-    
-        
-        game.getLogger().info(logMessage.toString());
+        event[0] = fromPlayerId;
+        event[1] = toPlayerId;
+        event[2] = GameEvent.hint(hint.type(), hint.value());
+        game.getLogger().event(GameEvent.HINT_GIVEN, event, count);
         game.setNumRemainingHintTokens(game.getHints() - 1); // Deduct hint tokens only when a valid hint is applied
         game.advanceTurn();
         return ActionResult.success("Hint given");
     }
 }
-
@@ -1,5 +1,6 @@
 package se2.server.hanabi.game.actions;
 
+import se2.server.hanabi.game.GameEvent;
 import se2.server.hanabi.game.GameManager;
 import se2.server.hanabi.model.Card;
 import se2.server.hanabi.util.GameRules;
@@ -8,7 +9,6 @@ import se2.server.hanabi.util.ActionResult;
 import java.util.List;
 
 public class PlayCardAction {
-    private static final String PLAYER_PREFIX = "Player ";
     private final GameManager game;
     private final int playerId;
     private final int cardIndex;
@@ -21,52 +21,50 @@ public class PlayCardAction {
 
     public ActionResult execute() {
         if (game.isGameOver()) {
-            game.getLogger().warn("Attempt to play card after game over by " + PLAYER_PREFIX.toLowerCase() + playerId);
+            game.getLogger().event(GameEvent.PLAY_AFTER_GAME_OVER, playerId);
             return ActionResult.failure("Game is already over");
         }
 
-        List<Card> hand = game.getHands().get(playerId);
+        List<Card> hand = game.getPlayerHand(playerId);
         if (hand == null) {
-            game.getLogger().warn(PLAYER_PREFIX + playerId + " not found while playing card");
+            game.getLogger().event(GameEvent.PLAY_UNKNOWN_PLAYER, playerId);
             return ActionResult.failure("Player not found");
         }
         if (cardIndex < 0 || cardIndex >= hand.size()) {
-            game.getLogger().warn("Invalid card index " + cardIndex + " by " + PLAYER_PREFIX.toLowerCase() + playerId);
+            game.getLogger().event(GameEvent.PLAY_INVALID_INDEX, playerId, cardIndex);
             return ActionResult.failure("Invalid card index");
         }
         Card card = hand.remove(cardIndex);
-        game.getLogger().info(PLAYER_PREFIX + playerId + " played card: " + card);
-        int expected = game.getPlayedCards().get(card.getColor()) + 1;
+        game.getLogger().event(GameEvent.PLAYED, playerId, GameEvent.card(card));
+        int expected = game.getGameState().getPlayedValue(card.getColor()) + 1;
 
-        game.getLogger().info("Card value: " + card.getValue() + ", Expected: " + expected);
+        game.getLogger().event(GameEvent.PLAY_EXPECTED, card.getValue(), expected);
 
         if (card.getValue() != expected) {
-            game.getLogger().warn(PLAYER_PREFIX + playerId + " played an invalid card: " + card);
-            game.getDiscardPile().add(card);
+            game.getLogger().event(GameEvent.MISPLAYED, playerId, GameEvent.card(card));
+            game.getGameState().addToDiscardPile(card);
             game.incrementStrikes();
-            game.getLogger().warn("Wrong card played by " + PLAYER_PREFIX.toLowerCase() + playerId);
+            game.getLogger().event(GameEvent.WRONG_CARD, playerId);
             game.drawCardToHand(playerId);
             game.advanceTurn();
             return ActionResult.failure("Wrong card!");
         }
 
         if (card.getValue() == expected) {
-            game.getPlayedCards().put(card.getColor(), expected);
-            game.getLogger().info("Played cards state: " + game.getPlayedCards());
+            game.getGameState().playFirework(card.getColor());
+            game.getLogger().event(GameEvent.FIREWORKS, GameEvent.fireworks(game.getPlayedCards()));
             if (card.getValue() == GameRules.MAX_CARD_VALUE && game.getHints() < GameRules.MAX_HINT_TOKENS) {
                 game.setNumRemainingHintTokens(game.getHints() + 1);
             }
 
-            boolean allPerfect = game.getPlayedCards().values().stream()
-                .allMatch(value -> value == GameRules.MAX_CARD_VALUE);
-            if (allPerfect) {
+            if (game.getGameState().isPerfect()) {
                 game.setGameOver(true);
-                game.getLogger().info("Perfect game achieved! Game over.");
+                game.getLogger().event(GameEvent.PERFECT_GAME);
                 return ActionResult.success("Perfect! You completed the game.");
             }
 
             if (game.getDeck().isEmpty()) {
-                game.getLogger().warn("Deck is empty. No card drawn.");
+                game.getLogger().event(GameEvent.PLAYED_WITH_EMPTY_DECK);
                 game.advanceTurn();
                 return ActionResult.failure("No cards left in the deck.");
             }
@@ -0,0 +1,116 @@
+package se2.server.hanabi.game.commands;
+
+import se2.server.hanabi.game.HintType;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.GameActionMessage;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.List;
+
+/**
+ * Turns client input into {@link GameCommand}s. This is the only place that parses hint values
+ * and checks that the fields an action needs are present; the game rules are checked by GameManager.
+ */
+public final class CommandDecoder {
+
+    public static final String INVALID_COLOR = "Invalid color value";
+    public static final String INVALID_CARD_VALUE = "Invalid card value (must be "
+            + GameRules.MIN_CARD_VALUE + "-" + GameRules.MAX_CARD_VALUE + ")";
+    public static final String INVALID_HINT_FORMAT = "Invalid hint value format";
+
+    private static final Card.Color[] COLORS = Card.Color.values();
+
+    private CommandDecoder() {
+    }
+
+    /**
+     * Either a command or the reason the input could not be decoded
+     */
+    public record Result(GameCommand command, String error) {
+
+        static Result of(GameCommand command) {
+            return new Result(command, null);
+        }
+
+        static Result error(String error) {
+            return new Result(null, error);
+        }
+
+        public boolean isValid() {
+            return command != null;
+        }
+    }
+
+    /**
+     * Decodes a WebSocket game action; SYNC is not a game action and is rejected
+     */
+    public static Result decode(GameActionMessage message) {
+        if (message.getActionType() == null) {
+            return Result.error("Missing or invalid action type. Make sure to include 'action' field.");
+        }
+        if (message.getActionType() == GameActionMessage.ActionType.CHEAT) {
+            return Result.of(new GameCommand.IncrementStrikes());
+        }
+        Integer playerId = message.getPlayerId();
+        if (playerId == null) {
+            return Result.error("Missing playerId");
+        }
+        switch (message.getActionType()) {
+            case PLAY:
+                return message.getCardIndex() == null
+                        ? Result.error("Missing cardIndex")
+                        : Result.of(new GameCommand.Play(playerId, message.getCardIndex()));
+            case DISCARD:
+                return message.getCardIndex() == null
+                        ? Result.error("Missing cardIndex")
+                        : Result.of(new GameCommand.Discard(playerId, message.getCardIndex()));
+            case HINT:
+                if (message.getToPlayerId() == null) {
+                    return Result.error("Missing toPlayerId");
+                }
+                return hint(playerId, message.getToPlayerId(), message.getHintType(), message.getHintValue());
+            case DEFUSE:
+                return Result.of(new GameCommand.Defuse(playerId));
+            case ADD_STRIKE:
+                return Result.of(new GameCommand.AddStrike(playerId));
+            case DEFUSE_ATTEMPT:
+                List<String> sequence = message.getSequence();
+                if (sequence != null && sequence.contains(null)) {
+                    return Result.error("Invalid defuse sequence");
+                }
+                return Result.of(new GameCommand.DefuseAttempt(playerId, sequence, message.getProximity()));
+            default:
+                return Result.error("Unknown action type");
+        }
+    }
+
+    /**
+     * Decodes a hint given as text, a color name in any case or a card value
+     */
+    public static Result hint(int fromPlayerId, int toPlayerId, HintType type, String hintValue) {
+        if (type == null) {
+            return Result.error("Missing hintType");
+        }
+        if (hintValue == null) {
+            return Result.error("Missing hintValue");
+        }
+        if (type == HintType.COLOR) {
+            for (Card.Color color : COLORS) {
+                if (color.name().equalsIgnoreCase(hintValue)) {
+                    return Result.of(GameCommand.Hint.color(fromPlayerId, toPlayerId, color));
+                }
+            }
+            return Result.error(INVALID_COLOR);
+        }
+        int value;
+        try {
+            value = Integer.parseInt(hintValue);
+        } catch (NumberFormatException e) {
+            return Result.error(INVALID_HINT_FORMAT);
+        }
+        if (!GameRules.isValidCardValue(value)) {
+            return Result.error(INVALID_CARD_VALUE);
+        }
+        return Result.of(GameCommand.Hint.value(fromPlayerId, toPlayerId, value));
+    }
+}
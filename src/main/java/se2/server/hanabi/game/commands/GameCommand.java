@@ -0,0 +1,97 @@
+package se2.server.hanabi.game.commands;
+
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.game.HintType;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.util.ActionResult;
+
+import java.util.List;
+
+/**
+ * A decoded game action. Commands are built by {@link CommandDecoder} from REST parameters or
+ * WebSocket messages, so every entry point shares one validation of the input format and the
+ * engine runs them without parsing strings or boxing values.
+ */
+public sealed interface GameCommand {
+
+    /**
+     * Runs the command on the game; must be called on the game's mailbox
+     */
+    ActionResult execute(GameManager game);
+
+    record Play(int playerId, int cardIndex) implements GameCommand {
+        @Override
+        public ActionResult execute(GameManager game) {
+            return game.playCard(playerId, cardIndex);
+        }
+    }
+
+    record Discard(int playerId, int cardIndex) implements GameCommand {
+        @Override
+        public ActionResult execute(GameManager game) {
+            return game.discardCard(playerId, cardIndex);
+        }
+    }
+
+    /**
+     * @param value the color ordinal for a color hint, the card value for a value hint
+     */
+    record Hint(int fromPlayerId, int toPlayerId, HintType type, int value) implements GameCommand {
+
+        public static Hint color(int fromPlayerId, int toPlayerId, Card.Color color) {
+            return new Hint(fromPlayerId, toPlayerId, HintType.COLOR, color.ordinal());
+        }
+
+        public static Hint value(int fromPlayerId, int toPlayerId, int value) {
+            return new Hint(fromPlayerId, toPlayerId, HintType.VALUE, value);
+        }
+
+        public boolean matches(Card card) {
+            return type == HintType.COLOR ? card.getColor().ordinal() == value : card.getValue() == value;
+        }
+
+        /**
+         * @return the hinted color or value as shown to players, e.g. RED or 3
+         */
+        public String valueName() {
+            return type == HintType.COLOR ? Card.Color.values()[value].name() : Integer.toString(value);
+        }
+
+        @Override
+        public ActionResult execute(GameManager game) {
+            return game.giveHint(this);
+        }
+    }
+
+    record IncrementStrikes() implements GameCommand {
+        @Override
+        public ActionResult execute(GameManager game) {
+            return game.incrementStrikes();
+        }
+    }
+
+    record Defuse(int playerId) implements GameCommand {
+        @Override
+        public ActionResult execute(GameManager game) {
+            return game.defuseStrike(playerId);
+        }
+    }
+
+    record AddStrike(int playerId) implements GameCommand {
+        @Override
+        public ActionResult execute(GameManager game) {
+            return game.addStrikeCheat(playerId);
+        }
+    }
+
+    record DefuseAttempt(int playerId, List<String> sequence, String proximity) implements GameCommand {
+        public DefuseAttempt {
+            sequence = sequence == null ? null : List.copyOf(sequence);
+        }
+
+        @Override
+        public ActionResult execute(GameManager game) {
+            return game.handleDefuseAttempt(playerId, sequence, proximity);
+        }
+    }
+}
@@ -1,27 +1,105 @@
 package se2.server.hanabi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
+import se2.server.hanabi.util.GameRules;
 
-@Getter
+/**
+ * One physical card of a game. Its face is shared with all cards of the same color and value,
+ * the id tells the copies apart and is unique only within the game's deck (0 to 49).
+ */
 public class Card {
-    private final int value;
-    private final Color color;
+    // a packed card is id << FACE_BITS | face index, which fits a short for ids below MAX_PACKED_ID
+    private static final int FACE_BITS = 5;
+    private static final int MAX_PACKED_ID = 1 << (Short.SIZE - 1 - FACE_BITS);
+    // the cards of a standard deck in id order; immutable, so every game shares them
+    private static final Card[] STANDARD = new Card[Deck.DECK_SIZE];
+
+    static {
+        int id = 0;
+        for (Color color : Color.values()) {
+            for (int value = GameRules.MIN_CARD_VALUE; value <= GameRules.MAX_CARD_VALUE; value++) {
+                for (int copy = 0; copy < GameRules.getCopiesPerColor(value); copy++) {
+                    STANDARD[id] = new Card(id, Face.of(color, value));
+                    id++;
+                }
+            }
+        }
+    }
+
+    @Getter(onMethod_ = @JsonIgnore)
+    private final Face face;
+    @Getter
     private final int id;
-    private static int nextID = 0;
 
-    public Card(int value, Color color) {
-        this.value = value;
-        this.color = color;
-        this.id = nextID++;
+    public Card(int id, Face face) {
+        this.id = id;
+        this.face = face;
+    }
+
+    public Card(int value, Color color, int id) {
+        this(id, Face.of(color, value));
+    }
+
+    /**
+     * @return the card with this id in a standard deck, ids are assigned in color, value and copy order
+     */
+    public static Card standard(int id) {
+        return STANDARD[id];
+    }
+
+    /**
+     * @return the card as a short, so hands, deck and discard pile can hold primitives instead of references
+     * @throws IllegalArgumentException if the id is too large to pack
+     */
+    public short pack() {
+        if (id < 0 || id >= MAX_PACKED_ID) {
+            throw new IllegalArgumentException("Card id cannot be packed: " + id);
+        }
+        return (short) (id << FACE_BITS | Face.index(face.color, face.value));
+    }
+
+    /**
+     * @return the card of a {@link #pack() packed} value; the shared instance for cards of a standard deck,
+     * a new equal one for any other card
+     */
+    public static Card unpack(short packed) {
+        int id = idOf(packed);
+        Face face = Face.FACES[packed & ((1 << FACE_BITS) - 1)];
+        if (id < STANDARD.length && STANDARD[id].face == face) {
+            return STANDARD[id];
+        }
+        return new Card(id, face);
+    }
+
+    /**
+     * @return the id of a {@link #pack() packed} card
+     */
+    public static int idOf(short packed) {
+        return packed >> FACE_BITS;
+    }
+
+    public int getValue() {
+        return face.getValue();
+    }
+
+    public Color getColor() {
+        return face.getColor();
     }
 
-    public static void resetNextID() {
-        nextID = 0;
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Card other && id == other.id && face == other.face;
+    }
+
+    @Override
+    public int hashCode() {
+        return id << FACE_BITS | Face.index(face.color, face.value);
     }
 
     @Override
     public String toString() {
-        return "Card{" + "value=" + value + ", color=" + color + ", id=" + id + '}';
+        return "Card{" + "value=" + getValue() + ", color=" + getColor() + ", id=" + id + '}';
     }
 
     public enum Color {
@@ -31,4 +109,39 @@ public class Card {
         YELLOW,
         WHITE
     }
+
+    /**
+     * The color and value of a card. There is exactly one instance per combination, shared by all games.
+     */
+    @Getter
+    public static final class Face {
+        private static final Face[] FACES = new Face[Color.values().length * GameRules.MAX_CARD_VALUE];
+
+        static {
+            for (Color color : Color.values()) {
+                for (int value = GameRules.MIN_CARD_VALUE; value <= GameRules.MAX_CARD_VALUE; value++) {
+                    FACES[index(color, value)] = new Face(color, value);
+                }
+            }
+        }
+
+        private final Color color;
+        private final int value;
+
+        private Face(Color color, int value) {
+            this.color = color;
+            this.value = value;
+        }
+
+        public static Face of(Color color, int value) {
+            if (!GameRules.isValidCardValue(value)) {
+                throw new IllegalArgumentException("Invalid card value: " + value);
+            }
+            return FACES[index(color, value)];
+        }
+
+        private static int index(Color color, int value) {
+            return color.ordinal() * GameRules.MAX_CARD_VALUE + value - GameRules.MIN_CARD_VALUE;
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package se2.server.hanabi.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A list of cards stored as {@link Card#pack() packed} shorts. Reading a card of a standard deck
+ * returns its shared instance, so neither reads nor changes within the capacity allocate.
+ */
+public class CardList extends AbstractList<Card> implements RandomAccess {
+    private short[] cards;
+    private int size;
+
+    public CardList(int capacity) {
+        this.cards = new short[capacity];
+    }
+
+    /**
+     * Copies a list, the copy and the source change independently afterwards
+     */
+    public CardList(CardList source) {
+        this.cards = source.cards.clone();
+        this.size = source.size;
+    }
+
+    @Override
+    public Card get(int index) {
+        return Card.unpack(cards[Objects.checkIndex(index, size)]);
+    }
+
+    /**
+     * @return the id of the card at the index, without unpacking the card
+     */
+    public int getId(int index) {
+        return Card.idOf(cards[Objects.checkIndex(index, size)]);
+    }
+
+    @Override
+    public Card set(int index, Card card) {
+        Card previous = get(index);
+        cards[index] = card.pack();
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Card card) {
+        Objects.checkIndex(index, size + 1);
+        short packed = card.pack();
+        if (size == cards.length) {
+            cards = Arrays.copyOf(cards, Math.max(4, size * 2));
+        }
+        System.arraycopy(cards, index, cards, index + 1, size - index);
+        cards[index] = packed;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Card remove(int index) {
+        Card removed = get(index);
+        System.arraycopy(cards, index + 1, cards, index, size - index - 1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
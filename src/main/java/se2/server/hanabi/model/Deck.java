@@ -1,50 +1,102 @@
 package se2.server.hanabi.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import lombok.Getter;
+
 import java.util.List;
+import java.util.SplittableRandom;
 
+/**
+ * The draw pile, stored as {@link Card#pack() packed} cards in a fixed array with a cursor to the top card,
+ * so drawing does not move the other cards and a deck holds no card objects of its own.
+ * The order is fully determined by the seed, which makes every game reproducible.
+ * Card ids are assigned before the shuffle in color, value and copy order, so they are 0 to 49 in every game.
+ */
 public class Deck {
-    private final List<Card> cards;
+    public static final int DECK_SIZE = 50;
+
+    private final short[] cards = new short[DECK_SIZE];
+    // index of the top card, DECK_SIZE when the deck is empty
+    private int head = 0;
+    @Getter
+    private final long seed;
 
+    /**
+     * Creates a deck shuffled with a random seed
+     */
     public Deck() {
-        cards = new ArrayList<>();
-        Card.Color[] colors = Card.Color.values();
-
-        //Hanabi deck structure: 5 colors * (3*1, 2*2, 2*3, 2*4, 1*5)
-        for (Card.Color color : colors) {
-            addCopies(1, 3, color); // 3 ones per color
-            addCopies(2, 2, color); // 2 twos per color
-            addCopies(3, 2, color); // 2 threes per color
-            addCopies(4, 2, color); // 2 fours per color
-            addCopies(5, 1, color); // 1 five per color
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates a deck shuffled with the given seed, decks with the same seed have the same order
+     * @param seed the seed of the shuffle
+     */
+    public Deck(long seed) {
+        this.seed = seed;
+        //Hanabi deck structure: 5 colors * (3*1, 2*2, 2*3, 2*4, 1*5), in the id order of the standard cards
+        for (int id = 0; id < DECK_SIZE; id++) {
+            cards[id] = Card.standard(id).pack();
         }
-        Collections.shuffle(cards);
+        shuffle(new SplittableRandom(seed));
     }
 
-    private void addCopies(int value, int count, Card.Color color) {
-        for (int i = 0; i < count; i++) {
-            cards.add(new Card(value, color));
+    private Deck(Deck source) {
+        this.seed = source.seed;
+        this.head = source.head;
+        System.arraycopy(source.cards, 0, cards, 0, cards.length);
+    }
+
+    /**
+     * @return a deck with the same cards left in the same order, drawing from one does not affect the other
+     */
+    public Deck copy() {
+        return new Deck(this);
+    }
+
+    // Fisher-Yates
+    private void shuffle(SplittableRandom random) {
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            short swap = cards[i];
+            cards[i] = cards[j];
+            cards[j] = swap;
         }
     }
 
     public Card drawCard() {
-        return cards.isEmpty() ? null : cards.remove(0);
+        if (head == cards.length) {
+            return null;
+        }
+        return Card.unpack(cards[head++]);
     }
 
     public boolean isEmpty() {
-        return cards.isEmpty();
+        return head == cards.length;
     }
 
     public int getNumRemainingCards() {
-        return cards.size();
+        return cards.length - head;
+    }
+
+    /**
+     * @return a copy of the remaining cards from top to bottom
+     */
+    public List<Card> getRemainingCards() {
+        Card[] remaining = new Card[cards.length - head];
+        for (int i = 0; i < remaining.length; i++) {
+            remaining[i] = Card.unpack(cards[head + i]);
+        }
+        return List.of(remaining);
     }
 
     public void clear() {
-        cards.clear();
+        head = cards.length;
     }
 
     public void addCardToTop(Card card) {
-        cards.add(0, card);
+        if (head == 0) {
+            throw new IllegalStateException("Deck is full");
+        }
+        cards[--head] = card.pack();
     }
 }
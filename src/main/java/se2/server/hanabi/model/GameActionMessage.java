@@ -19,7 +19,9 @@ public class GameActionMessage {
         CHEAT,
         DEFUSE, 
         ADD_STRIKE,
-        DEFUSE_ATTEMPT
+        DEFUSE_ATTEMPT,
+        SYNC,
+        BATCH
     }
 
 
@@ -54,6 +56,14 @@ public class GameActionMessage {
     @JsonProperty("proximity")
     private String proximity;
 
+    // last state version the client applied, for SYNC
+    @JsonProperty("version")
+    private Long version;
+
+    // the actions of a BATCH, in order; actions without a lobbyId use the batch's
+    @JsonProperty("actions")
+    private java.util.List<GameActionMessage> actions;
+
     // Default constructor for JSON deserialization
     public GameActionMessage() {
         // This empty constructor is intentionally left blank
@@ -1,8 +1,12 @@
 package se2.server.hanabi.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import se2.server.hanabi.game.GameManager;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 @Getter
@@ -12,25 +16,43 @@ public class Lobby {
 
     private final List<Player> players;
     
-    private boolean isGameStarted;
+    private volatile boolean isGameStarted;
     
-    private GameManager gameManager;
+    private volatile GameManager gameManager;
+
+    private volatile boolean isCasualMode;
+
+    private volatile long lastActivityMillis;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger connectedSessions = new AtomicInteger();
+
+    // guards membership and game start; a lock instead of a monitor so virtual threads are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
 
     public Lobby(String id) {
         this.id = id;
-        this.players = new ArrayList<>();
+        // readers (controllers, listing) iterate without locking while joins and leaves modify the list
+        this.players = new CopyOnWriteArrayList<>();
         this.isGameStarted = false;
+        this.lastActivityMillis = System.currentTimeMillis();
     }
 
     public boolean startGame(Boolean isCasualMode) {
-        if (isGameStarted || players.size() < 2) {
-            return false;
-        }
+        lock.lock();
+        try {
+            if (isGameStarted || players.size() < 2) {
+                return false;
+            }
 
-        this.gameManager = GameManager.createNewGame(players, isCasualMode);
+            this.gameManager = GameManager.createNewGame(players, isCasualMode);
+            this.isCasualMode = Boolean.TRUE.equals(isCasualMode);
 
-        this.isGameStarted = true;
-        return true;
+            this.isGameStarted = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean startGame() {
@@ -38,6 +60,36 @@ public class Lobby {
     }
 
     public boolean removePlayerId(int playerId){
-        return this.players.removeIf(player -> player.getId() == playerId);
+        lock.lock();
+        try {
+            return this.players.removeIf(player -> player.getId() == playerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the lobby as in use, which postpones its idle eviction
+     */
+    public void touch() {
+        touch(System.currentTimeMillis());
+    }
+
+    public void touch(long nowMillis) {
+        lastActivityMillis = nowMillis;
+    }
+
+    public void sessionOpened() {
+        connectedSessions.incrementAndGet();
+        touch();
+    }
+
+    public void sessionClosed() {
+        connectedSessions.updateAndGet(count -> Math.max(0, count - 1));
+        touch();
+    }
+
+    public int getConnectedSessionCount() {
+        return connectedSessions.get();
     }
 }
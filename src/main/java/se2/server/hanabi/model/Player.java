@@ -3,18 +3,20 @@ package se2.server.hanabi.model;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Getter
 public class Player {
     @Setter
     private String name;
     private final int id;
-    private static int nextId = 0;
+    private static final AtomicInteger nextId = new AtomicInteger();
 
     private int avatarResID = 0;
  
     public Player(String name, int avatarResID) {
         this.name = name;
-        this.id = nextId++;
+        this.id = nextId.getAndIncrement();
 
         this.avatarResID = avatarResID;
     }
@@ -0,0 +1,127 @@
+package se2.server.hanabi.services;
+
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.game.commands.CommandDecoder;
+import se2.server.hanabi.game.commands.GameCommand;
+import se2.server.hanabi.model.GameActionMessage;
+import se2.server.hanabi.util.ActionResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs an ordered list of actions that may span several lobbies.
+ * The actions of each lobby run in their given order as one task on the lobby's mailbox, lobbies run
+ * in parallel, and each affected lobby gets a single state push after its last action.
+ */
+public class ActionBatchRunner {
+
+    public static final int MAX_BATCH_SIZE = 256;
+
+    private final LobbyManager lobbyManager;
+    private final GameActionExecutor actionExecutor;
+
+    public ActionBatchRunner(LobbyManager lobbyManager, GameActionExecutor actionExecutor) {
+        this.lobbyManager = lobbyManager;
+        this.actionExecutor = actionExecutor;
+    }
+
+    /**
+     * @param actions the actions in order; an action without a lobby id belongs to the default lobby
+     * @param defaultLobbyId the lobby of actions without their own lobby id, may be null
+     * @param publisher pushes the state of each affected lobby once, after its actions
+     * @return a future completed with one result per action, in the order of the actions
+     */
+    public CompletableFuture<List<ActionResult>> run(List<GameActionMessage> actions, String defaultLobbyId, StatePublisher publisher) {
+        if (actions.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch exceeds " + MAX_BATCH_SIZE + " actions");
+        }
+        ActionResult[] results = new ActionResult[actions.size()];
+        Map<String, LobbyBatch> lobbies = new LinkedHashMap<>();
+        for (int i = 0; i < actions.size(); i++) {
+            GameActionMessage action = actions.get(i);
+            String lobbyId = action.getLobbyId() != null ? action.getLobbyId() : defaultLobbyId;
+            GameManager gameManager = lobbyId == null ? null : lobbyManager.getGameManager(lobbyId);
+            if (gameManager == null) {
+                results[i] = ActionResult.invalid("Game or lobby not found");
+                continue;
+            }
+            CommandDecoder.Result decoded = CommandDecoder.decode(action);
+            if (!decoded.isValid()) {
+                results[i] = ActionResult.invalid(decoded.error());
+                continue;
+            }
+            lobbies.computeIfAbsent(lobbyId, id -> new LobbyBatch(gameManager)).add(i, decoded.command());
+        }
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>(lobbies.size());
+        for (Map.Entry<String, LobbyBatch> entry : lobbies.entrySet()) {
+            String lobbyId = entry.getKey();
+            LobbyBatch batch = entry.getValue();
+            pending.add(actionExecutor.<Void>execute(lobbyId, () -> {
+                try {
+                    batch.runInto(results);
+                } finally {
+                    // commands that ran before a failure changed the game, clients must see that
+                    publisher.publish(lobbyId);
+                }
+                return null;
+            }).exceptionally(failure -> {
+                batch.failRemaining(results, failure);
+                return null;
+            }));
+        }
+        // each lobby writes its own slots, completing the futures makes them visible to the caller
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+                .thenApply(done -> Arrays.asList(results));
+    }
+
+    private static final class LobbyBatch {
+        private final GameManager gameManager;
+        private final List<Integer> indices = new ArrayList<>();
+        private final List<GameCommand> commands = new ArrayList<>();
+
+        private LobbyBatch(GameManager gameManager) {
+            this.gameManager = gameManager;
+        }
+
+        private void add(int index, GameCommand command) {
+            indices.add(index);
+            commands.add(command);
+        }
+
+        /**
+         * Runs the commands in order; a command that throws gets a failure result and the rest still run
+         */
+        private void runInto(ActionResult[] results) {
+            for (int i = 0; i < commands.size(); i++) {
+                ActionResult result;
+                try {
+                    result = gameManager.execute(commands.get(i));
+                } catch (RuntimeException e) {
+                    result = ActionResult.failure("Action failed: " + e.getMessage());
+                }
+                results[indices.get(i)] = result;
+            }
+        }
+
+        /**
+         * Fills the results of commands that never ran, because the lobby was removed or the task died
+         */
+        private void failRemaining(ActionResult[] results, Throwable failure) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            String message = cause instanceof RejectedExecutionException ? "Game or lobby not found" : "Action failed: " + cause.getMessage();
+            for (int index : indices) {
+                if (results[index] == null) {
+                    results[index] = ActionResult.failure(message);
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package se2.server.hanabi.services;
 
 import se2.server.hanabi.model.Card;
 import se2.server.hanabi.model.Deck;
+import se2.server.hanabi.game.GameEvent;
 import se2.server.hanabi.game.GameManager;
 
 /**
@@ -13,15 +14,14 @@ public class DrawService {
         Deck deck = gameManager.getDeck();
         
         if (deck.isEmpty()) {
-            gameManager.getLogger().info("Player " + playerId + " could not draw a card - deck is empty.");
+            gameManager.getLogger().event(GameEvent.DRAW_FROM_EMPTY_DECK, playerId);
             return null;
         }
         
         Card card = deck.drawCard();
         if (card != null) {
-            gameManager.getHands().get(playerId).add(card);
-            gameManager.getLogger().info("Player " + playerId + " drew a new card. " + 
-                deck.getNumRemainingCards() + " cards left in deck.");
+            gameManager.getPlayerHand(playerId).add(card);
+            gameManager.getLogger().event(GameEvent.DREW, playerId, deck.getNumRemainingCards());
         }
         
         return card;
@@ -33,8 +33,7 @@ public class DrawService {
         if (deck.isEmpty() && gameManager.getFinalTurnsRemaining() == -1) {
             int playerCount = gameManager.getPlayers().size();
             gameManager.setFinalTurnsRemaining(playerCount);
-            gameManager.getLogger().info("Deck is empty. Final round started! " + 
-                gameManager.getFinalTurnsRemaining() + " turns remaining.");
+            gameManager.getLogger().event(GameEvent.FINAL_ROUND_STARTED, gameManager.getFinalTurnsRemaining());
         }
     }
 }
\ No newline at end of file
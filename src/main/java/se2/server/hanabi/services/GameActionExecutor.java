@@ -0,0 +1,201 @@
+package se2.server.hanabi.services;
+
+import se2.server.hanabi.util.ActionResult;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs game actions on a serial mailbox per lobby.
+ * All actions of one lobby execute one after another, so a game never sees two
+ * concurrent mutations, while different lobbies are drained in parallel on a shared pool.
+ */
+public class GameActionExecutor {
+
+    // actions run per drain before a busy mailbox hands its worker back to other lobbies
+    private static final int MAX_ACTIONS_PER_DRAIN = 64;
+
+    private final Executor workers;
+    private final ConcurrentMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    // left in place of a removed lobby's mailbox once it has drained, so late submits stay rejected
+    private final Mailbox removed = new Mailbox(null);
+
+    public GameActionExecutor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param workers the pool the mailboxes are drained on
+     */
+    public GameActionExecutor(Executor workers) {
+        this.workers = workers;
+        removed.state.set(Mailbox.CLOSED);
+    }
+
+    /**
+     * Queues an action on the mailbox of the given lobby
+     * @param lobbyId the lobby the action belongs to
+     * @param action the action to run, it is executed on the lobby's mailbox only
+     * @return a future completed with the result of the action
+     */
+    public CompletableFuture<ActionResult> submit(String lobbyId, Supplier<ActionResult> action) {
+        return execute(lobbyId, action);
+    }
+
+    /**
+     * Queues any task on the mailbox of the given lobby, for work that has to see the game
+     * between two actions, like reading a consistent snapshot.
+     * @return a future completed with the value of the task, or failed with a
+     * {@link RejectedExecutionException} if the lobby was removed
+     */
+    public <T> CompletableFuture<T> execute(String lobbyId, Supplier<T> task) {
+        return mailboxes.computeIfAbsent(lobbyId, Mailbox::new).submit(task);
+    }
+
+    /**
+     * Closes the mailbox of a lobby. Actions already queued still run, later ones are rejected, also after the
+     * mailbox has drained, so a late submit can never start a second writer on the game or revive the lobby.
+     * The id stays rejected until {@link #open} hands it to a new lobby.
+     */
+    public void remove(String lobbyId) {
+        Mailbox mailbox = mailboxes.computeIfAbsent(lobbyId, id -> removed);
+        if (mailbox != removed) {
+            mailbox.close();
+        }
+    }
+
+    /**
+     * Accepts actions for a lobby id again after it was removed, for a new lobby that reuses the code.
+     * @throws IllegalStateException if the removed lobby's mailbox is still draining
+     */
+    public void open(String lobbyId) {
+        Mailbox mailbox = mailboxes.get(lobbyId);
+        if (mailbox != null && mailbox != removed && (mailbox.state.get() & Mailbox.CLOSED) != 0) {
+            throw new IllegalStateException("Lobby " + lobbyId + " is still draining");
+        }
+        mailboxes.remove(lobbyId, removed);
+    }
+
+    public int getQueueDepth(String lobbyId) {
+        Mailbox mailbox = mailboxes.get(lobbyId);
+        return mailbox == null ? 0 : mailbox.depth.get();
+    }
+
+    public long getProcessedCount(String lobbyId) {
+        Mailbox mailbox = mailboxes.get(lobbyId);
+        return mailbox == null ? 0 : mailbox.processed.sum();
+    }
+
+    /**
+     * @return the mean time in nanoseconds between submitting an action and its completion
+     */
+    public long getAverageLatencyNanos(String lobbyId) {
+        Mailbox mailbox = mailboxes.get(lobbyId);
+        if (mailbox == null) {
+            return 0;
+        }
+        long processed = mailbox.processed.sum();
+        return processed == 0 ? 0 : mailbox.totalLatencyNanos.sum() / processed;
+    }
+
+    /**
+     * @return the time in nanoseconds the most recent action spent queued and running
+     */
+    public long getLastLatencyNanos(String lobbyId) {
+        Mailbox mailbox = mailboxes.get(lobbyId);
+        return mailbox == null ? 0 : mailbox.lastLatencyNanos;
+    }
+
+    private final class Mailbox {
+        private static final int CLOSED = 1;
+        // number of queued and running tasks times two, plus CLOSED once the lobby is removed
+        private final AtomicInteger state = new AtomicInteger();
+        private final String lobbyId;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicInteger depth = new AtomicInteger();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder totalLatencyNanos = new LongAdder();
+        private volatile long lastLatencyNanos;
+
+        Mailbox(String lobbyId) {
+            this.lobbyId = lobbyId;
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> action) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            if ((state.getAndUpdate(current -> (current & CLOSED) != 0 ? current : current + 2) & CLOSED) != 0) {
+                future.completeExceptionally(new RejectedExecutionException("Lobby was removed"));
+                return future;
+            }
+            long submittedAt = System.nanoTime();
+            depth.incrementAndGet();
+            queue.add(() -> {
+                T result = null;
+                Throwable failure = null;
+                try {
+                    result = action.get();
+                } catch (Throwable e) {
+                    // errors too, a future left incomplete would block its caller forever
+                    failure = e;
+                }
+                // record before completing, so callers see the metrics of their own action
+                long latency = System.nanoTime() - submittedAt;
+                lastLatencyNanos = latency;
+                totalLatencyNanos.add(latency);
+                processed.increment();
+                if (state.addAndGet(-2) == CLOSED) {
+                    mailboxes.replace(lobbyId, this, removed);
+                }
+                if (failure == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            });
+            schedule();
+            return future;
+        }
+
+        void close() {
+            // the last task to finish replaces a closed mailbox, or the close itself if none is pending
+            if (state.getAndUpdate(current -> current | CLOSED) == 0) {
+                mailboxes.replace(lobbyId, this, removed);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            Runnable task;
+            int executed = 0;
+            try {
+                while (executed < MAX_ACTIONS_PER_DRAIN && (task = queue.poll()) != null) {
+                    depth.decrementAndGet();
+                    task.run();
+                    executed++;
+                }
+            } finally {
+                scheduled.set(false);
+                // either the batch limit was hit or a submit enqueued after the last poll but before the flag was cleared
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
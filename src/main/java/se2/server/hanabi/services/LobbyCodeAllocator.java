@@ -0,0 +1,187 @@
+package se2.server.hanabi.services;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out lobby codes that are unique by construction.
+ * A monotonically increasing counter is mapped through a keyed Feistel permutation onto the
+ * code space, so consecutive lobbies get unrelated looking codes and minting never has to
+ * check for collisions. Released codes are reused only after a quarantine period, so a stale
+ * client cannot end up in a fresh lobby that happens to get its old code.
+ */
+public class LobbyCodeAllocator {
+    public static final int DEFAULT_LENGTH = 6;
+    public static final long DEFAULT_QUARANTINE_MILLIS = 60 * 60 * 1000L;
+
+    private static final int ROUNDS = 6;
+
+    private final int length;
+    // number of values of length / 2 characters, one Feistel half each
+    private final long halfSpace;
+    private final long space;
+    private final long[] roundKeys = new long[ROUNDS];
+    private final long quarantineMillis;
+    private final AtomicLong counter = new AtomicLong();
+    private final Deque<ReleasedCode> quarantine = new ArrayDeque<>();
+    // lets allocate() skip the quarantine lock while nothing has been released
+    private volatile int quarantined;
+
+    public LobbyCodeAllocator() {
+        this(DEFAULT_LENGTH, DEFAULT_QUARANTINE_MILLIS, new SecureRandom().nextLong());
+    }
+
+    /**
+     * @param length the number of characters of a code, must be even
+     * @param quarantineMillis how long a released code is held back before it is handed out again
+     * @param key the key of the permutation
+     */
+    public LobbyCodeAllocator(int length, long quarantineMillis, long key) {
+        if (length <= 0 || length % 2 != 0) {
+            throw new IllegalArgumentException("Code length must be positive and even: " + length);
+        }
+        this.length = length;
+        this.halfSpace = pow(LobbyCodeGenerator.CHARACTERS.length(), length / 2);
+        this.space = halfSpace * halfSpace;
+        this.quarantineMillis = quarantineMillis;
+
+        long state = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[i] = mix(state);
+        }
+    }
+
+    public String allocate() {
+        return allocate(System.currentTimeMillis());
+    }
+
+    /**
+     * @throws IllegalStateException if every code is in use or still in quarantine
+     */
+    public String allocate(long nowMillis) {
+        Long recycled = pollQuarantine(nowMillis);
+        if (recycled != null) {
+            return encode(recycled);
+        }
+
+        long sequence = counter.getAndIncrement();
+        if (sequence >= space) {
+            counter.decrementAndGet();
+            throw new IllegalStateException("Lobby code space exhausted");
+        }
+        return encode(permute(sequence));
+    }
+
+    public void release(String code) {
+        release(code, System.currentTimeMillis());
+    }
+
+    public void release(String code, long nowMillis) {
+        long index = toIndex(code);
+        if (index < 0) {
+            return;
+        }
+        synchronized (quarantine) {
+            quarantine.addLast(new ReleasedCode(index, nowMillis));
+            quarantined = quarantine.size();
+        }
+    }
+
+    /**
+     * @return the number of distinct codes this allocator can hand out
+     */
+    public long getCapacity() {
+        return space;
+    }
+
+    private Long pollQuarantine(long nowMillis) {
+        if (quarantined == 0) {
+            return null;
+        }
+        synchronized (quarantine) {
+            ReleasedCode oldest = quarantine.peekFirst();
+            if (oldest == null || nowMillis - oldest.releasedAt < quarantineMillis) {
+                return null;
+            }
+            quarantine.pollFirst();
+            quarantined = quarantine.size();
+            return oldest.index;
+        }
+    }
+
+    /**
+     * Balanced Feistel network over Z_halfSpace x Z_halfSpace. Every round is invertible, so the
+     * whole permutation is a bijection on [0, space) and needs no cycle walking.
+     */
+    private long permute(long value) {
+        long left = value / halfSpace;
+        long right = value % halfSpace;
+        for (long roundKey : roundKeys) {
+            long next = Math.floorMod(left + round(right, roundKey), halfSpace);
+            left = right;
+            right = next;
+        }
+        return left * halfSpace + right;
+    }
+
+    private static long round(long half, long roundKey) {
+        return mix(half * 0x9E3779B97F4A7C15L ^ roundKey);
+    }
+
+    // finalizer of SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private String encode(long index) {
+        String alphabet = LobbyCodeGenerator.CHARACTERS;
+        char[] code = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            code[i] = alphabet.charAt((int) (index % alphabet.length()));
+            index /= alphabet.length();
+        }
+        return new String(code);
+    }
+
+    /**
+     * @return the position of the code in the code space, or -1 if it is not a valid code
+     */
+    long toIndex(String code) {
+        if (code == null || code.length() != length) {
+            return -1;
+        }
+        String alphabet = LobbyCodeGenerator.CHARACTERS;
+        long index = 0;
+        for (int i = 0; i < code.length(); i++) {
+            int digit = alphabet.indexOf(code.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            index = index * alphabet.length() + digit;
+        }
+        return index;
+    }
+
+    private static long pow(long base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    private static final class ReleasedCode {
+        private final long index;
+        private final long releasedAt;
+
+        private ReleasedCode(long index, long releasedAt) {
+            this.index = index;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
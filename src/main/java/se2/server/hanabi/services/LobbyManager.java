@@ -1,29 +1,81 @@
 package se2.server.hanabi.services;
 
 import org.springframework.stereotype.Service;
+import se2.server.hanabi.api.LobbyPage;
+import se2.server.hanabi.api.LobbySummary;
 import se2.server.hanabi.game.GameManager;
 import se2.server.hanabi.model.Lobby;
 import se2.server.hanabi.model.Player;
+import se2.server.hanabi.util.GameRules;
+import se2.server.hanabi.util.HashedTimingWheel;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Registry of all lobbies on this server.
+ * Backed by a {@link ConcurrentHashMap}, so lookups never block and writers only contend
+ * on the bin of the lobby code they touch. Changes to a single lobby are serialized on the lobby's lock.
+ * Idle lobbies are evicted through a {@link HashedTimingWheel}, see {@link #evictExpiredLobbies(long)}.
+ * Listings are served from sorted {@link LobbySummary} indexes, see {@link #listLobbies}.
+ */
 @Service
 public class LobbyManager {
 
-    private final Map<String, Lobby> lobbies = new HashMap<>();
+    private final ConcurrentMap<String, Lobby> lobbies = new ConcurrentHashMap<>();
+    // summaries of all lobbies and of the joinable ones only, sorted by id for cursor pagination
+    private final ConcurrentNavigableMap<String, LobbySummary> summaries = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, LobbySummary> openLobbies = new ConcurrentSkipListMap<>();
+    private final AtomicLong indexVersion = new AtomicLong();
+    private final GameActionExecutor actionExecutor;
+    private final LobbyCodeAllocator codeAllocator;
+    private final LobbyTimeouts timeouts;
+    private final HashedTimingWheel<String> evictionWheel;
+    private final LongAdder evictedLobbies = new LongAdder();
 
-    public String createLobby() {
-        String uniqueCode = generateUniqueCode();
-        Lobby lobby = new Lobby(uniqueCode);
-        lobbies.put(lobby.getId(), lobby);
-        return uniqueCode;
+    public static final long EVICTION_TICK_MILLIS = 1000;
+    private static final int EVICTION_WHEEL_SLOTS = 1024;
+
+    public LobbyManager() {
+        this(new GameActionExecutor());
+    }
+
+    public LobbyManager(GameActionExecutor actionExecutor) {
+        this(actionExecutor, LobbyTimeouts.defaults());
+    }
+
+    public LobbyManager(GameActionExecutor actionExecutor, LobbyTimeouts timeouts) {
+        this(actionExecutor, timeouts, new LobbyCodeAllocator());
+    }
+
+    public LobbyManager(GameActionExecutor actionExecutor, LobbyTimeouts timeouts, LobbyCodeAllocator codeAllocator) {
+        this.actionExecutor = actionExecutor;
+        this.codeAllocator = codeAllocator;
+        this.timeouts = timeouts;
+        this.evictionWheel = new HashedTimingWheel<>(EVICTION_TICK_MILLIS, EVICTION_WHEEL_SLOTS, System.currentTimeMillis());
     }
 
-    private String generateUniqueCode() {
-        String code;
-        do {
-            code = LobbyCodeGenerator.generateLobbyCode();
-        } while (lobbies.containsKey(code));
+    public String createLobby() {
+        // the allocator never hands out a code twice, putIfAbsent only guards against misuse
+        String code = codeAllocator.allocate();
+        // a reused code belonged to a removed lobby, whose mailbox rejects actions until it is opened again
+        actionExecutor.open(code);
+        Lobby lobby = new Lobby(code);
+        if (lobbies.putIfAbsent(code, lobby) != null) {
+            throw new IllegalStateException("Lobby code allocated twice: " + code);
+        }
+        lobby.getLock().lock();
+        try {
+            updateSummary(lobby);
+        } finally {
+            lobby.getLock().unlock();
+        }
+        evictionWheel.schedule(code, lobby.getLastActivityMillis() + timeouts.getPregameTtlMillis());
         return code;
     }
 
@@ -33,18 +85,24 @@ public class LobbyManager {
 
     public int joinLobby(String id, String playerName, int avatarResID) {
         Lobby lobby = lobbies.get(id);
-        if (lobby == null || lobby.isGameStarted()) {
+        if (lobby == null) {
             return -1;
         }
 
-        List<Player> players = lobby.getPlayers();
-        if (players.size() >= 5) {
-            return -1;
-        }
+        lobby.getLock().lock();
+        try {
+            if (lobby.isGameStarted() || lobby.getPlayers().size() >= GameRules.MAX_PLAYERS) {
+                return -1;
+            }
 
-        Player newPlayer = new Player(playerName, avatarResID);
-        players.add(newPlayer);
-        return newPlayer.getId();
+            Player newPlayer = new Player(playerName, avatarResID);
+            lobby.getPlayers().add(newPlayer);
+            lobby.touch();
+            updateSummary(lobby);
+            return newPlayer.getId();
+        } finally {
+            lobby.getLock().unlock();
+        }
     }
 
     public Collection<Lobby> getAllLobbies() {
@@ -53,11 +111,22 @@ public class LobbyManager {
     
     public boolean startGame(String lobbyId, Boolean isCasaulMode) {
         Lobby lobby = lobbies.get(lobbyId);
-        if (lobby == null || lobby.isGameStarted()) {
+        if (lobby == null) {
             return false;
         }
-        
-        return lobby.startGame(isCasaulMode);
+
+        lobby.getLock().lock();
+        try {
+            if (lobby.isGameStarted()) {
+                return false;
+            }
+            lobby.touch();
+            boolean started = lobby.startGame(isCasaulMode);
+            updateSummary(lobby);
+            return started;
+        } finally {
+            lobby.getLock().unlock();
+        }
     }
 
     public boolean startGame(String lobbyId) {
@@ -70,11 +139,19 @@ public class LobbyManager {
             return null;
         }
         
+        lobby.touch();
         return lobby.getGameManager();
     }
     
     public boolean removeLobby(String lobbyId) {
-        return lobbies.remove(lobbyId) != null;
+        Lobby lobby = lobbies.remove(lobbyId);
+        if (lobby == null) {
+            return false;
+        }
+        removeSummary(lobby);
+        actionExecutor.remove(lobbyId);
+        codeAllocator.release(lobbyId);
+        return true;
     }
 
     public boolean leaveLobby(String lobbyId, int playerId){
@@ -82,9 +159,161 @@ public class LobbyManager {
         if (lobby == null){
             return false;
         }
-        return lobby.removePlayerId(playerId);
+        lobby.getLock().lock();
+        try {
+            lobby.touch();
+            boolean removed = lobby.removePlayerId(playerId);
+            updateSummary(lobby);
+            return removed;
+        } finally {
+            lobby.getLock().unlock();
+        }
     }
 
-}
+    public void sessionOpened(String lobbyId) {
+        Lobby lobby = lobbies.get(lobbyId);
+        if (lobby != null) {
+            lobby.sessionOpened();
+        }
+    }
 
+    public void sessionClosed(String lobbyId) {
+        Lobby lobby = lobbies.get(lobbyId);
+        if (lobby != null) {
+            lobby.sessionClosed();
+        }
+    }
 
+    /**
+     * Advances the eviction wheel and removes every lobby that has been idle longer than its timeout.
+     * Only the lobbies whose deadline falls into the elapsed ticks are looked at; lobbies that were
+     * used in the meantime are rescheduled to their new deadline.
+     * Must be called from a single thread.
+     * @param nowMillis the current time
+     * @return the number of lobbies evicted
+     */
+    public int evictExpiredLobbies(long nowMillis) {
+        int before = evictedLobbies.intValue();
+        evictionWheel.advance(nowMillis, lobbyId -> evictIfIdle(lobbyId, nowMillis));
+        return evictedLobbies.intValue() - before;
+    }
+
+    private void evictIfIdle(String lobbyId, long nowMillis) {
+        Lobby lobby = lobbies.get(lobbyId);
+        if (lobby == null) {
+            return;
+        }
+
+        lobby.getLock().lock();
+        try {
+            Long ttl = idleTimeoutFor(lobby);
+            if (ttl == null) {
+                // running game with connected players, look at it again later
+                evictionWheel.schedule(lobbyId, nowMillis + timeouts.getDisconnectedTtlMillis());
+                return;
+            }
+            long deadline = lobby.getLastActivityMillis() + ttl;
+            if (deadline > nowMillis) {
+                evictionWheel.schedule(lobbyId, deadline);
+                return;
+            }
+            // still under the lock, so a join, start or leave cannot touch the lobby between the check and the removal
+            if (lobbies.remove(lobbyId, lobby)) {
+                removeSummary(lobby);
+                actionExecutor.remove(lobbyId);
+                codeAllocator.release(lobbyId);
+                evictedLobbies.increment();
+            }
+        } finally {
+            lobby.getLock().unlock();
+        }
+    }
+
+    private Long idleTimeoutFor(Lobby lobby) {
+        if (!lobby.isGameStarted()) {
+            return timeouts.getPregameTtlMillis();
+        }
+        if (lobby.getGameManager().isGameOver()) {
+            return timeouts.getFinishedTtlMillis();
+        }
+        if (lobby.getConnectedSessionCount() == 0) {
+            return timeouts.getDisconnectedTtlMillis();
+        }
+        return null;
+    }
+
+    /**
+     * Reads one page of lobby summaries, ordered by lobby id.
+     * Only the requested page is touched (plus lobbies skipped by the player count filter),
+     * independent of how many lobbies the server holds.
+     * @param cursor id of the last lobby of the previous page, null for the first page
+     * @param limit maximum number of lobbies on the page
+     * @param openOnly only list lobbies that can still be joined
+     * @param minPlayers lower bound of the player count, null for none
+     * @param maxPlayers upper bound of the player count, null for none
+     */
+    public LobbyPage listLobbies(String cursor, int limit, boolean openOnly, Integer minPlayers, Integer maxPlayers) {
+        long version = indexVersion.get();
+        ConcurrentNavigableMap<String, LobbySummary> index = openOnly ? openLobbies : summaries;
+        if (cursor != null) {
+            index = index.tailMap(cursor, false);
+        }
+
+        List<LobbySummary> page = new ArrayList<>(Math.min(limit, 64));
+        String nextCursor = null;
+        for (LobbySummary summary : index.values()) {
+            if ((minPlayers != null && summary.getPlayerCount() < minPlayers)
+                    || (maxPlayers != null && summary.getPlayerCount() > maxPlayers)) {
+                continue;
+            }
+            if (page.size() == limit) {
+                nextCursor = page.get(page.size() - 1).getId();
+                break;
+            }
+            page.add(summary);
+        }
+        return new LobbyPage(page, nextCursor, version);
+    }
+
+    /**
+     * @return a number that changes whenever any lobby summary changes
+     */
+    public long getLobbyIndexVersion() {
+        return indexVersion.get();
+    }
+
+    // callers hold the lobby's lock, so summaries of one lobby are written in order
+    private void updateSummary(Lobby lobby) {
+        if (lobbies.get(lobby.getId()) != lobby) {
+            return;
+        }
+        LobbySummary summary = LobbySummary.of(lobby);
+        summaries.put(lobby.getId(), summary);
+        if (!summary.isGameStarted() && summary.getPlayerCount() < GameRules.MAX_PLAYERS) {
+            openLobbies.put(lobby.getId(), summary);
+        } else {
+            openLobbies.remove(lobby.getId());
+        }
+        indexVersion.incrementAndGet();
+    }
+
+    private void removeSummary(Lobby lobby) {
+        lobby.getLock().lock();
+        try {
+            summaries.remove(lobby.getId());
+            openLobbies.remove(lobby.getId());
+        } finally {
+            lobby.getLock().unlock();
+        }
+        indexVersion.incrementAndGet();
+    }
+
+    public int getLiveLobbyCount() {
+        return lobbies.size();
+    }
+
+    public long getEvictedLobbyCount() {
+        return evictedLobbies.sum();
+    }
+
+}
@@ -0,0 +1,33 @@
+package se2.server.hanabi.services;
+
+import lombok.Getter;
+
+/**
+ * Idle times after which {@link LobbyManager} evicts a lobby
+ */
+@Getter
+public class LobbyTimeouts {
+    public static final long DEFAULT_PREGAME_TTL_MILLIS = 30 * 60 * 1000L;
+    public static final long DEFAULT_FINISHED_TTL_MILLIS = 10 * 60 * 1000L;
+    public static final long DEFAULT_DISCONNECTED_TTL_MILLIS = 15 * 60 * 1000L;
+
+    // lobbies that have not started a game yet
+    private final long pregameTtlMillis;
+    // lobbies whose game is over
+    private final long finishedTtlMillis;
+    // running games without any connected WebSocket session
+    private final long disconnectedTtlMillis;
+
+    public LobbyTimeouts(long pregameTtlMillis, long finishedTtlMillis, long disconnectedTtlMillis) {
+        if (pregameTtlMillis <= 0 || finishedTtlMillis <= 0 || disconnectedTtlMillis <= 0) {
+            throw new IllegalArgumentException("Lobby timeouts must be positive");
+        }
+        this.pregameTtlMillis = pregameTtlMillis;
+        this.finishedTtlMillis = finishedTtlMillis;
+        this.disconnectedTtlMillis = disconnectedTtlMillis;
+    }
+
+    public static LobbyTimeouts defaults() {
+        return new LobbyTimeouts(DEFAULT_PREGAME_TTL_MILLIS, DEFAULT_FINISHED_TTL_MILLIS, DEFAULT_DISCONNECTED_TTL_MILLIS);
+    }
+}
@@ -0,0 +1,15 @@
+package se2.server.hanabi.services;
+
+/**
+ * Pushes the changes of a lobby's game to its connected clients.
+ */
+@FunctionalInterface
+public interface StatePublisher {
+
+    StatePublisher NONE = lobbyId -> { };
+
+    /**
+     * Sends everything that changed since the last push as one update; must be called on the lobby's mailbox
+     */
+    void publish(String lobbyId);
+}
@@ -0,0 +1,128 @@
+package se2.server.hanabi.simulation;
+
+import se2.server.hanabi.game.GameSnapshot;
+import se2.server.hanabi.game.commands.GameCommand;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Player;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Strategies that ship with the simulator, for regression runs and as baselines for bots.
+ */
+public enum BuiltInStrategy implements Strategy {
+
+    /**
+     * Picks a random move; the simulator asks again until it picks a legal one
+     */
+    RANDOM {
+        @Override
+        public GameCommand nextMove(GameSnapshot game, SplittableRandom random) {
+            int me = game.getCurrentPlayerId();
+            int handSize = Math.max(1, game.getHands().get(me).size());
+            int choice = random.nextInt(3);
+            if (choice == 0) {
+                return new GameCommand.Play(me, random.nextInt(handSize));
+            }
+            if (choice == 1) {
+                return new GameCommand.Discard(me, random.nextInt(handSize));
+            }
+            int target = playerAfter(game, me, 1 + random.nextInt(game.getPlayers().size() - 1));
+            return random.nextBoolean()
+                    ? GameCommand.Hint.color(me, target, Card.Color.values()[random.nextInt(Card.Color.values().length)])
+                    : GameCommand.Hint.value(me, target, GameRules.MIN_CARD_VALUE + random.nextInt(GameRules.MAX_CARD_VALUE));
+        }
+    },
+
+    /**
+     * Plays a hinted card, otherwise hints the next player a card they can play, otherwise discards its oldest card.
+     * A hint always means "play this", so only hints that match nothing but playable cards are given.
+     */
+    HINT_AND_PLAY {
+        @Override
+        public GameCommand nextMove(GameSnapshot game, SplittableRandom random) {
+            int me = game.getCurrentPlayerId();
+            List<Card> hand = game.getHands().get(me);
+            for (int slot = 0; slot < hand.size(); slot++) {
+                if (isHinted(game, hand.get(slot))) {
+                    return new GameCommand.Play(me, slot);
+                }
+            }
+            if (game.getNumRemainingHintTokens() > 0) {
+                GameCommand hint = hintPlayableCard(game, me, playerAfter(game, me, 1));
+                if (hint != null) {
+                    return hint;
+                }
+            }
+            if (game.getNumRemainingHintTokens() < GameRules.MAX_HINT_TOKENS) {
+                return new GameCommand.Discard(me, 0);
+            }
+            GameCommand stall = stall(game, me);
+            // all hint tokens left and nothing worth hinting, play blind
+            return stall != null ? stall : new GameCommand.Play(me, 0);
+        }
+
+        // a hint that lasts one turn is gone before the player after next moves, so it only spends a token
+        private GameCommand stall(GameSnapshot game, int me) {
+            int hintTurns = game.getNumTurnsHintsLast();
+            if (game.getPlayers().size() < 3 || hintTurns < 0 || hintTurns > 1) {
+                return null;
+            }
+            int target = playerAfter(game, me, 2);
+            List<Card> hand = game.getHands().get(target);
+            return hand.isEmpty() ? null : GameCommand.Hint.value(me, target, hand.get(0).getValue());
+        }
+
+        private GameCommand hintPlayableCard(GameSnapshot game, int me, int target) {
+            for (Card card : game.getHands().get(target)) {
+                if (!isPlayable(game, card) || isHinted(game, card)) {
+                    continue;
+                }
+                if (onlyPlayableMatches(game, target, card, false)) {
+                    return GameCommand.Hint.value(me, target, card.getValue());
+                }
+                if (onlyPlayableMatches(game, target, card, true)) {
+                    return GameCommand.Hint.color(me, target, card.getColor());
+                }
+            }
+            return null;
+        }
+
+        // a second copy of a playable card is not playable any more once the first one is played
+        private boolean onlyPlayableMatches(GameSnapshot game, int target, Card hinted, boolean byColor) {
+            int seenFaces = 0;
+            for (Card card : game.getHands().get(target)) {
+                if (byColor ? card.getColor() != hinted.getColor() : card.getValue() != hinted.getValue()) {
+                    continue;
+                }
+                int face = 1 << (card.getColor().ordinal() * GameRules.MAX_CARD_VALUE + card.getValue() - 1);
+                if (!isPlayable(game, card) || (seenFaces & face) != 0) {
+                    return false;
+                }
+                seenFaces |= face;
+            }
+            return true;
+        }
+    };
+
+    private static boolean isHinted(GameSnapshot game, Card card) {
+        return game.getCardsShowingColorHints().containsKey(card.getId()) || game.getCardsShowingValueHints().containsKey(card.getId());
+    }
+
+    private static boolean isPlayable(GameSnapshot game, Card card) {
+        return game.getPlayedCards().getOrDefault(card.getColor(), 0) == card.getValue() - 1;
+    }
+
+    // the id of the player the given number of seats after the player
+    private static int playerAfter(GameSnapshot game, int playerId, int seats) {
+        List<Player> players = game.getPlayers();
+        for (int seat = 0; seat < players.size(); seat++) {
+            if (players.get(seat).getId() == playerId) {
+                return players.get((seat + seats) % players.size()).getId();
+            }
+        }
+        throw new IllegalArgumentException("Player " + playerId + " is not in the game");
+    }
+}
@@ -0,0 +1,146 @@
+package se2.server.hanabi.simulation;
+
+import se2.server.hanabi.game.GameLogger;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.game.GameReplay;
+import se2.server.hanabi.game.GameSnapshot;
+import se2.server.hanabi.game.commands.GameCommand;
+import se2.server.hanabi.model.Player;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays complete games headless, without Spring and with logging disabled.
+ * Every move runs through {@link GameManager} like a player's action, so a change to the rules shows up
+ * in the results, and games are spread over the cores with fork/join. A run is reproducible: the same
+ * seed and number of games deal the same decks, whatever the number of threads.
+ */
+public class GameSimulator {
+
+    // games per fork/join leaf; every leaf has its own players and random stream
+    static final long LEAF_SIZE = 1024;
+    // moves the strategy may propose per turn before the game counts as stalled
+    static final int MAX_ATTEMPTS_PER_TURN = 100;
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final int playerCount;
+    private final Strategy strategy;
+    private final boolean casualMode;
+    private final ForkJoinPool pool;
+
+    public GameSimulator(int playerCount, Strategy strategy, boolean casualMode) {
+        this(playerCount, strategy, casualMode, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param casualMode true for persistent hints, false for hints that expire like in a regular game
+     * @param pool the pool the games run on
+     */
+    public GameSimulator(int playerCount, Strategy strategy, boolean casualMode, ForkJoinPool pool) {
+        if (!GameRules.isPlayerCountValid(playerCount)) {
+            throw new IllegalArgumentException("Invalid number of players: " + playerCount);
+        }
+        this.playerCount = playerCount;
+        this.strategy = strategy;
+        this.casualMode = casualMode;
+        this.pool = pool;
+    }
+
+    /**
+     * Plays the given number of games
+     * @param seed the seed all decks are shuffled from
+     */
+    public SimulationResult run(long games, long seed) {
+        if (games < 0) {
+            throw new IllegalArgumentException("Number of games must not be negative: " + games);
+        }
+        long start = System.nanoTime();
+        SimulationResult result = pool.invoke(new Games(0, games, seed));
+        return result.withElapsedNanos(System.nanoTime() - start);
+    }
+
+    private SimulationResult playLeaf(long from, long to, long seed) {
+        List<Player> players = GameReplay.placeholderPlayers(playerCount);
+        SplittableRandom random = new SplittableRandom(seed + from * SEED_STEP);
+        long[] scoreCounts = new long[GameRules.MAX_SCORE + 1];
+        long lost = 0;
+        long stalled = 0;
+        long turns = 0;
+        for (long i = from; i < to; i++) {
+            GameManager game = GameManager.createNewGame(players, casualMode, random.nextLong(), GameLogger.disabled());
+            while (!game.isGameOver()) {
+                if (!takeTurn(game, random)) {
+                    stalled++;
+                    break;
+                }
+            }
+            GameSnapshot end = game.getSnapshot();
+            if (end.isGameLost()) {
+                lost++;
+            }
+            scoreCounts[end.getCurrentScore()]++;
+            turns += end.getTurnCounter();
+        }
+        return new SimulationResult(to - from, lost, stalled, turns, scoreCounts, 0);
+    }
+
+    // runs the strategy's moves until one ends the turn; false if none did
+    private boolean takeTurn(GameManager game, SplittableRandom random) {
+        int turn = game.getSnapshot().getTurnCounter();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS_PER_TURN; attempt++) {
+            GameCommand move = strategy.nextMove(game.getSnapshot(), random);
+            if (move == null) {
+                return false;
+            }
+            game.execute(move);
+            if (game.isGameOver() || game.getSnapshot().getTurnCounter() != turn) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class Games extends RecursiveTask<SimulationResult> {
+        private final long from;
+        private final long to;
+        private final long seed;
+
+        private Games(long from, long to, long seed) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (to - from <= LEAF_SIZE) {
+                return playLeaf(from, to, seed);
+            }
+            // split on a multiple of the leaf size, so the leaves and their random streams do not depend on the pool
+            long leaves = (to - from + LEAF_SIZE - 1) / LEAF_SIZE;
+            long middle = from + (leaves / 2) * LEAF_SIZE;
+            Games right = new Games(middle, to, seed);
+            right.fork();
+            SimulationResult left = new Games(from, middle, seed).compute();
+            return SimulationResult.merge(left, right.join());
+        }
+    }
+
+    /**
+     * Runs a simulation from the command line: [games] [players] [strategy] [casual]
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        BuiltInStrategy strategy = args.length > 2 ? BuiltInStrategy.valueOf(args[2].toUpperCase()) : BuiltInStrategy.HINT_AND_PLAY;
+        boolean casual = args.length > 3 && Boolean.parseBoolean(args[3]);
+        long seed = new SplittableRandom().nextLong();
+
+        System.out.println("Simulating " + games + " games, " + players + " players, " + strategy + " strategy, seed " + seed);
+        System.out.println(new GameSimulator(players, strategy, casual).run(games, seed));
+    }
+}
@@ -0,0 +1,80 @@
+package se2.server.hanabi.simulation;
+
+import se2.server.hanabi.game.ActionLog;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.game.GameReplay;
+import se2.server.hanabi.game.GameSnapshot;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Replays archived games with the current rules and reports every game whose outcome differs from
+ * the one recorded when it was played, e.g. to check that a change to the actions keeps old games intact.
+ * Games are replayed in parallel on a fork/join pool.
+ */
+public class ReplayVerifier {
+
+    /**
+     * How a game ended, or where it stood when it was archived
+     */
+    public record Outcome(int score, int strikes, int hintTokens, int discards, int turns, boolean gameOver, boolean gameLost) {
+        public static Outcome of(GameSnapshot snapshot) {
+            return new Outcome(snapshot.getCurrentScore(), snapshot.getStrikes(), snapshot.getNumRemainingHintTokens(),
+                    snapshot.getDiscardPile().size(), snapshot.getTurnCounter(), snapshot.isGameOver(), snapshot.isGameLost());
+        }
+    }
+
+    /**
+     * @param actionLog the game's action log as written by {@link ActionLog#toBytes()}
+     */
+    public record ArchivedGame(byte[] actionLog, Outcome outcome) {
+        /**
+         * Archives a game as it is now; must run on the game's mailbox
+         */
+        public static ArchivedGame of(GameManager game) {
+            return new ArchivedGame(game.getActionLog().toBytes(), Outcome.of(game.getSnapshot()));
+        }
+    }
+
+    /**
+     * @param actual the outcome of the replay, null if it failed
+     * @param error why the replay failed, null if it ran
+     */
+    public record Mismatch(int index, Outcome expected, Outcome actual, String error) {
+    }
+
+    private final ForkJoinPool pool;
+
+    public ReplayVerifier() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ReplayVerifier(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return the games whose replay ended differently, in archive order; empty if all match
+     */
+    public List<Mismatch> verify(List<ArchivedGame> games) {
+        // a parallel stream started from inside the pool runs on that pool
+        return pool.submit(() -> IntStream.range(0, games.size()).parallel()
+                .mapToObj(index -> check(index, games.get(index)))
+                .filter(Objects::nonNull)
+                .toList()).join();
+    }
+
+    private static Mismatch check(int index, ArchivedGame game) {
+        Outcome actual;
+        try {
+            ActionLog log = ActionLog.fromBytes(game.actionLog());
+            actual = Outcome.of(GameReplay.replay(GameReplay.placeholderPlayers(log.getSeatCount()), log).getSnapshot());
+        } catch (RuntimeException e) {
+            return new Mismatch(index, game.outcome(), null, e.toString());
+        }
+        return actual.equals(game.outcome()) ? null : new Mismatch(index, game.outcome(), actual, null);
+    }
+}
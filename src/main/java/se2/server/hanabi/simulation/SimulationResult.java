@@ -0,0 +1,100 @@
+package se2.server.hanabi.simulation;
+
+import se2.server.hanabi.util.GameRules;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a simulation run: how many games ended how, the score distribution and the throughput.
+ */
+public final class SimulationResult {
+    private final long games;
+    private final long lostGames;
+    private final long stalledGames;
+    private final long totalTurns;
+    // index = score
+    private final long[] scoreCounts;
+    private final long elapsedNanos;
+
+    SimulationResult(long games, long lostGames, long stalledGames, long totalTurns, long[] scoreCounts, long elapsedNanos) {
+        this.games = games;
+        this.lostGames = lostGames;
+        this.stalledGames = stalledGames;
+        this.totalTurns = totalTurns;
+        this.scoreCounts = scoreCounts;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    static SimulationResult merge(SimulationResult a, SimulationResult b) {
+        long[] counts = new long[GameRules.MAX_SCORE + 1];
+        for (int score = 0; score < counts.length; score++) {
+            counts[score] = a.scoreCounts[score] + b.scoreCounts[score];
+        }
+        return new SimulationResult(a.games + b.games, a.lostGames + b.lostGames, a.stalledGames + b.stalledGames,
+                a.totalTurns + b.totalTurns, counts, Math.max(a.elapsedNanos, b.elapsedNanos));
+    }
+
+    SimulationResult withElapsedNanos(long elapsedNanos) {
+        return new SimulationResult(games, lostGames, stalledGames, totalTurns, scoreCounts, elapsedNanos);
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return the games that ended with the maximum number of strikes
+     */
+    public long getLostGames() {
+        return lostGames;
+    }
+
+    /**
+     * @return the games stopped because the strategy did not make a move
+     */
+    public long getStalledGames() {
+        return stalledGames;
+    }
+
+    public long getPerfectGames() {
+        return scoreCounts[GameRules.MAX_SCORE];
+    }
+
+    /**
+     * @return the number of games per final score, index = score
+     */
+    public long[] getScoreDistribution() {
+        return scoreCounts.clone();
+    }
+
+    public double getAverageScore() {
+        if (games == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int score = 0; score < scoreCounts.length; score++) {
+            total += score * scoreCounts[score];
+        }
+        return (double) total / games;
+    }
+
+    public double getAverageTurns() {
+        return games == 0 ? 0 : (double) totalTurns / games;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games in %.2f s (%.0f games/s): average score %.2f, %d perfect, %d lost, %d stalled, %.1f turns per game%n"
+                        + "score distribution %s",
+                games, elapsedNanos / 1e9, getGamesPerSecond(), getAverageScore(), getPerfectGames(), lostGames, stalledGames,
+                getAverageTurns(), Arrays.toString(scoreCounts));
+    }
+}
@@ -0,0 +1,24 @@
+package se2.server.hanabi.simulation;
+
+import se2.server.hanabi.game.GameSnapshot;
+import se2.server.hanabi.game.commands.GameCommand;
+
+import java.util.SplittableRandom;
+
+/**
+ * Decides the moves of simulated players.
+ * One instance is shared by all threads of a simulation, so implementations must not keep mutable state.
+ */
+@FunctionalInterface
+public interface Strategy {
+
+    /**
+     * Chooses the next move of the player whose turn it is. The move runs through GameManager like a
+     * player's action; if the rules reject it, nothing changes and the strategy is asked again.
+     * The snapshot holds every hand; a fair strategy only reads the other players' cards and the hints on its own.
+     * @param game the state after the last move
+     * @param random the random source of the thread running the game
+     * @return the move, null to make none
+     */
+    GameCommand nextMove(GameSnapshot game, SplittableRandom random);
+}
@@ -33,6 +33,13 @@ public class GameRules {
         return playerCount <= 3 ? HAND_SIZE_SMALL_GROUP : HAND_SIZE_LARGE_GROUP;
     }
 
+    public static int getCopiesPerColor(int value) {
+        if (value == MIN_CARD_VALUE) {
+            return 3;
+        }
+        return value == MAX_CARD_VALUE ? 1 : 2;
+    }
+
     public static boolean isValidCardValue(int value) {
         return value >= MIN_CARD_VALUE && value <= MAX_CARD_VALUE;
     }
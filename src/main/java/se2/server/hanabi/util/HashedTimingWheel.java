@@ -0,0 +1,106 @@
+package se2.server.hanabi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for coarse timeouts.
+ * Scheduling is O(1) from any thread; each tick only visits the entries hashed into its slot,
+ * so expiring an entry costs O(1) instead of a scan over everything that is scheduled.
+ * {@link #advance(long, Consumer)} must only be called from a single ticker thread.
+ * @param <T> the type of the scheduled items
+ */
+public class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Queue<Entry<T>>[] slots;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile long lastTick;
+
+    /**
+     * @param tickMillis the resolution of the wheel in milliseconds
+     * @param numSlots the number of slots, rounded up to a power of two
+     * @param startMillis the time the wheel starts at
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int numSlots, long startMillis) {
+        if (tickMillis <= 0 || numSlots <= 0) {
+            throw new IllegalArgumentException("tickMillis and numSlots must be positive");
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, numSlots - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = capacity - 1;
+        this.slots = new Queue[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an item to expire at the given time. Deadlines in the past expire on the next tick.
+     */
+    public void schedule(T item, long deadlineMillis) {
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        deadlineTick = Math.max(deadlineTick, lastTick + 1);
+        slots[(int) (deadlineTick & mask)].add(new Entry<>(item, deadlineTick));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Moves the wheel forward to the given time and hands every expired item to the callback.
+     * @return the number of expired items
+     */
+    public int advance(long nowMillis, Consumer<T> onExpired) {
+        long targetTick = nowMillis / tickMillis;
+        long fromTick = lastTick;
+        if (targetTick <= fromTick) {
+            return 0;
+        }
+        // move first, so items rescheduled from the callback land after this advance
+        lastTick = targetTick;
+
+        // after a full revolution every slot has been visited, so longer jumps need no extra laps
+        int slotsToVisit = (int) Math.min(targetTick - fromTick, slots.length);
+        int expired = 0;
+        List<Entry<T>> notDue = new ArrayList<>();
+        for (int i = 1; i <= slotsToVisit; i++) {
+            Queue<Entry<T>> slot = slots[(int) ((fromTick + i) & mask)];
+            Entry<T> entry;
+            while ((entry = slot.poll()) != null) {
+                if (entry.deadlineTick <= targetTick) {
+                    size.decrementAndGet();
+                    expired++;
+                    onExpired.accept(entry.item);
+                } else {
+                    notDue.add(entry);
+                }
+            }
+            slot.addAll(notDue);
+            notDue.clear();
+        }
+        return expired;
+    }
+
+    /**
+     * @return the number of items currently scheduled
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        private Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
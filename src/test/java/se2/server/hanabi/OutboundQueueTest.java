@@ -0,0 +1,177 @@
+package se2.server.hanabi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboundQueueTest {
+
+    // collects the writer tasks so the test decides when the queue is drained, like a stalled socket
+    private final List<Runnable> pendingWrites = new ArrayList<>();
+    private final Executor manualWriter = pendingWrites::add;
+
+    @Test
+    void send_WritesMessagesInOrder() throws Exception {
+        WebSocketSession session = session();
+        List<String> written = new ArrayList<>();
+        doAnswer(invocation -> written.add(((TextMessage) invocation.getArgument(0)).getPayload()))
+                .when(session).sendMessage(any(WebSocketMessage.class));
+        OutboundQueue queue = new OutboundQueue(session, Runnable::run, 4, OutboundQueue.SlowConsumerPolicy.COALESCE);
+
+        queue.send(new TextMessage("reply"));
+        queue.sendState(new TextMessage("state"));
+
+        assertEquals(List.of("reply", "state"), written);
+        assertEquals(2, queue.getSentCount());
+        assertEquals(0, queue.getQueueDepth());
+        assertTrue(queue.getAverageLatencyNanos() > 0);
+    }
+
+    @Test
+    void coalesce_KeepsOnlyTheNewestStateWhenFull() throws Exception {
+        WebSocketSession session = session();
+        OutboundQueue queue = new OutboundQueue(session, manualWriter, 3, OutboundQueue.SlowConsumerPolicy.COALESCE);
+
+        queue.send(new TextMessage("reply"));
+        queue.sendState(new TextMessage("state1"));
+        queue.sendState(new TextMessage("state2"));
+        queue.sendState(new TextMessage("state3"));
+
+        assertEquals(2, queue.getQueueDepth());
+        assertEquals(2, queue.getDroppedCount());
+        drain();
+        verify(session).sendMessage(new TextMessage("reply"));
+        verify(session).sendMessage(new TextMessage("state3"));
+        verify(session, times(2)).sendMessage(any());
+    }
+
+    @Test
+    void coalesce_ReplacesQueuedDeltasWithOneSnapshot() throws Exception {
+        WebSocketSession session = session();
+        OutboundQueue queue = new OutboundQueue(session, manualWriter, 2, OutboundQueue.SlowConsumerPolicy.COALESCE);
+        TextMessage snapshot = new TextMessage("snapshot3");
+
+        queue.sendState(new TextMessage("delta1"), () -> new TextMessage("snapshot1"));
+        queue.sendState(new TextMessage("delta2"), () -> new TextMessage("snapshot2"));
+        queue.sendState(new TextMessage("delta3"), () -> snapshot);
+        queue.sendState(new TextMessage("delta4"), () -> new TextMessage("snapshot4"));
+
+        assertEquals(2, queue.getQueueDepth());
+        assertEquals(2, queue.getDroppedCount());
+        drain();
+        // the delta after the snapshot builds on it, so nothing in between is missing
+        verify(session).sendMessage(snapshot);
+        verify(session).sendMessage(new TextMessage("delta4"));
+        verify(session, times(2)).sendMessage(any());
+    }
+
+    @Test
+    void coalesce_ReplyAtAQueueFullOfDeltasLeavesNoVersionGap() throws Exception {
+        WebSocketSession session = session();
+        List<String> written = new ArrayList<>();
+        doAnswer(invocation -> written.add(((TextMessage) invocation.getArgument(0)).getPayload()))
+                .when(session).sendMessage(any());
+        OutboundQueue queue = new OutboundQueue(session, manualWriter, 3, OutboundQueue.SlowConsumerPolicy.COALESCE);
+
+        for (int version = 1; version <= 3; version++) {
+            sendDelta(queue, version);
+        }
+        queue.send(new TextMessage("reply"));
+        sendDelta(queue, 4);
+        drain();
+
+        assertTrue(queue.isOpen());
+        assertTrue(written.contains("reply"));
+        // apply like a client: a snapshot sets the version, a delta has to build on the version held
+        long version = 0;
+        for (String payload : written) {
+            String[] parts = payload.split(" ");
+            if (parts[0].equals("delta")) {
+                assertEquals(version, Long.parseLong(parts[1]), "Gap before " + payload + " in " + written);
+                version = Long.parseLong(parts[2]);
+            } else if (parts[0].equals("snapshot")) {
+                version = Long.parseLong(parts[1]);
+            }
+        }
+        assertEquals(4, version);
+    }
+
+    @Test
+    void drop_DiscardsTheOldestStateWhenFull() throws Exception {
+        WebSocketSession session = session();
+        OutboundQueue queue = new OutboundQueue(session, manualWriter, 2, OutboundQueue.SlowConsumerPolicy.DROP);
+
+        queue.sendState(new TextMessage("state1"));
+        queue.sendState(new TextMessage("state2"));
+        queue.sendState(new TextMessage("state3"));
+
+        assertEquals(2, queue.getQueueDepth());
+        assertEquals(1, queue.getDroppedCount());
+        drain();
+        verify(session, never()).sendMessage(new TextMessage("state1"));
+        verify(session).sendMessage(new TextMessage("state2"));
+        verify(session).sendMessage(new TextMessage("state3"));
+    }
+
+    @Test
+    void disconnect_ClosesTheSessionWhenFull() throws Exception {
+        WebSocketSession session = session();
+        OutboundQueue queue = new OutboundQueue(session, manualWriter, 1, OutboundQueue.SlowConsumerPolicy.DISCONNECT);
+
+        queue.sendState(new TextMessage("state1"));
+        queue.sendState(new TextMessage("state2"));
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(queue.isOpen());
+        assertEquals(0, queue.getQueueDepth());
+        drain();
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    void replies_AreNeverDroppedForState() throws Exception {
+        WebSocketSession session = session();
+        OutboundQueue queue = new OutboundQueue(session, manualWriter, 2, OutboundQueue.SlowConsumerPolicy.DROP);
+
+        queue.send(new TextMessage("reply1"));
+        queue.send(new TextMessage("reply2"));
+        queue.sendState(new TextMessage("state"));
+
+        // nothing can make room, so the client is dropped instead of losing a reply
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void constructor_RejectsNonPositiveCapacity() {
+        WebSocketSession session = mock(WebSocketSession.class);
+        assertThrows(IllegalArgumentException.class,
+                () -> new OutboundQueue(session, Runnable::run, 0, OutboundQueue.SlowConsumerPolicy.DROP));
+    }
+
+    private void drain() {
+        while (!pendingWrites.isEmpty()) {
+            pendingWrites.remove(0).run();
+        }
+    }
+
+    private static void sendDelta(OutboundQueue queue, long version) {
+        queue.sendState(new TextMessage("delta " + (version - 1) + " " + version), () -> new TextMessage("snapshot " + version));
+    }
+
+    private static WebSocketSession session() {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("session");
+        return session;
+    }
+}
@@ -0,0 +1,373 @@
+package se2.server.hanabi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.model.Lobby;
+import se2.server.hanabi.services.GameActionExecutor;
+import se2.server.hanabi.services.LobbyManager;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SimpleWebSocketHandlerTest {
+
+    private LobbyManager lobbyManager;
+    private SimpleWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        GameActionExecutor executor = new GameActionExecutor(Runnable::run);
+        lobbyManager = new LobbyManager(executor);
+        handler = new SimpleWebSocketHandler(lobbyManager, executor);
+    }
+
+    @Test
+    void broadcast_OnlyReachesSessionsOfTheSameLobby() throws Exception {
+        String lobbyA = startedLobby();
+        String lobbyB = startedLobby();
+        int[] playersA = playerIds(lobbyA);
+        int[] playersB = playerIds(lobbyB);
+
+        WebSocketSession a0 = connect(lobbyA, playersA[0]);
+        WebSocketSession a1 = connect(lobbyA, playersA[1]);
+        WebSocketSession b0 = connect(lobbyB, playersB[0]);
+        WebSocketSession b1 = connect(lobbyB, playersB[1]);
+
+        handler.handleTextMessage(a0, cheat(lobbyA, playersA[0]));
+
+        // everyone got a snapshot on connect; then the acting player gets the result and the delta, the other player the delta
+        verify(a0, times(3)).sendMessage(any());
+        verify(a1, times(2)).sendMessage(any());
+        verify(b0, times(1)).sendMessage(any());
+        verify(b1, times(1)).sendMessage(any());
+    }
+
+    @Test
+    void close_RemovesOnlyTheClosedSession() throws Exception {
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        WebSocketSession first = connect(lobbyId, players[0]);
+        WebSocketSession second = connect(lobbyId, players[1]);
+        assertEquals(2, lobbyManager.getLobby(lobbyId).getConnectedSessionCount());
+
+        handler.afterConnectionClosed(second, CloseStatus.NORMAL);
+        assertEquals(1, lobbyManager.getLobby(lobbyId).getConnectedSessionCount());
+
+        handler.handleTextMessage(first, cheat(lobbyId, players[0]));
+        verify(second, times(1)).sendMessage(any());
+    }
+
+    @Test
+    void close_OfReplacedSessionKeepsTheReconnectedOne() throws Exception {
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        WebSocketSession stale = connect(lobbyId, players[0]);
+        WebSocketSession reconnected = connect(lobbyId, players[0]);
+
+        handler.afterConnectionClosed(stale, CloseStatus.GOING_AWAY);
+        Lobby lobby = lobbyManager.getLobby(lobbyId);
+        assertEquals(1, lobby.getConnectedSessionCount());
+
+        handler.handleTextMessage(reconnected, cheat(lobbyId, players[0]));
+        verify(reconnected, times(3)).sendMessage(any());
+    }
+
+    @Test
+    void connect_SendsSnapshotOfCurrentVersion() throws Exception {
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        WebSocketSession session = connect(lobbyId, players[0]);
+
+        String snapshot = lastMessage(session);
+        assertTrue(snapshot.contains("\"type\":\"snapshot\""));
+        assertTrue(snapshot.contains("\"version\":0"));
+    }
+
+    @Test
+    void connect_WithKnownVersionResyncsFromDeltas() throws Exception {
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        WebSocketSession actor = connect(lobbyId, players[0]);
+        handler.handleTextMessage(actor, cheat(lobbyId, players[0]));
+
+        WebSocketSession rejoined = session("lobbyId=" + lobbyId + "&playerId=" + players[1] + "&version=0");
+        handler.afterConnectionEstablished(rejoined);
+
+        String resync = lastMessage(rejoined);
+        assertTrue(resync.contains("\"type\":\"delta\""));
+        assertTrue(resync.contains("\"baseVersion\":0"));
+        assertTrue(resync.contains("\"strikes\":1"));
+    }
+
+    @Test
+    void sync_WithUnknownVersionSendsSnapshot() throws Exception {
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        WebSocketSession session = connect(lobbyId, players[0]);
+
+        handler.handleTextMessage(session, new TextMessage(
+                "{\"action\":\"SYNC\",\"lobbyId\":\"" + lobbyId + "\",\"playerId\":" + players[0] + ",\"version\":42}"));
+
+        verify(session, times(2)).sendMessage(any());
+        assertTrue(lastMessage(session).contains("\"type\":\"snapshot\""));
+    }
+
+    @Test
+    void action_WithoutStateChangeSendsNoDelta() throws Exception {
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        WebSocketSession actor = connect(lobbyId, players[0]);
+        WebSocketSession other = connect(lobbyId, players[1]);
+
+        handler.handleTextMessage(actor, cheat(lobbyId, players[0]));
+        // a second strike in the same round is rejected by the game and changes nothing
+        handler.handleTextMessage(actor, cheat(lobbyId, players[0]));
+
+        verify(other, times(2)).sendMessage(any());
+    }
+
+    @Test
+    void throttledSession_DoesNotDelayOtherPlayers() throws Exception {
+        ExecutorService writers = Executors.newCachedThreadPool();
+        GameActionExecutor executor = new GameActionExecutor(Runnable::run);
+        lobbyManager = new LobbyManager(executor);
+        handler = new SimpleWebSocketHandler(lobbyManager, executor, writers, 8, OutboundQueue.SlowConsumerPolicy.COALESCE);
+
+        String lobbyId = lobbyManager.createLobby();
+        lobbyManager.joinLobby(lobbyId, "Alice", 1);
+        lobbyManager.joinLobby(lobbyId, "Bob", 2);
+        lobbyManager.joinLobby(lobbyId, "Carol", 3);
+        assertTrue(lobbyManager.startGame(lobbyId));
+        int[] players = playerIds(lobbyId);
+        GameManager game = lobbyManager.getGameManager(lobbyId);
+
+        int actions = 40;
+        CountDownLatch unblock = new CountDownLatch(1);
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        AtomicReference<String> lastBystanderUpdate = new AtomicReference<>();
+        WebSocketSession actor = session("lobbyId=" + lobbyId + "&playerId=" + players[0]);
+        WebSocketSession bystander = session("lobbyId=" + lobbyId + "&playerId=" + players[1]);
+        WebSocketSession throttled = session("lobbyId=" + lobbyId + "&playerId=" + players[2]);
+        doAnswer(invocation -> {
+            String payload = ((TextMessage) invocation.getArgument(0)).getPayload();
+            if (!payload.contains("\"version\"")) {
+                replies.add(payload);
+            }
+            return null;
+        }).when(actor).sendMessage(any(WebSocketMessage.class));
+        doAnswer(invocation -> {
+            lastBystanderUpdate.set(((TextMessage) invocation.getArgument(0)).getPayload());
+            return null;
+        }).when(bystander).sendMessage(any(WebSocketMessage.class));
+        // a client that stops reading: every send blocks until the test ends
+        doAnswer(invocation -> unblock.await(30, TimeUnit.SECONDS)).when(throttled).sendMessage(any(WebSocketMessage.class));
+        handler.afterConnectionEstablished(actor);
+        handler.afterConnectionEstablished(bystander);
+        handler.afterConnectionEstablished(throttled);
+
+        try {
+            for (int i = 0; i < actions; i++) {
+                // the actor's socket plays for whoever is on turn: hint, discard to win the token back, repeat
+                handler.handleTextMessage(actor, i % 2 == 0 ? hint(lobbyId, game) : discard(lobbyId, game));
+                // like a real client, wait for the reply before the next action
+                String reply = replies.poll(5, TimeUnit.SECONDS);
+                assertNotNull(reply, "Reply to action " + i + " was held up");
+                assertTrue(reply.contains("SUCCESS"), reply);
+            }
+
+            String latestVersion = "\"version\":" + game.getStateLog().getVersion() + ",";
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!String.valueOf(lastBystanderUpdate.get()).contains(latestVersion) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(lastBystanderUpdate.get().contains(latestVersion), "Other player did not get the latest delta");
+
+            OutboundQueue other = handler.getOutbound(lobbyId, players[1]);
+            OutboundQueue slow = handler.getOutbound(lobbyId, players[2]);
+            assertTrue(slow.getQueueDepth() <= 8, "Queue of the throttled socket must stay bounded");
+            assertTrue(slow.getDroppedCount() > 0, "Intermediate updates should have been coalesced");
+            assertEquals(0, other.getDroppedCount());
+        } finally {
+            unblock.countDown();
+            writers.shutdown();
+        }
+    }
+
+    @Test
+    void connect_RejectsNonNumericPlayerId() throws Exception {
+        WebSocketSession session = session("lobbyId=ABC&playerId=abc");
+        handler.afterConnectionEstablished(session);
+        verify(session).close(CloseStatus.BAD_DATA);
+    }
+
+    @Test
+    void batch_AnswersAllResultsAndSendsOneDeltaPerLobby() throws Exception {
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        WebSocketSession actor = connect(lobbyId, players[0]);
+        WebSocketSession other = connect(lobbyId, players[1]);
+        GameManager game = lobbyManager.getGameManager(lobbyId);
+        game.setNumRemainingHintTokens(5);
+        int first = game.getCurrentPlayerId();
+        int second = first == players[0] ? players[1] : players[0];
+
+        handler.handleTextMessage(actor, new TextMessage("{\"action\":\"BATCH\",\"lobbyId\":\"" + lobbyId + "\",\"actions\":["
+                + "{\"action\":\"DISCARD\",\"playerId\":" + first + ",\"cardIndex\":0},"
+                + "{\"action\":\"DISCARD\",\"playerId\":" + second + ",\"cardIndex\":0},"
+                + "{\"action\":\"DISCARD\",\"playerId\":" + second + ",\"cardIndex\":0}]}"));
+
+        // snapshot on connect, one delta for the whole batch, and for the actor the results
+        verify(other, times(2)).sendMessage(any());
+        verify(actor, times(3)).sendMessage(any());
+        String results = lastMessage(actor);
+        assertTrue(results.startsWith("{\"results\":["));
+        assertEquals(2, results.split("\"SUCCESS\"", -1).length - 1);
+        assertTrue(results.contains("INVALID_MOVE"));
+        assertTrue(lastMessage(other).contains("\"numRemainingHintTokens\":7"));
+    }
+
+    @Test
+    void close_OfRejectedSessionIsIgnored() throws Exception {
+        WebSocketSession session = session("lobbyId=ABC");
+        handler.afterConnectionEstablished(session);
+        assertDoesNotThrow(() -> handler.afterConnectionClosed(session, CloseStatus.BAD_DATA));
+    }
+
+    @Test
+    void throttledSession_AppliesEveryMessageWithoutResync() throws Exception {
+        ExecutorService writers = Executors.newCachedThreadPool();
+        GameActionExecutor executor = new GameActionExecutor(Runnable::run);
+        lobbyManager = new LobbyManager(executor);
+        handler = new SimpleWebSocketHandler(lobbyManager, executor, writers, 4, OutboundQueue.SlowConsumerPolicy.COALESCE);
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        GameManager game = lobbyManager.getGameManager(lobbyId);
+
+        CountDownLatch unblock = new CountDownLatch(1);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        WebSocketSession actor = connect(lobbyId, players[0]);
+        WebSocketSession throttled = session("lobbyId=" + lobbyId + "&playerId=" + players[1]);
+        // stalls on the first message until the actions are done, then reads everything that is left
+        doAnswer(invocation -> {
+            received.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            return unblock.await(30, TimeUnit.SECONDS);
+        }).when(throttled).sendMessage(any(WebSocketMessage.class));
+        handler.afterConnectionEstablished(throttled);
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                handler.handleTextMessage(actor, i % 2 == 0 ? hint(lobbyId, game) : discard(lobbyId, game));
+            }
+            assertTrue(handler.getOutbound(lobbyId, players[1]).getDroppedCount() > 0, "Deltas should have been coalesced");
+            unblock.countDown();
+
+            // apply the messages like a client: a snapshot replaces the state, a delta has to build on the version held
+            ObjectMapper mapper = new ObjectMapper();
+            long latest = game.getStateLog().getVersion();
+            long version = -1;
+            while (version != latest) {
+                String payload = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(payload, "Throttled client stopped at version " + version + " of " + latest);
+                JsonNode message = mapper.readTree(payload);
+                if ("delta".equals(message.path("type").asText())) {
+                    assertEquals(version, message.path("baseVersion").asLong(), "Delta does not build on the version held: " + payload);
+                } else {
+                    assertEquals("snapshot", message.path("type").asText(), payload);
+                }
+                version = message.path("version").asLong();
+            }
+        } finally {
+            unblock.countDown();
+            writers.shutdown();
+        }
+    }
+
+    @Test
+    void actionForALobbyRemovedMeanwhile_RepliesWithAnErrorAndKeepsTheSession() throws Exception {
+        GameActionExecutor executor = new GameActionExecutor(Runnable::run);
+        lobbyManager = new LobbyManager(executor);
+        handler = new SimpleWebSocketHandler(lobbyManager, executor);
+        String lobbyId = startedLobby();
+        int[] players = playerIds(lobbyId);
+        WebSocketSession session = connect(lobbyId, players[0]);
+
+        // the mailbox is closed while the lobby is still listed, like an eviction racing the message
+        executor.remove(lobbyId);
+        handler.handleTextMessage(session, cheat(lobbyId, players[0]));
+
+        assertTrue(lastMessage(session).contains("\"error\""), lastMessage(session));
+        verify(session, never()).close(any());
+    }
+
+    private String startedLobby() {
+        String lobbyId = lobbyManager.createLobby();
+        lobbyManager.joinLobby(lobbyId, "Alice", 1);
+        lobbyManager.joinLobby(lobbyId, "Bob", 2);
+        assertTrue(lobbyManager.startGame(lobbyId));
+        return lobbyId;
+    }
+
+    private int[] playerIds(String lobbyId) {
+        return lobbyManager.getLobby(lobbyId).getPlayers().stream().mapToInt(p -> p.getId()).toArray();
+    }
+
+    private WebSocketSession connect(String lobbyId, int playerId) throws Exception {
+        WebSocketSession session = session("lobbyId=" + lobbyId + "&playerId=" + playerId);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    private static WebSocketSession session(String query) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        when(session.getUri()).thenReturn(new URI("ws://localhost/hanabi?" + query));
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.getId()).thenReturn(query);
+        when(session.isOpen()).thenReturn(true);
+        doNothing().when(session).sendMessage(any(WebSocketMessage.class));
+        return session;
+    }
+
+    private static String lastMessage(WebSocketSession session) throws Exception {
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, atLeastOnce()).sendMessage(sent.capture());
+        return sent.getValue().getPayload();
+    }
+
+    private static TextMessage hint(String lobbyId, GameManager game) {
+        int from = game.getCurrentPlayerId();
+        int to = game.getPlayers().get((game.getCurrentPlayerIndex() + 1) % game.getPlayers().size()).getId();
+        int value = game.getPlayerHand(to).get(0).getValue();
+        return new TextMessage("{\"action\":\"HINT\",\"lobbyId\":\"" + lobbyId + "\",\"playerId\":" + from
+                + ",\"toPlayerId\":" + to + ",\"hintType\":\"VALUE\",\"hintValue\":\"" + value + "\"}");
+    }
+
+    private static TextMessage discard(String lobbyId, GameManager game) {
+        return new TextMessage("{\"action\":\"DISCARD\",\"lobbyId\":\"" + lobbyId + "\",\"playerId\":"
+                + game.getCurrentPlayerId() + ",\"cardIndex\":0}");
+    }
+
+    private static TextMessage cheat(String lobbyId, int playerId) {
+        return new TextMessage("{\"action\":\"CHEAT\",\"lobbyId\":\"" + lobbyId + "\",\"playerId\":" + playerId + "}");
+    }
+}
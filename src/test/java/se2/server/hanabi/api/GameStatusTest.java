@@ -24,6 +24,7 @@ class GameStatusTest {
     private boolean gameOver;
     private boolean gameLost;
     private int currentScore;
+    private int maxPossibleScore;
     private int currentPlayerId;
 
     private GameStatus gameStatus;    @BeforeEach
@@ -67,10 +68,11 @@ class GameStatusTest {
         gameOver = false;
         gameLost = false;
         currentScore = 17;
+        maxPossibleScore = 22;
         currentPlayerId = 1;
 
         List<Card> ownHand = new ArrayList<>();
-        gameStatus = new GameStatus(players, playerCardIds, visibleHands, playedCards, discardPile, numRemaningCards, cardsShowingColorHints, cardsShowingValueHints, numRemainingHintTokens, strikes, gameOver, gameLost, currentScore, currentPlayerId, ownHand);
+        gameStatus = new GameStatus(players, playerCardIds, visibleHands, playedCards, discardPile, numRemaningCards, cardsShowingColorHints, cardsShowingValueHints, numRemainingHintTokens, strikes, gameOver, gameLost, currentScore, maxPossibleScore, currentPlayerId, ownHand);
     }
 
     @Test
@@ -136,6 +138,7 @@ class GameStatusTest {
     @Test
     void testGetCurrentScore() {
         assertEquals(currentScore, gameStatus.getCurrentScore());
+        assertEquals(maxPossibleScore, gameStatus.getMaxPossibleScore());
     }  
     
     @Test
@@ -146,7 +149,7 @@ class GameStatusTest {
     @Test
     void testGameStatusWithGameOverTrue() {
         List<Card> ownHand = new ArrayList<>();
-        GameStatus status = new GameStatus(players, playerCardIds, visibleHands, playedCards, discardPile, numRemaningCards, cardsShowingColorHints, cardsShowingValueHints, numRemainingHintTokens, strikes, true, gameLost, currentScore, currentPlayerId, ownHand);
+        GameStatus status = new GameStatus(players, playerCardIds, visibleHands, playedCards, discardPile, numRemaningCards, cardsShowingColorHints, cardsShowingValueHints, numRemainingHintTokens, strikes, true, gameLost, currentScore, maxPossibleScore, currentPlayerId, ownHand);
         assertTrue(status.isGameOver());
     }
 
@@ -157,7 +160,7 @@ class GameStatusTest {
         Card card2 = mock(Card.class);
         ownHand.add(card1);
         ownHand.add(card2);
-        GameStatus status = new GameStatus(players, playerCardIds, visibleHands, playedCards, discardPile, numRemaningCards, cardsShowingColorHints, cardsShowingValueHints, numRemainingHintTokens, strikes, gameOver, gameLost, currentScore, currentPlayerId, ownHand);
+        GameStatus status = new GameStatus(players, playerCardIds, visibleHands, playedCards, discardPile, numRemaningCards, cardsShowingColorHints, cardsShowingValueHints, numRemainingHintTokens, strikes, gameOver, gameLost, currentScore, maxPossibleScore, currentPlayerId, ownHand);
         assertEquals(ownHand, status.getOwnHand());
     }
 }
\ No newline at end of file
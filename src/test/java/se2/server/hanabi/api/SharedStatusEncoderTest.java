@@ -0,0 +1,117 @@
+package se2.server.hanabi.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedStatusEncoderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 50_000;
+
+    @Test
+    void encodeStatus_MatchesJacksonForEveryPlayer() throws Exception {
+        for (int playerCount = 2; playerCount <= 5; playerCount++) {
+            GameManager game = newGame(playerCount);
+            for (Player player : game.getPlayers()) {
+                JsonNode expected = MAPPER.readTree(MAPPER.writeValueAsBytes(game.getStatusFor(player.getId())));
+                JsonNode actual = MAPPER.readTree(game.getStatusEncoder().encodeStatus(player.getId()));
+                assertEquals(expected, actual, playerCount + " players, player " + player.getId());
+            }
+        }
+    }
+
+    @Test
+    void encodeSnapshot_MatchesJackson() throws Exception {
+        GameManager game = newGame(3);
+        int playerId = game.getPlayers().get(1).getId();
+
+        JsonNode expected = MAPPER.readTree(MAPPER.writeValueAsBytes(new StateSnapshot(0, game.getStatusFor(playerId))));
+        assertEquals(expected, MAPPER.readTree(game.getStatusEncoder().encodeSnapshot(playerId)));
+    }
+
+    @Test
+    void encode_RebuildsSkeletonForNewVersion() throws Exception {
+        GameManager game = newGame(2);
+        int playerId = game.getPlayers().get(0).getId();
+        game.getStatusEncoder().encodeStatus(playerId);
+
+        game.setStrikes(2);
+        game.getStateLog().capture();
+
+        JsonNode status = MAPPER.readTree(game.getStatusEncoder().encodeStatus(playerId));
+        assertEquals(2, status.get("strikes").asInt());
+    }
+
+    @Test
+    void encode_FollowsActionsThatWereNotCaptured() throws Exception {
+        GameManager game = newGame(3);
+        int actor = game.getCurrentPlayerId();
+        int viewer = game.getPlayers().get(2).getId();
+        game.setNumRemainingHintTokens(5);
+        game.getStateLog().capture();
+        game.getStatusEncoder().encodeStatus(viewer);
+
+        // a REST action commits a new snapshot without capturing a delta
+        assertTrue(game.discardCard(actor, 0).isSuccess());
+
+        JsonNode expected = MAPPER.readTree(MAPPER.writeValueAsBytes(game.getStatusFor(viewer)));
+        JsonNode actual = MAPPER.readTree(game.getStatusEncoder().encodeStatus(viewer));
+        assertEquals(expected, actual);
+        assertEquals(1, actual.get("discardPile").size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_SharedSkeletonAgainstFullSerialization() throws Exception {
+        for (int playerCount : new int[]{2, 5}) {
+            GameManager game = newGame(playerCount);
+            List<Integer> playerIds = new ArrayList<>();
+            game.getPlayers().forEach(p -> playerIds.add(p.getId()));
+
+            // one round is one broadcast of a new version to every player of the game
+            measure(game, playerIds, WARMUP_ROUNDS, true);
+            measure(game, playerIds, WARMUP_ROUNDS, false);
+            long full = measure(game, playerIds, MEASURED_ROUNDS, false);
+            long shared = measure(game, playerIds, MEASURED_ROUNDS, true);
+
+            System.out.printf("%d players: full %d ns/broadcast, shared skeleton %d ns/broadcast%n",
+                    playerCount, full / MEASURED_ROUNDS, shared / MEASURED_ROUNDS);
+        }
+    }
+
+    private static long measure(GameManager game, List<Integer> playerIds, int rounds, boolean shared) throws Exception {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            // a new version every round, so the skeleton is rebuilt like after a real action
+            game.setStrikes(round % 2);
+            game.getStateLog().capture();
+            for (int playerId : playerIds) {
+                bytes += shared
+                        ? game.getStatusEncoder().encodeSnapshot(playerId).length
+                        : MAPPER.writeValueAsBytes(new StateSnapshot(game.getStateLog().getVersion(), game.getStatusFor(playerId))).length;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(bytes > 0);
+        return elapsed;
+    }
+
+    private static GameManager newGame(int playerCount) {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < playerCount; i++) {
+            players.add(new Player("Player" + i));
+        }
+        return GameManager.createNewGame(players);
+    }
+}
@@ -0,0 +1,205 @@
+package se2.server.hanabi.config;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.model.Player;
+import se2.server.hanabi.services.GameActionExecutor;
+import se2.server.hanabi.util.ActionResult;
+import se2.server.hanabi.util.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class WorkerPoolsTest {
+
+    // concurrent game counts the load benchmarks step through
+    private static final int[] LOAD_STEPS = {25, 50, 100, 200, 400, 800, 1600};
+    private static final long LATENCY_BOUND_MILLIS = 200;
+    private static final int SESSIONS_PER_GAME = 4;
+    private static final int ACTIONS_PER_GAME = 5;
+    // every game plays one action per interval, like players taking turns
+    private static final long ACTION_INTERVAL_MILLIS = 50;
+    // simulated time a slow client blocks the sending thread
+    private static final long SEND_MILLIS = 2;
+
+    @Test
+    void create_PlatformModeUsesDedicatedActionAndWriterThreads() throws Exception {
+        WorkerPools pools = WorkerPools.create(false);
+        assertFalse(pools.isVirtual());
+        assertNotSame(ForkJoinPool.commonPool(), pools.getActionWorkers());
+
+        CompletableFuture<String> actionThread = new CompletableFuture<>();
+        pools.getActionWorkers().execute(() -> actionThread.complete(Thread.currentThread().getName()));
+        assertEquals("game-action", actionThread.get(5, TimeUnit.SECONDS));
+
+        Thread[] ranOn = new Thread[1];
+        CountDownLatch ran = new CountDownLatch(1);
+        pools.getBroadcastWorkers().execute(() -> {
+            ranOn[0] = Thread.currentThread();
+            ran.countDown();
+        });
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), ranOn[0], "Platform mode must not send broadcasts on the calling thread");
+        assertTrue(ranOn[0].isDaemon());
+        pools.shutdown();
+    }
+
+    @Test
+    void create_PlatformModeBoundsTheWriterThreads() throws Exception {
+        WorkerPools pools = WorkerPools.create(false);
+        int sends = WorkerPools.MAX_WRITER_THREADS + 8;
+        CountDownLatch blocked = new CountDownLatch(WorkerPools.MAX_WRITER_THREADS);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            // every send blocks like a client that stopped reading
+            for (int i = 0; i < sends; i++) {
+                pools.getBroadcastWorkers().execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    blocked.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                });
+            }
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertEquals(WorkerPools.MAX_WRITER_THREADS, maxRunning.get());
+        } finally {
+            release.countDown();
+            pools.shutdown();
+        }
+    }
+
+    @Test
+    void create_VirtualModeFallsBackWhenUnsupported() {
+        WorkerPools pools = WorkerPools.create(true);
+        assertEquals(VirtualThreads.isSupported(), pools.isVirtual());
+        pools.shutdown();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_PlatformThreadsSustainTheSmallestLoad(TestReporter reporter) throws Exception {
+        WorkerPools pools = WorkerPools.create(false);
+        try {
+            int games = sustainedGames(pools, reporter, "platform");
+            assertTrue(games >= LOAD_STEPS[0], "Platform threads cannot keep " + LOAD_STEPS[0] + " games within "
+                    + LATENCY_BOUND_MILLIS + " ms");
+        } finally {
+            pools.shutdown();
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_VirtualThreadsSustainAtLeastAsManyGamesAsPlatform(TestReporter reporter) throws Exception {
+        // the build targets Java 17, so this only runs when the tests are run on a Java 21+ JVM
+        assumeTrue(VirtualThreads.isSupported(), "Virtual threads need Java 21+");
+        WorkerPools platform = WorkerPools.create(false);
+        WorkerPools virtual = WorkerPools.create(true);
+        try {
+            int platformGames = sustainedGames(platform, reporter, "platform");
+            int virtualGames = sustainedGames(virtual, reporter, "virtual");
+            assertTrue(virtualGames >= platformGames,
+                    "virtual threads sustain " + virtualGames + " games, platform threads " + platformGames);
+        } finally {
+            platform.shutdown();
+            virtual.shutdown();
+        }
+    }
+
+    /**
+     * Raises the number of concurrent games step by step until the 95th percentile latency of an action
+     * leaves the bound
+     * @return the highest game count that stayed within the bound, 0 if even the first step did not
+     */
+    private static int sustainedGames(WorkerPools pools, TestReporter reporter, String mode) throws Exception {
+        int sustained = 0;
+        for (int games : LOAD_STEPS) {
+            long p95 = runLoad(pools, games);
+            reporter.publishEntry(mode + " " + games + " games", games * SESSIONS_PER_GAME + " sessions, p95 " + p95 + " ms");
+            if (p95 > LATENCY_BOUND_MILLIS) {
+                break;
+            }
+            sustained = games;
+        }
+        return sustained;
+    }
+
+    /**
+     * Every game plays an action per interval and fans it out to every session of its game,
+     * where every send blocks like a slow client would.
+     * @return the 95th percentile of the time from submitting an action until its last send finished, in milliseconds
+     */
+    private static long runLoad(WorkerPools pools, int gameCount) throws Exception {
+        GameActionExecutor executor = new GameActionExecutor(pools.getActionWorkers());
+        List<GameManager> games = new ArrayList<>();
+        for (int i = 0; i < gameCount; i++) {
+            List<Player> players = new ArrayList<>();
+            for (int p = 0; p < SESSIONS_PER_GAME; p++) {
+                players.add(new Player("Player" + p));
+            }
+            games.add(GameManager.createNewGame(players));
+        }
+
+        long[] latencies = new long[gameCount * ACTIONS_PER_GAME];
+        CountDownLatch done = new CountDownLatch(latencies.length);
+        List<CompletableFuture<ActionResult>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int a = 0; a < ACTIONS_PER_GAME; a++) {
+            for (int g = 0; g < gameCount; g++) {
+                GameManager game = games.get(g);
+                int action = a * gameCount + g;
+                long submittedAt = System.nanoTime();
+                AtomicInteger pendingSends = new AtomicInteger(SESSIONS_PER_GAME);
+                futures.add(executor.submit("lobby" + g, () -> {
+                    ActionResult result = game.incrementStrikes();
+                    for (Player player : game.getPlayers()) {
+                        pools.getBroadcastWorkers().execute(() -> {
+                            game.getStatusFor(player.getId());
+                            sleep(SEND_MILLIS);
+                            if (pendingSends.decrementAndGet() == 0) {
+                                latencies[action] = System.nanoTime() - submittedAt;
+                                done.countDown();
+                            }
+                        });
+                    }
+                    return result;
+                }));
+            }
+            long nextRound = start + TimeUnit.MILLISECONDS.toNanos(ACTION_INTERVAL_MILLIS * (a + 1));
+            sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(nextRound - System.nanoTime())));
+        }
+
+        for (CompletableFuture<ActionResult> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS), "Not all broadcasts were sent");
+        Arrays.sort(latencies);
+        return TimeUnit.NANOSECONDS.toMillis(latencies[(int) (latencies.length * 0.95)]);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
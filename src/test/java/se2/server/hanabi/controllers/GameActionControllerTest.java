@@ -2,19 +2,28 @@ package se2.server.hanabi.controllers;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import se2.server.hanabi.api.GameStatus;
+import se2.server.hanabi.game.GameLogger;
 import se2.server.hanabi.game.GameManager;
 import se2.server.hanabi.game.HintType;
+import se2.server.hanabi.game.LogSink;
+import se2.server.hanabi.game.commands.GameCommand;
 import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.GameActionMessage;
+import se2.server.hanabi.model.Player;
+import se2.server.hanabi.services.GameActionExecutor;
 import se2.server.hanabi.services.LobbyManager;
+import se2.server.hanabi.services.StatePublisher;
 import se2.server.hanabi.util.ActionResult;
 import se2.server.hanabi.util.ActionResultType;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
@@ -29,7 +38,6 @@ class GameActionControllerTest {
     @Mock
     private GameManager gameManager;
 
-    @InjectMocks
     private GameActionController controller;
 
     private final String LOBBY_ID = "test-lobby";
@@ -38,6 +46,8 @@ class GameActionControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // run mailbox work on the calling thread so every future is already completed
+        controller = new GameActionController(lobbyManager, new GameActionExecutor(Runnable::run));
         when(lobbyManager.getGameManager(LOBBY_ID)).thenReturn(gameManager);
     }
 
@@ -54,6 +64,30 @@ class GameActionControllerTest {
         verify(gameManager).getStatusFor(PLAYER_ID);
     }
 
+    @Test
+    void getGameStatusAtTurn_ReplaysTheLog() {
+        GameManager game = GameManager.createNewGame(List.of(new Player("alice"), new Player("bob")), false, 42L);
+        int first = game.getCurrentPlayerId();
+        List<Integer> handAtStart = game.getStatusFor(first).getPlayerCardIds();
+        game.discardCard(first, 0); // rejected, hint tokens are full
+        game.playCard(first, 0);
+        when(lobbyManager.getGameManager(LOBBY_ID)).thenReturn(game);
+
+        ResponseEntity<GameStatus> start = controller.getGameStatusAtTurn(LOBBY_ID, first, 0);
+        ResponseEntity<GameStatus> now = controller.getGameStatusAtTurn(LOBBY_ID, first, 1);
+
+        assertEquals(HttpStatus.OK, start.getStatusCode());
+        assertEquals(handAtStart, start.getBody().getPlayerCardIds());
+        assertEquals(game.getStatusFor(first).getPlayerCardIds(), now.getBody().getPlayerCardIds());
+    }
+
+    @Test
+    void getGameStatusAtTurn_RejectsNegativeTurnAndUnknownLobby() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getGameStatusAtTurn(LOBBY_ID, PLAYER_ID, -1).getStatusCode());
+        when(lobbyManager.getGameManager(LOBBY_ID)).thenReturn(null);
+        assertEquals(HttpStatus.NOT_FOUND, controller.getGameStatusAtTurn(LOBBY_ID, PLAYER_ID, 0).getStatusCode());
+    }
+
     @Test
     void getGameStatus_LobbyNotFound() {
  
@@ -69,23 +103,35 @@ class GameActionControllerTest {
     void playCard_Success() {
 
         ActionResult successResult = ActionResult.success("Card played successfully");
-        when(gameManager.playCard(PLAYER_ID, 0)).thenReturn(successResult);
+        when(gameManager.execute(new GameCommand.Play(PLAYER_ID, 0))).thenReturn(successResult);
 
 
-        ResponseEntity<ActionResult> response = controller.playCard(LOBBY_ID, PLAYER_ID, 0);
+        ResponseEntity<ActionResult> response = controller.playCard(LOBBY_ID, PLAYER_ID, 0).join();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(successResult, response.getBody());
-        verify(gameManager).playCard(PLAYER_ID, 0);
+        verify(gameManager).execute(new GameCommand.Play(PLAYER_ID, 0));
+    }
+
+    @Test
+    void singleActions_PublishToWebSocketSessions() {
+        StatePublisher publisher = mock(StatePublisher.class);
+        controller = new GameActionController(lobbyManager, new GameActionExecutor(Runnable::run), publisher);
+        when(gameManager.execute(any())).thenReturn(ActionResult.success("ok"));
+
+        controller.playCard(LOBBY_ID, PLAYER_ID, 0).join();
+        controller.discardCard(LOBBY_ID, PLAYER_ID, 0).join();
+
+        verify(publisher, times(2)).publish(LOBBY_ID);
     }
 
     @Test
     void playCard_InvalidMove() {
 
         ActionResult invalidResult = ActionResult.invalid("Not your turn");
-        when(gameManager.playCard(PLAYER_ID, 0)).thenReturn(invalidResult);
+        when(gameManager.execute(new GameCommand.Play(PLAYER_ID, 0))).thenReturn(invalidResult);
 
-        ResponseEntity<ActionResult> response = controller.playCard(LOBBY_ID, PLAYER_ID, 0);
+        ResponseEntity<ActionResult> response = controller.playCard(LOBBY_ID, PLAYER_ID, 0).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals(invalidResult, response.getBody());
@@ -96,7 +142,7 @@ class GameActionControllerTest {
 
         when(lobbyManager.getGameManager(LOBBY_ID)).thenReturn(null);
 
-        ResponseEntity<ActionResult> response = controller.playCard(LOBBY_ID, PLAYER_ID, 0);
+        ResponseEntity<ActionResult> response = controller.playCard(LOBBY_ID, PLAYER_ID, 0).join();
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
@@ -104,21 +150,21 @@ class GameActionControllerTest {
     @Test
     void discardCard_Success() {
         ActionResult successResult = ActionResult.success("Card discarded successfully");
-        when(gameManager.discardCard(PLAYER_ID, 0)).thenReturn(successResult);
+        when(gameManager.execute(new GameCommand.Discard(PLAYER_ID, 0))).thenReturn(successResult);
 
-        ResponseEntity<ActionResult> response = controller.discardCard(LOBBY_ID, PLAYER_ID, 0);
+        ResponseEntity<ActionResult> response = controller.discardCard(LOBBY_ID, PLAYER_ID, 0).join();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(successResult, response.getBody());
-        verify(gameManager).discardCard(PLAYER_ID, 0);
+        verify(gameManager).execute(new GameCommand.Discard(PLAYER_ID, 0));
     }
 
     @Test
     void discardCard_InvalidMove() {
         ActionResult invalidResult = ActionResult.invalid("Cannot discard: hint tokens at maximum");
-        when(gameManager.discardCard(PLAYER_ID, 0)).thenReturn(invalidResult);
+        when(gameManager.execute(new GameCommand.Discard(PLAYER_ID, 0))).thenReturn(invalidResult);
 
-        ResponseEntity<ActionResult> response = controller.discardCard(LOBBY_ID, PLAYER_ID, 0);
+        ResponseEntity<ActionResult> response = controller.discardCard(LOBBY_ID, PLAYER_ID, 0).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals(invalidResult, response.getBody());
@@ -128,7 +174,7 @@ class GameActionControllerTest {
     void discardCard_LobbyNotFound() {
         when(lobbyManager.getGameManager(LOBBY_ID)).thenReturn(null);
 
-        ResponseEntity<ActionResult> response = controller.discardCard(LOBBY_ID, PLAYER_ID, 0);
+        ResponseEntity<ActionResult> response = controller.discardCard(LOBBY_ID, PLAYER_ID, 0).join();
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
@@ -137,11 +183,11 @@ class GameActionControllerTest {
     void giveHint_SuccessForColor() {
         int toPlayerId = 2;
         ActionResult successResult = ActionResult.success("Hint given successfully");
-        when(gameManager.giveHint(PLAYER_ID, toPlayerId, HintType.COLOR, Card.Color.RED))
+        when(gameManager.execute(GameCommand.Hint.color(PLAYER_ID, toPlayerId, Card.Color.RED)))
                 .thenReturn(successResult);
 
         ResponseEntity<ActionResult> response = controller.giveHint(
-                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.COLOR, "RED");
+                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.COLOR, "RED").join();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(successResult, response.getBody());
@@ -151,11 +197,11 @@ class GameActionControllerTest {
     void giveHint_SuccessForNumber() {
         int toPlayerId = 2;
         ActionResult successResult = ActionResult.success("Hint given successfully");
-        when(gameManager.giveHint(eq(PLAYER_ID), eq(toPlayerId), eq(HintType.VALUE), anyInt()))
+        when(gameManager.execute(GameCommand.Hint.value(PLAYER_ID, toPlayerId, 3)))
                 .thenReturn(successResult);
 
         ResponseEntity<ActionResult> response = controller.giveHint(
-                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.VALUE, "3");
+                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.VALUE, "3").join();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(successResult, response.getBody());
@@ -166,7 +212,7 @@ class GameActionControllerTest {
         int toPlayerId = 2;
 
         ResponseEntity<ActionResult> response = controller.giveHint(
-                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.COLOR, "INVALID_COLOR");
+                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.COLOR, "INVALID_COLOR").join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals(ActionResultType.INVALID_MOVE, response.getBody().getType());
@@ -177,7 +223,7 @@ class GameActionControllerTest {
         int toPlayerId = 2;
 
         ResponseEntity<ActionResult> response = controller.giveHint(
-                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.VALUE, "10");
+                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.VALUE, "10").join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals(ActionResultType.INVALID_MOVE, response.getBody().getType());
@@ -189,7 +235,7 @@ class GameActionControllerTest {
         int toPlayerId = 2;
 
         ResponseEntity<ActionResult> response = controller.giveHint(
-                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.VALUE, "not-a-number");
+                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.VALUE, "not-a-number").join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals(ActionResultType.INVALID_MOVE, response.getBody().getType());
@@ -199,11 +245,11 @@ class GameActionControllerTest {
     void giveHint_InvalidMove() {
         int toPlayerId = 2;
         ActionResult invalidResult = ActionResult.invalid("Not enough hint tokens");
-        when(gameManager.giveHint(eq(PLAYER_ID), eq(toPlayerId), eq(HintType.VALUE), anyInt()))
+        when(gameManager.execute(GameCommand.Hint.value(PLAYER_ID, toPlayerId, 3)))
                 .thenReturn(invalidResult);
 
         ResponseEntity<ActionResult> response = controller.giveHint(
-                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.VALUE, "3");
+                LOBBY_ID, PLAYER_ID, toPlayerId, HintType.VALUE, "3").join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals(invalidResult, response.getBody());
@@ -215,30 +261,161 @@ class GameActionControllerTest {
         when(lobbyManager.getGameManager(LOBBY_ID)).thenReturn(null);
 
         ResponseEntity<ActionResult> response = controller.giveHint(
-                LOBBY_ID, PLAYER_ID, 2, HintType.VALUE, "3");
+                LOBBY_ID, PLAYER_ID, 2, HintType.VALUE, "3").join();
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    void submitBatch_ReturnsResultsInOrder() {
+        when(gameManager.execute(new GameCommand.Play(PLAYER_ID, 0))).thenReturn(ActionResult.success("played"));
+        when(gameManager.execute(new GameCommand.Discard(PLAYER_ID, 1))).thenReturn(ActionResult.invalid("not your turn"));
+        GameActionMessage play = batchAction(GameActionMessage.ActionType.PLAY, 0);
+        GameActionMessage discard = batchAction(GameActionMessage.ActionType.DISCARD, 1);
+
+        ResponseEntity<List<ActionResult>> response = controller.submitBatch(List.of(play, discard)).join();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("played", response.getBody().get(0).getMessage());
+        assertEquals(ActionResultType.INVALID_MOVE, response.getBody().get(1).getType());
+    }
+
+    @Test
+    void submitBatch_RejectsEmptyBatch() {
+        ResponseEntity<List<ActionResult>> response = controller.submitBatch(List.of()).join();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private GameLogger historyOf(String... entries) {
+        GameLogger logger = new GameLogger(64, LogSink.NONE);
+        for (String entry : entries) {
+            logger.info(entry);
+        }
+        when(gameManager.iterateGameHistory(anyLong())).thenAnswer(invocation -> logger.iterateHistory(invocation.getArgument(0)));
+        return logger;
+    }
+
     @Test
     void getGameHistory_Success() {
-        List<String> mockHistory = Arrays.asList("Player1 played a card", "Player2 gave a hint");
-        when(gameManager.getGameHistory()).thenReturn(mockHistory);
+        historyOf("Player1 played a card", "Player2 gave a hint");
 
-        ResponseEntity<List<String>> response = controller.getGameHistory(LOBBY_ID);
+        ResponseEntity<List<String>> response = controller.getGameHistory(LOBBY_ID, 0, 20, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(mockHistory, response.getBody());
-        verify(gameManager).getGameHistory();
+        assertEquals(List.of("[INFO] Player1 played a card", "[INFO] Player2 gave a hint"), response.getBody());
+        assertEquals("2", response.getHeaders().getFirst(GameActionController.NEXT_SINCE_HEADER));
+        assertNotNull(response.getHeaders().getETag());
+        verify(gameManager).iterateGameHistory(0L);
+    }
+
+    @Test
+    void getGameHistory_PagesFromSince() {
+        GameLogger logger = historyOf("one", "two", "three", "four", "five");
+
+        ResponseEntity<List<String>> first = controller.getGameHistory(LOBBY_ID, 0, 2, null);
+        long next = Long.parseLong(first.getHeaders().getFirst(GameActionController.NEXT_SINCE_HEADER));
+        ResponseEntity<List<String>> second = controller.getGameHistory(LOBBY_ID, next, 2, null);
+        ResponseEntity<List<String>> rest = controller.getGameHistory(LOBBY_ID, 4, 100, null);
+
+        assertEquals(List.of("[INFO] one", "[INFO] two"), first.getBody());
+        assertEquals(List.of("[INFO] three", "[INFO] four"), second.getBody());
+        assertEquals(List.of("[INFO] five"), rest.getBody());
+        assertEquals("5", rest.getHeaders().getFirst(GameActionController.NEXT_SINCE_HEADER));
+
+        logger.clear();
+        logger.info("six");
+        ResponseEntity<List<String>> afterClear = controller.getGameHistory(LOBBY_ID, 0, 100, null);
+        assertEquals(List.of("[INFO] six"), afterClear.getBody());
+        assertEquals("6", afterClear.getHeaders().getFirst(GameActionController.NEXT_SINCE_HEADER));
+    }
+
+    @Test
+    void getGameHistory_UnchangedPollIsNotModified() {
+        GameLogger logger = historyOf("one", "two");
+        String eTag = controller.getGameHistory(LOBBY_ID, 2, 20, null).getHeaders().getETag();
+
+        ResponseEntity<List<String>> unchanged = controller.getGameHistory(LOBBY_ID, 2, 20, eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertNull(unchanged.getBody());
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.getGameHistory(LOBBY_ID, 2, 20, "W/" + eTag).getStatusCode());
+
+        logger.info("three");
+        ResponseEntity<List<String>> changed = controller.getGameHistory(LOBBY_ID, 2, 20, eTag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertEquals(List.of("[INFO] three"), changed.getBody());
+        assertNotEquals(eTag, changed.getHeaders().getETag());
+    }
+
+    @Test
+    void getGameHistory_RejectsNegativeSince() {
+        ResponseEntity<List<String>> response = controller.getGameHistory(LOBBY_ID, -1, 20, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void getGameHistory_RejectsLimitBelowOne() {
+        historyOf("one");
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getGameHistory(LOBBY_ID, 0, 0, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getGameHistory(LOBBY_ID, 0, -5, null).getStatusCode());
+    }
+
+    @Test
+    void getGameHistory_RejectsLimitAboveMaximum() {
+        historyOf("one");
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getGameHistory(LOBBY_ID, 0,
+                GameActionController.MAX_HISTORY_PAGE_SIZE + 1, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getGameHistory(LOBBY_ID, 0, Integer.MAX_VALUE, null).getStatusCode());
+    }
+
+    @Test
+    void getGameHistory_ServesAFullPageAtTheMaximumLimit() {
+        String[] entries = new String[GameActionController.MAX_HISTORY_PAGE_SIZE + 10];
+        Arrays.fill(entries, "entry");
+        historyOf(entries);
+
+        ResponseEntity<List<String>> response = controller.getGameHistory(LOBBY_ID, 0, GameActionController.MAX_HISTORY_PAGE_SIZE, null);
+
+        assertEquals(GameActionController.MAX_HISTORY_PAGE_SIZE, response.getBody().size());
+        assertEquals(Integer.toString(GameActionController.MAX_HISTORY_PAGE_SIZE),
+                response.getHeaders().getFirst(GameActionController.NEXT_SINCE_HEADER));
     }
 
     @Test
     void getGameHistory_LobbyNotFound() {
         when(lobbyManager.getGameManager(LOBBY_ID)).thenReturn(null);
 
-        ResponseEntity<List<String>> response = controller.getGameHistory(LOBBY_ID);
+        ResponseEntity<List<String>> response = controller.getGameHistory(LOBBY_ID, 0, 20, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamGameHistory_WritesOneJsonStringPerLine() throws Exception {
+        GameLogger logger = historyOf("one", "say \"hi\"");
+        logger.info("three");
+
+        ResponseEntity<StreamingResponseBody> response = controller.streamGameHistory(LOBBY_ID, 1, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"[INFO] say \\\"hi\\\"\"\n\"[INFO] three\"\n", out.toString(StandardCharsets.UTF_8));
+        assertEquals("3", response.getHeaders().getFirst(GameActionController.NEXT_SINCE_HEADER));
+        String eTag = response.getHeaders().getETag();
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.streamGameHistory(LOBBY_ID, 1, eTag).getStatusCode());
+    }
+
+    private GameActionMessage batchAction(GameActionMessage.ActionType type, int cardIndex) {
+        GameActionMessage message = new GameActionMessage();
+        message.setActionType(type);
+        message.setLobbyId(LOBBY_ID);
+        message.setPlayerId(PLAYER_ID);
+        message.setCardIndex(cardIndex);
+        return message;
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.test.web.servlet.MockMvc;
+import se2.server.hanabi.api.LobbyPage;
+import se2.server.hanabi.api.LobbySummary;
 import se2.server.hanabi.model.Lobby;
 import se2.server.hanabi.model.Player;
 import se2.server.hanabi.services.LobbyManager;
@@ -165,17 +167,83 @@ public class LobbyControllerTest {
 
     @Test
     void getAllLobbies_returnsLobbies() throws Exception {
-        List<Lobby> lobbies = new ArrayList<>();
-        lobbies.add(new Lobby("lobby1"));
-        lobbies.add(new Lobby("lobby2"));
-        when(lobbyManager.getAllLobbies()).thenReturn(lobbies);
+        List<LobbySummary> lobbies = new ArrayList<>();
+        lobbies.add(new LobbySummary("lobby1", 2, false, false));
+        lobbies.add(new LobbySummary("lobby2", 5, true, true));
+        when(lobbyManager.getLobbyIndexVersion()).thenReturn(1L);
+        when(lobbyManager.listLobbies(null, 20, false, null, null)).thenReturn(new LobbyPage(lobbies, null, 1L));
 
         mockMvc.perform(get("/lobbies"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value("lobby1"))
-                .andExpect(jsonPath("$[1].id").value("lobby2"));
+                .andExpect(jsonPath("$.lobbies[0].id").value("lobby1"))
+                .andExpect(jsonPath("$.lobbies[0].playerCount").value(2))
+                .andExpect(jsonPath("$.lobbies[1].id").value("lobby2"))
+                .andExpect(jsonPath("$.lobbies[1].gameStarted").value(true))
+                .andExpect(jsonPath("$.lobbies[1].casualMode").value(true))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
     }
 
+    @Test
+    void getAllLobbies_passesPaginationAndFilters() throws Exception {
+        List<LobbySummary> lobbies = List.of(new LobbySummary("lobby3", 3, false, false));
+        when(lobbyManager.getLobbyIndexVersion()).thenReturn(2L);
+        when(lobbyManager.listLobbies("lobby2", 1, true, 3, 4)).thenReturn(new LobbyPage(lobbies, "lobby3", 2L));
+
+        mockMvc.perform(get("/lobbies").param("cursor", "lobby2").param("limit", "1")
+                        .param("openOnly", "true").param("minPlayers", "3").param("maxPlayers", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lobbies[0].id").value("lobby3"))
+                .andExpect(jsonPath("$.nextCursor").value("lobby3"));
+    }
+
+    @Test
+    void getAllLobbies_rejectsLimitOutOfRange() throws Exception {
+        mockMvc.perform(get("/lobbies").param("cursor", "range").param("limit", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/lobbies").param("cursor", "range").param("limit", "-3")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/lobbies").param("cursor", "range").param("limit", Integer.toString(LobbyController.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest());
+
+        verify(lobbyManager, never()).listLobbies(eq("range"), anyInt(), anyBoolean(), any(), any());
+    }
+
+    @Test
+    void getAllLobbies_servesCachedPageForUnchangedVersion() throws Exception {
+        when(lobbyManager.getLobbyIndexVersion()).thenReturn(5L);
+        when(lobbyManager.listLobbies("cached", 20, false, null, null))
+                .thenReturn(new LobbyPage(List.of(new LobbySummary("lobbyX", 1, false, false)), null, 5L));
+
+        mockMvc.perform(get("/lobbies").param("cursor", "cached")).andExpect(status().isOk());
+        mockMvc.perform(get("/lobbies").param("cursor", "cached"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lobbies[0].id").value("lobbyX"));
+
+        verify(lobbyManager, times(1)).listLobbies("cached", 20, false, null, null);
+    }
+
+    @Test
+    void getAllLobbies_rebuildsPageWhenVersionMoves() throws Exception {
+        when(lobbyManager.getLobbyIndexVersion()).thenReturn(20L, 20L, 21L);
+        when(lobbyManager.listLobbies("moving", 20, false, null, null))
+                .thenReturn(new LobbyPage(List.of(new LobbySummary("before", 1, false, false)), null, 20L))
+                .thenReturn(new LobbyPage(List.of(new LobbySummary("after", 2, false, false)), null, 21L));
+
+        mockMvc.perform(get("/lobbies").param("cursor", "moving")).andExpect(jsonPath("$.lobbies[0].id").value("before"));
+        mockMvc.perform(get("/lobbies").param("cursor", "moving")).andExpect(jsonPath("$.lobbies[0].id").value("before"));
+        mockMvc.perform(get("/lobbies").param("cursor", "moving")).andExpect(jsonPath("$.lobbies[0].id").value("after"));
+
+        verify(lobbyManager, times(2)).listLobbies("moving", 20, false, null, null);
+    }
+
+    @Test
+    void getLobbyStats_returnsCounters() throws Exception {
+        when(lobbyManager.getLiveLobbyCount()).thenReturn(3);
+        when(lobbyManager.getEvictedLobbyCount()).thenReturn(7L);
+
+        mockMvc.perform(get("/lobbies/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.live").value(3))
+                .andExpect(jsonPath("$.evicted").value(7));
+    }
 
     @Test
     void testGetPlayersInLobby() throws Exception {
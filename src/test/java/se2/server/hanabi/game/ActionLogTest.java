@@ -0,0 +1,204 @@
+package se2.server.hanabi.game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.game.commands.GameCommand;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Player;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class ActionLogTest {
+
+    private List<Player> players;
+
+    @BeforeEach
+    void setUp() {
+        players = List.of(new Player("alice"), new Player("bob"), new Player("carol"));
+    }
+
+    // everything the state consists of, with cards by id since every game has its own card objects
+    static String fingerprint(GameSnapshot snapshot) {
+        Map<Integer, List<Integer>> hands = snapshot.getHands().entrySet().stream().collect(Collectors.toMap(
+                Map.Entry::getKey, entry -> entry.getValue().stream().map(Card::getId).toList()));
+        return "hands=" + hands
+                + " played=" + new TreeMap<>(snapshot.getPlayedCards())
+                + " discards=" + snapshot.getDiscardPile().stream().map(Card::getId).toList()
+                + " deck=" + snapshot.getNumRemainingCards()
+                + " colorHints=" + new TreeMap<>(snapshot.getCardsShowingColorHints())
+                + " valueHints=" + new TreeMap<>(snapshot.getCardsShowingValueHints())
+                + " tokens=" + snapshot.getNumRemainingHintTokens()
+                + " strikes=" + snapshot.getStrikes()
+                + " over=" + snapshot.isGameOver() + " lost=" + snapshot.isGameLost()
+                + " score=" + snapshot.getCurrentScore()
+                + " current=" + snapshot.getCurrentPlayerId()
+                + " turn=" + snapshot.getTurnCounter();
+    }
+
+    static GameCommand randomCommand(GameManager game, SplittableRandom random) {
+        List<Player> seats = game.getPlayers();
+        int actor = game.getCurrentPlayerId();
+        int handSize = game.getPlayerHand(actor).size();
+        int roll = random.nextInt(100);
+        if (roll < 35) {
+            return new GameCommand.Play(actor, random.nextInt(Math.max(1, handSize)));
+        } else if (roll < 65) {
+            return new GameCommand.Discard(actor, random.nextInt(Math.max(1, handSize)));
+        } else if (roll < 95) {
+            int target = seats.get(random.nextInt(seats.size())).getId();
+            return random.nextBoolean()
+                    ? GameCommand.Hint.color(actor, target, Card.Color.values()[random.nextInt(5)])
+                    : GameCommand.Hint.value(actor, target, 1 + random.nextInt(5));
+        } else if (roll < 97) {
+            return new GameCommand.DefuseAttempt(actor, List.of("DOWN", "DOWN", "UP", "DOWN"), random.nextBoolean() ? "DARK" : "LIGHT");
+        } else {
+            return new GameCommand.IncrementStrikes();
+        }
+    }
+
+    @Test
+    void replayingTheLogRebuildsTheSameState() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int round = 0; round < 50; round++) {
+            boolean casual = round % 2 == 0;
+            GameManager game = GameManager.createNewGame(players, casual, random.nextLong());
+            for (int step = 0; step < 300 && !game.isGameOver(); step++) {
+                game.execute(randomCommand(game, random));
+            }
+
+            ActionLog restored = ActionLog.fromBytes(game.getActionLog().toBytes());
+            assertEquals(game.getActionLog().size(), restored.size());
+            GameManager replayed = GameReplay.replay(players, restored);
+            // the text history differs only by the rejected commands, which are not replayed
+            assertEquals(fingerprint(game.getSnapshot()), fingerprint(replayed.getSnapshot()), "round " + round);
+        }
+    }
+
+    @Test
+    void commandsAreStoredInTwoBytesEach() {
+        GameManager game = GameManager.createNewGame(players, false, 42L);
+        int header = game.getActionLog().toBytes().length;
+        int first = game.getCurrentPlayerId();
+        game.giveHint(GameCommand.Hint.value(first, players.get((game.getSeat(first) + 1) % 3).getId(), 1));
+        game.discardCard(game.getCurrentPlayerId(), 0);
+        game.playCard(game.getCurrentPlayerId(), 2);
+
+        ActionLog log = game.getActionLog();
+        assertEquals(3, log.size());
+        assertEquals(header + 3 * 2, log.toBytes().length);
+        assertEquals(ActionLog.Kind.HINT, ActionLog.kind(log.record(0)));
+        assertEquals(ActionLog.Kind.DISCARD, ActionLog.kind(log.record(1)));
+        assertEquals(ActionLog.Kind.PLAY, ActionLog.kind(log.record(2)));
+        assertEquals(new GameCommand.Play(log.getPlayerId(2), 2), log.command(2));
+    }
+
+    @Test
+    void rejectedCommandsAreNotRecorded() {
+        GameManager game = GameManager.createNewGame(players, false, 42L);
+        int notCurrent = players.stream().mapToInt(Player::getId).filter(id -> id != game.getCurrentPlayerId()).findFirst().orElseThrow();
+        game.playCard(notCurrent, 0);
+        game.discardCard(game.getCurrentPlayerId(), 0); // hint tokens are full
+        game.giveHint(GameCommand.Hint.value(game.getCurrentPlayerId(), game.getCurrentPlayerId(), 1));
+        game.defuseStrike(game.getCurrentPlayerId()); // no strikes
+        game.addStrikeCheat(game.getCurrentPlayerId());
+
+        assertEquals(0, game.getActionLog().size());
+    }
+
+    @Test
+    void hintMatchingNoCardIsNotRecorded() {
+        GameManager game = GameManager.createNewGame(players, false, 42L);
+        int giver = game.getCurrentPlayerId();
+        int target = players.get((game.getSeat(giver) + 1) % 3).getId();
+        List<Integer> values = game.getPlayerHand(target).stream().map(Card::getValue).toList();
+        int missing = GameRules.MIN_CARD_VALUE;
+        while (values.contains(missing)) {
+            missing++;
+        }
+        assertTrue(missing <= GameRules.MAX_CARD_VALUE, "seed 42 deals a hand without some value");
+
+        assertFalse(game.giveHint(GameCommand.Hint.value(giver, target, missing)).isSuccess());
+        assertEquals(0, game.getActionLog().size());
+    }
+
+    @Test
+    void logHoldsTheCommandBeforeItsSnapshotIsPublished() {
+        GameManager game = spy(GameManager.createNewGame(players, false, 42L));
+        List<Integer> sizesAtPublish = new ArrayList<>();
+        doAnswer(invocation -> {
+            sizesAtPublish.add(game.getActionLog().size());
+            return invocation.callRealMethod();
+        }).when(game).publishSnapshot();
+
+        game.discardCard(game.getCurrentPlayerId(), 0); // rejected, hint tokens are full
+        int giver = game.getCurrentPlayerId();
+        int target = players.get((game.getSeat(giver) + 1) % 3).getId();
+        game.giveHint(GameCommand.Hint.value(giver, target, game.getPlayerHand(target).get(0).getValue()));
+        game.discardCard(game.getCurrentPlayerId(), 0);
+
+        assertEquals(List.of(1, 2), sizesAtPublish);
+    }
+
+    @Test
+    void misplayIsRecordedAsOnePlay() {
+        GameManager game = GameManager.createNewGame(players, false, 42L);
+        int playerId = game.getCurrentPlayerId();
+        List<Card> hand = game.getPlayerHand(playerId);
+        int misplay = -1;
+        for (int i = 0; i < hand.size(); i++) {
+            if (hand.get(i).getValue() != 1) {
+                misplay = i;
+            }
+        }
+        assertTrue(misplay >= 0, "seed 42 deals a card that is not a one");
+        game.playCard(playerId, misplay);
+
+        assertEquals(1, game.getStrikes());
+        assertEquals(1, game.getActionLog().size());
+        assertEquals(ActionLog.Kind.PLAY, ActionLog.kind(game.getActionLog().record(0)));
+    }
+
+    @Test
+    void cheatsByUnknownPlayersReplayWithoutSeat() {
+        ActionLog log = new ActionLog(1L, GameRules.TURNS_HINTS_LAST_DEFAULT, new int[]{10, 11});
+        log.addStrike(99);
+        log.defuse(11);
+
+        assertEquals(ActionLog.NO_SEAT, ActionLog.actorSeat(log.record(0)));
+        assertEquals(new GameCommand.AddStrike(-1), log.command(0));
+        assertEquals(new GameCommand.Defuse(11), log.command(1));
+    }
+
+    @Test
+    void logGrowsPastItsInitialCapacity() {
+        ActionLog log = new ActionLog(1L, GameRules.TURNS_HINTS_LAST_DEFAULT, new int[]{10, 11});
+        List<GameCommand> appended = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            log.discard(i % 2 == 0 ? 10 : 11, i % 5);
+            appended.add(new GameCommand.Discard(i % 2 == 0 ? 10 : 11, i % 5));
+        }
+        ActionLog restored = ActionLog.fromBytes(log.toBytes());
+        for (int i = 0; i < appended.size(); i++) {
+            assertEquals(appended.get(i), restored.command(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> restored.record(1_000));
+    }
+
+    @Test
+    void fromBytesRejectsOtherData() {
+        assertThrows(IllegalArgumentException.class, () -> ActionLog.fromBytes(new byte[]{1, 2, 3, 4}));
+        byte[] bytes = new ActionLog(1L, -1, new int[]{10, 11}).toBytes();
+        assertThrows(IllegalArgumentException.class, () -> ActionLog.fromBytes(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+}
@@ -0,0 +1,216 @@
+package se2.server.hanabi.game;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import se2.server.hanabi.game.GameLogger.LogLevel;
+import se2.server.hanabi.model.Card;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLogSinkTest {
+
+    private static final int GAMES = 1_000;
+    private static final int TURNS_PER_GAME = 60;
+
+    private static List<String> lines(ByteArrayOutputStream out) {
+        String text = out.toString(StandardCharsets.UTF_8);
+        return text.isEmpty() ? List.of() : List.of(text.split("\n"));
+    }
+
+    @Test
+    void testWritesEveryEntryInOrder() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncLogSink sink = new AsyncLogSink(Channels.newChannel(out), AsyncLogSink.DEFAULT_CAPACITY);
+        GameLogger logger = new GameLogger(GameLogger.DEFAULT_CAPACITY, sink);
+        for (int i = 0; i < 10_000; i++) {
+            logger.event(GameEvent.TURN_ADVANCED, i % 4, i);
+        }
+        logger.warn("Grün");
+        sink.close();
+
+        List<String> lines = lines(out);
+        assertEquals(10_001, lines.size());
+        assertEquals("[INFO] Turn advances to 0, turnCounter=0", lines.get(0));
+        assertEquals("[INFO] Turn advances to 3, turnCounter=9999", lines.get(9_999));
+        assertEquals("[WARN] Grün", lines.get(10_000));
+        assertEquals(logger.getHistory(), lines);
+    }
+
+    @Test
+    void testLevelFilterSkipsOutputButNotHistory() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncLogSink sink = new AsyncLogSink(Channels.newChannel(out), AsyncLogSink.DEFAULT_CAPACITY);
+        sink.configure(LogLevel.WARN, 1);
+        GameLogger logger = new GameLogger(GameLogger.DEFAULT_CAPACITY, sink);
+        logger.info("info");
+        logger.warn("warn");
+        logger.error("error");
+        sink.close();
+
+        assertEquals(List.of("[WARN] warn", "[ERROR] error"), lines(out));
+        assertEquals(3, logger.getHistory().size());
+    }
+
+    @Test
+    void testSamplingKeepsSomeInfoAndAllWarnings() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncLogSink sink = new AsyncLogSink(Channels.newChannel(out), AsyncLogSink.DEFAULT_CAPACITY);
+        sink.configure(LogLevel.INFO, 10);
+        GameLogger logger = new GameLogger(GameLogger.DEFAULT_CAPACITY, sink);
+        for (int i = 0; i < 10_000; i++) {
+            logger.info("info");
+            logger.warn("warn");
+        }
+        sink.close();
+
+        List<String> lines = lines(out);
+        long infos = lines.stream().filter("[INFO] info"::equals).count();
+        assertEquals(10_000, lines.size() - infos);
+        assertTrue(infos > 500 && infos < 1_500, "kept " + infos + " of 10000");
+    }
+
+    @Test
+    void testConfigureRejectsNonPositiveSampleRate() {
+        AsyncLogSink sink = new AsyncLogSink(Channels.newChannel(new ByteArrayOutputStream()), 16);
+        assertThrows(IllegalArgumentException.class, () -> sink.configure(LogLevel.INFO, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLogSink(Channels.newChannel(new ByteArrayOutputStream()), 0));
+        sink.close();
+    }
+
+    @Test
+    void testDropsAndReportsEntriesWhenWriterFallsBehind() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        WritableByteChannel blocked = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return target.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AsyncLogSink sink = new AsyncLogSink(blocked, 8);
+        GameLogger logger = new GameLogger(GameLogger.DEFAULT_CAPACITY, sink);
+        logger.info("first");
+        // the writer picks up the first entry and blocks writing it
+        Thread.sleep(200);
+        for (int i = 0; i < 20; i++) {
+            logger.info("queued " + i);
+        }
+        assertEquals(12, sink.getDropped());
+
+        release.countDown();
+        sink.close();
+        List<String> lines = lines(out);
+        assertEquals("[INFO] first", lines.get(0));
+        assertEquals("[WARN] 12 log entries dropped", lines.get(1));
+        assertEquals("[INFO] queued 0", lines.get(2));
+        assertEquals(1 + 8 + 1, lines.size());
+    }
+
+    private static void playGame(GameLogger logger, int game) {
+        logger.event(GameEvent.DEALING, 5);
+        logger.event(GameEvent.SETUP_COMPLETED, 30);
+        for (int turn = 0; turn < TURNS_PER_GAME; turn++) {
+            logger.event(GameEvent.PLAY_ATTEMPT, turn % 4, turn % 5);
+            logger.event(GameEvent.PLAYED, turn % 4, GameEvent.card(new Card(1 + turn % 5, Card.Color.values()[turn % 5], game % 50)));
+            logger.event(GameEvent.DREW, turn % 4, 30 - turn / 2);
+            logger.event(GameEvent.TURN_ADVANCED, (turn + 1) % 4, turn + 1);
+        }
+        logger.event(GameEvent.FINAL_SCORE, 20);
+    }
+
+    private static long runGames(LogSink sink) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> games = new ArrayList<>();
+            for (int game = 0; game < GAMES; game++) {
+                int id = game;
+                // the logger every live game gets, with the sink in place of standard output
+                games.add(pool.submit(() -> playGame(new GameLogger(GameLogger.DEFAULT_CAPACITY, sink), id)));
+            }
+            for (Future<?> game : games) {
+                game.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_ConcurrentGamesPrintingVersusAsyncSink(TestReporter reporter) throws Exception {
+        long entries = (long) GAMES * (3 + 4 * TURNS_PER_GAME);
+        assertTrue(entries <= AsyncLogSink.DEFAULT_CAPACITY, "The default queue must hold the whole run");
+        for (int round = 0; round < 3; round++) {
+            Path printed = Files.createTempFile("hanabi-log-printed", ".log");
+            Path async = Files.createTempFile("hanabi-log-async", ".log");
+            try {
+                long printingNanos;
+                // autoflush like System.out
+                try (PrintStream out = new PrintStream(new FileOutputStream(printed.toFile()), true, StandardCharsets.UTF_8)) {
+                    printingNanos = runGames(LogSink.printing(out));
+                }
+
+                long asyncNanos;
+                long drainedNanos;
+                long dropped;
+                try (FileChannel channel = FileChannel.open(async, StandardOpenOption.WRITE)) {
+                    // sized like the standard output sink the games write to
+                    AsyncLogSink sink = new AsyncLogSink(channel, AsyncLogSink.DEFAULT_CAPACITY);
+                    long start = System.nanoTime();
+                    asyncNanos = runGames(sink);
+                    sink.close();
+                    drainedNanos = System.nanoTime() - start;
+                    dropped = sink.getDropped();
+                }
+
+                reporter.publishEntry("round " + round, String.format(
+                        "%d games, %d entries: println %d ms; async sink %d ms for the games, %d ms until written",
+                        GAMES, entries, printingNanos / 1_000_000, asyncNanos / 1_000_000, drainedNanos / 1_000_000));
+                assertEquals(0, dropped, "The timed run must not lose log lines");
+                assertEquals(Files.size(printed), Files.size(async));
+            } finally {
+                Files.delete(printed);
+                Files.delete(async);
+            }
+        }
+    }
+}
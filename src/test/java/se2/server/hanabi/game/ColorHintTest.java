@@ -0,0 +1,29 @@
+package se2.server.hanabi.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import se2.server.hanabi.model.Card;
+
+class ColorHintTest {
+    private ColorHint colorHint;
+    private Card.Color color = Card.Color.BLUE;
+    private int expiryTurn = 3;
+
+    @BeforeEach
+    public void setup(){
+        colorHint = new ColorHint(color, expiryTurn);
+    }
+
+    @Test
+    public void testColorGetter() {
+        assertEquals(colorHint.getColor(), color);
+    }
+
+    @Test
+    public void testExpiryTurnGetter() {
+        assertEquals(colorHint.getExpiryTurn(), expiryTurn);
+    }
+}
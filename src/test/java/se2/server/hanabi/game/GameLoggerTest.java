@@ -1,9 +1,18 @@
 package se2.server.hanabi.game;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import se2.server.hanabi.model.Card;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,4 +111,238 @@ class GameLoggerTest {
         assertThrows(UnsupportedOperationException.class, () -> history.add("New entry"));
     }
 
+
+    @Test
+    void testHistoryViewDoesNotChangeAfterMoreEntries() {
+        logger.info("First message");
+        List<String> history = logger.getHistory();
+        for (int i = 0; i < 200; i++) {
+            logger.info("More " + i);
+        }
+
+        assertEquals(List.of("[INFO] First message"), history);
+        assertEquals(201, logger.getHistory().size());
+        assertEquals("[INFO] More 199", logger.getHistory().get(200));
+    }
+
+    @Test
+    void testEventsAreFormattedLikeTheirMessages() {
+        Card card = new Card(3, Card.Color.BLUE, 17);
+        logger.event(GameEvent.TURN_ADVANCED, 4, 12);
+        logger.event(GameEvent.PLAYED, 4, GameEvent.card(card));
+        logger.event(GameEvent.HINT_GIVEN, new int[]{1, 2, GameEvent.hint(HintType.COLOR, Card.Color.BLUE.ordinal()), 0, GameEvent.card(card)}, 5);
+        Map<Card.Color, Integer> fireworks = new EnumMap<>(Card.Color.class);
+        for (Card.Color color : Card.Color.values()) {
+            fireworks.put(color, color.ordinal());
+        }
+        logger.event(GameEvent.FIREWORKS, GameEvent.fireworks(fireworks));
+
+        assertEquals(List.of(
+                "[INFO] Turn advances to 4, turnCounter=12",
+                "[INFO] Player 4 played card: " + card,
+                "[INFO] Player 1 gave a hint to player 2 about COLOR BLUE. Matching cards: [Position: 0, ID: 17, Value: 3, Color: BLUE] ",
+                "[INFO] Played cards state: " + fireworks), logger.getHistory());
+    }
+
+    @Test
+    void testOverflowSpillsIntoCompressedSegments() {
+        GameLogger small = new GameLogger(64, LogSink.NONE);
+        for (int i = 0; i < 10_000; i++) {
+            small.event(GameEvent.TURN_ADVANCED, i % 4, i);
+        }
+        small.info("last");
+
+        List<String> history = small.getHistory();
+        assertEquals(10_001, history.size());
+        assertEquals("[INFO] Turn advances to 0, turnCounter=0", history.get(0));
+        assertEquals("[INFO] Turn advances to 3, turnCounter=9999", history.get(9_999));
+        assertEquals("[INFO] last", history.get(10_000));
+        // three ints per event uncompressed
+        assertTrue(small.getCompressedBytes() < 10_000 * 3 * Integer.BYTES / 2, "compressed to " + small.getCompressedBytes() + " bytes");
+
+        small.clear();
+        assertTrue(small.getHistory().isEmpty());
+        small.info("after clear");
+        assertEquals(List.of("[INFO] after clear"), small.getHistory());
+    }
+
+    @Test
+    void testDisabledLoggerKeepsNothing() {
+        GameLogger disabled = GameLogger.disabled();
+        disabled.info("dropped");
+        disabled.event(GameEvent.TURN_ADVANCED, 1, 2);
+
+        assertTrue(disabled.getHistory().isEmpty());
+        assertSame(disabled, GameLogger.disabled());
+    }
+
+    @Test
+    void testSinkOnlyLoggerWritesToTheSinkButKeepsNoHistory() {
+        List<String> written = new ArrayList<>();
+        GameLogger sinkOnly = GameLogger.sinkOnly(record -> written.add(GameLogger.format(record, 0)));
+        sinkOnly.info("Received from client: {}");
+        sinkOnly.event(GameEvent.TURN_ADVANCED, 1, 2);
+
+        assertEquals(2, written.size());
+        assertEquals("[INFO] Received from client: {}", written.get(0));
+        assertTrue(sinkOnly.getHistory().isEmpty());
+    }
+
+    @Test
+    void testHistorySinceSkipsOlderEntries() {
+        GameLogger small = new GameLogger(64, LogSink.NONE);
+        for (int i = 0; i < 1_000; i++) {
+            small.event(GameEvent.TURN_ADVANCED, i % 4, i);
+        }
+
+        GameLogger.History all = small.getHistory();
+        assertEquals(0, all.getFirstSequence());
+        assertEquals(1_000, all.getNextSequence());
+        GameLogger.History tail = small.getHistory(990);
+        assertEquals(990, tail.getFirstSequence());
+        assertEquals(all.subList(990, 1_000), tail);
+        assertTrue(small.getHistory(1_000).isEmpty());
+        assertEquals(1_000, small.getHistory(5_000).getFirstSequence());
+
+        small.clear();
+        small.info("after clear");
+        GameLogger.History afterClear = small.getHistory(0);
+        assertEquals(1_000, afterClear.getFirstSequence());
+        assertEquals(List.of("[INFO] after clear"), afterClear);
+    }
+
+    @Test
+    void testIteratorMatchesHistoryAcrossSegments() {
+        GameLogger small = new GameLogger(64, LogSink.NONE);
+        for (int i = 0; i < 1_000; i++) {
+            small.event(GameEvent.TURN_ADVANCED, i % 4, i);
+        }
+        small.info("x".repeat(100)); // a segment of its own
+        small.info("last");
+        GameLogger.History all = small.getHistory();
+
+        for (long since : new long[] {0, 1, 31, 500, 999, 1_000, 1_001, 1_002, 5_000}) {
+            GameLogger.HistoryIterator entries = small.iterateHistory(since);
+            assertEquals(Math.min(since, all.getNextSequence()), entries.getSequence());
+            assertEquals(all.getNextSequence(), entries.getEndSequence());
+            List<String> read = new ArrayList<>();
+            entries.forEachRemaining(read::add);
+            assertEquals(all.subList((int) Math.min(since, all.size()), all.size()), read, "since " + since);
+            assertEquals(entries.getEndSequence(), entries.getSequence());
+            assertThrows(NoSuchElementException.class, entries::next);
+        }
+
+        GameLogger.HistoryIterator page = small.iterateHistory(10);
+        assertEquals(all.get(10), page.next());
+        assertEquals(11, page.getSequence());
+
+        small.clear();
+        small.info("after clear");
+        GameLogger.HistoryIterator afterClear = small.iterateHistory(0);
+        assertEquals(1_002, afterClear.getSequence());
+        assertEquals("[INFO] after clear", afterClear.next());
+        assertFalse(afterClear.hasNext());
+    }
+
+    @Test
+    void testReadersSeeConsistentPrefixesWhileSpilling() throws Exception {
+        GameLogger small = new GameLogger(32, LogSink.NONE);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    List<String> history = small.getHistory();
+                    for (int i = 0; i < history.size(); i++) {
+                        assertEquals("[INFO] Turn advances to 0, turnCounter=" + i, history.get(i));
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 200_000; i++) {
+            small.event(GameEvent.TURN_ADVANCED, 0, i);
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(200_000, small.getHistory().size());
+    }
+
+    @Test
+    void testConcurrentReadersFollowingTheirCursorSeeEverySequenceOnce() throws Exception {
+        GameLogger small = new GameLogger(64, LogSink.NONE);
+        int entries = 200_000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    long next = 0;
+                    while (next < entries && failure.get() == null) {
+                        GameLogger.HistoryIterator page = small.iterateHistory(next);
+                        // nothing is dropped, so a reader never falls behind the oldest kept entry
+                        assertEquals(next, page.getSequence());
+                        while (page.hasNext()) {
+                            assertEquals(expectedEntry(next), page.next(), "entry " + next);
+                            next++;
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (int i = 0; i < entries; i++) {
+            // records of different lengths, so a torn copy of the ring misparses instead of passing by chance
+            if (i % 3 == 0) {
+                small.event(GameEvent.HINTS_REMOVED, i);
+            } else {
+                small.event(GameEvent.TURN_ADVANCED, i % 5, i);
+            }
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+    }
+
+    private static String expectedEntry(long sequence) {
+        return sequence % 3 == 0
+                ? "[INFO] " + sequence + " hints removed."
+                : "[INFO] Turn advances to " + sequence % 5 + ", turnCounter=" + sequence;
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_EventsVersusStrings() {
+        int turns = 200_000;
+        for (int round = 0; round < 3; round++) {
+            List<String> strings = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < turns; i++) {
+                strings.add("[INFO] Turn advances to " + (i % 4) + ", turnCounter=" + i);
+            }
+            long stringNanos = System.nanoTime() - start;
+
+            GameLogger events = new GameLogger(GameLogger.DEFAULT_CAPACITY, LogSink.NONE);
+            start = System.nanoTime();
+            for (int i = 0; i < turns; i++) {
+                events.event(GameEvent.TURN_ADVANCED, i % 4, i);
+            }
+            long eventNanos = System.nanoTime() - start;
+
+            long stringBytes = strings.stream().mapToLong(entry -> 40 + 16 + entry.length()).sum();
+            long eventBytes = GameLogger.DEFAULT_CAPACITY * Integer.BYTES + events.getCompressedBytes();
+            System.out.printf("%d entries: strings %d ns/entry, ~%d bytes; events %d ns/entry, %d bytes%n",
+                    turns, stringNanos / turns, stringBytes, eventNanos / turns, eventBytes);
+            assertEquals(turns, events.getHistory().size());
+        }
+    }
 }
@@ -38,6 +38,22 @@ public class GameManagerTest {
         assertEquals(3, game.getHands().size());
     }
 
+    @Test
+    void testCreateNewGameWithSeedDealsSameCards() {
+        GameManager first = GameManager.createNewGame(List.of(player1, player2), false, 99L);
+        GameManager second = GameManager.createNewGame(List.of(player1, player2), false, 99L);
+
+        assertEquals(99L, first.getSeed());
+        for (Player player : List.of(player1, player2)) {
+            List<Card> a = first.getPlayerHand(player.getId());
+            List<Card> b = second.getPlayerHand(player.getId());
+            for (int i = 0; i < a.size(); i++) {
+                assertEquals(a.get(i).getColor(), b.get(i).getColor());
+                assertEquals(a.get(i).getValue(), b.get(i).getValue());
+            }
+        }
+    }
+
     @Test
     void testInitialGameState() {
         assertFalse(game.isGameOver());
@@ -125,8 +141,8 @@ public class GameManagerTest {
 
         assertEquals(0, game.getCurrentScore());
 
-        game.getPlayedCards().put(Card.Color.RED, 3);
-        game.getPlayedCards().put(Card.Color.BLUE, 2);
+        playUpTo(Card.Color.RED, 3);
+        playUpTo(Card.Color.BLUE, 2);
 
         assertEquals(5, game.getCurrentScore());
     }
@@ -289,7 +305,7 @@ public class GameManagerTest {
 
     @Test
     void testInvalidCardPlay() {
-        game.getHands().get(player1.getId()).set(0, new Card(5, Card.Color.RED));
+        game.getHands().get(player1.getId()).set(0, new Card(5, Card.Color.RED, 50));
 
         ActionResult result = game.playCard(player1.getId(), 0);
 
@@ -313,8 +329,8 @@ public class GameManagerTest {
 
     @Test
     public void testLogFinalScore() {
-        game.getPlayedCards().put(Card.Color.RED, 5);
-        game.getPlayedCards().put(Card.Color.BLUE, 4);
+        playUpTo(Card.Color.RED, 5);
+        playUpTo(Card.Color.BLUE, 4);
         game.logFinalScore();
         assertTrue(game.getGameHistory().stream()
             .anyMatch(entry -> entry.contains("Final score: 9")), "Final score should be logged correctly.");
@@ -416,4 +432,10 @@ public class GameManagerTest {
         assertTrue(second.isSuccess());
         assertEquals("Strike already given for this round.", second.getMessage());
     }
-}
\ No newline at end of file
+
+    private void playUpTo(Card.Color color, int value) {
+        while (game.getGameState().getPlayedValue(color) < value) {
+            game.getGameState().playFirework(color);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package se2.server.hanabi.game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.game.commands.GameCommand;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameReplayTest {
+
+    private List<Player> players;
+
+    @BeforeEach
+    void setUp() {
+        players = List.of(new Player("alice"), new Player("bob"), new Player("carol"), new Player("dave"));
+    }
+
+    // plays random commands and returns the state after every logged action, starting with the deal
+    private static List<String> playRandomGame(GameManager game, SplittableRandom random) {
+        List<String> states = new ArrayList<>();
+        states.add(ActionLogTest.fingerprint(game.getSnapshot()));
+        for (int step = 0; step < 300 && !game.isGameOver(); step++) {
+            int logged = game.getActionLog().size();
+            game.execute(ActionLogTest.randomCommand(game, random));
+            if (game.getActionLog().size() > logged) {
+                states.add(ActionLogTest.fingerprint(game.getSnapshot()));
+            }
+        }
+        return states;
+    }
+
+    @Test
+    void atActionMatchesTheLiveGameAfterEveryAction() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int round = 0; round < 10; round++) {
+            GameManager game = GameManager.createNewGame(players, round % 2 == 0, random.nextLong());
+            List<String> states = playRandomGame(game, random);
+            GameReplay replay = new GameReplay(players, game.getActionLog(), 4);
+
+            assertEquals(states.size() - 1, replay.getActionCount());
+            // backwards, so most seeks start from a checkpoint instead of the head
+            for (int count = states.size() - 1; count >= 0; count--) {
+                assertEquals(states.get(count), ActionLogTest.fingerprint(replay.atAction(count)), "round " + round + ", action " + count);
+            }
+        }
+    }
+
+    @Test
+    void atTurnReturnsTheLastStateOfTheTurn() {
+        GameManager game = GameManager.createNewGame(players, false, 42L);
+        GameReplay replay = GameReplay.of(game);
+        List<Integer> dealt = replay.atTurn(0).getHands().get(game.getCurrentPlayerId()).stream().map(Card::getId).toList();
+
+        int first = game.getCurrentPlayerId();
+        game.playCard(first, 0);
+        game.incrementStrikes(); // does not end the turn
+        String secondTurn = ActionLogTest.fingerprint(game.getSnapshot());
+        game.discardCard(game.getCurrentPlayerId(), 0);
+
+        assertEquals(dealt, replay.atTurn(0).getHands().get(first).stream().map(Card::getId).toList());
+        assertEquals(secondTurn, ActionLogTest.fingerprint(replay.atTurn(1)));
+        assertEquals(ActionLogTest.fingerprint(game.getSnapshot()), ActionLogTest.fingerprint(replay.atTurn(2)));
+        assertEquals(ActionLogTest.fingerprint(game.getSnapshot()), ActionLogTest.fingerprint(replay.atTurn(100)));
+    }
+
+    @Test
+    void replayFollowsTheLogAsItGrows() {
+        GameManager game = GameManager.createNewGame(players, true, 5L);
+        GameReplay replay = game.newReplay();
+        assertNotSame(replay, game.newReplay());
+        assertEquals(0, replay.getActionCount());
+
+        game.giveHint(GameCommand.Hint.value(game.getCurrentPlayerId(), players.get(1).getId(), 1));
+        assertEquals(ActionLogTest.fingerprint(game.getSnapshot()), ActionLogTest.fingerprint(replay.atAction(1)));
+        assertThrows(IndexOutOfBoundsException.class, () -> replay.atAction(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> replay.atAction(-1));
+    }
+
+    @Test
+    void replayWithOtherPlayersUsesTheSameSeats() {
+        GameManager game = GameManager.createNewGame(players, false, 9L);
+        playRandomGame(game, new SplittableRandom(3));
+
+        List<Player> placeholders = GameReplay.placeholderPlayers(players.size());
+        GameManager replayed = GameReplay.replay(placeholders, game.getActionLog());
+
+        assertEquals(game.getCurrentScore(), replayed.getCurrentScore());
+        assertEquals(game.getStrikes(), replayed.getStrikes());
+        assertEquals(game.getSeat(game.getCurrentPlayerId()), replayed.getSeat(replayed.getCurrentPlayerId()));
+        assertThrows(IllegalArgumentException.class, () -> new GameReplay(placeholders.subList(0, 2), game.getActionLog(), 4));
+    }
+
+    @Test
+    void copyContinuesIndependently() {
+        GameManager game = GameManager.createNewGame(players, false, 13L);
+        GameManager copy = game.copy();
+        String before = ActionLogTest.fingerprint(game.getSnapshot());
+        assertEquals(before, ActionLogTest.fingerprint(copy.getSnapshot()));
+
+        copy.playCard(copy.getCurrentPlayerId(), 0);
+        assertEquals(before, ActionLogTest.fingerprint(game.getSnapshot()));
+        assertEquals(0, game.getActionLog().size());
+        assertEquals(1, copy.getActionLog().size());
+        assertTrue(copy.getGameHistory().isEmpty());
+    }
+
+    @Test
+    void replayedGamesKeepNoHistory() {
+        GameManager game = GameManager.createNewGame(players, false, 17L);
+        playRandomGame(game, new SplittableRandom(5));
+
+        GameManager replayed = GameReplay.replay(players, game.getActionLog());
+        assertFalse(game.getGameHistory().isEmpty());
+        assertTrue(replayed.getGameHistory().isEmpty());
+        assertSame(GameLogger.disabled(), replayed.getLogger());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_SeekFromCheckpointVersusFromTheStart() {
+        GameManager game = GameManager.createNewGame(players, false, 21L);
+        // discards and hints only, so the game runs until the deck is empty
+        for (int step = 0; step < 200 && !game.isGameOver(); step++) {
+            int actor = game.getCurrentPlayerId();
+            if (game.getHints() < 8) {
+                game.discardCard(actor, 0);
+            } else {
+                int target = players.get((game.getSeat(actor) + 1) % players.size()).getId();
+                game.giveHint(GameCommand.Hint.color(actor, target, game.getPlayerHand(target).get(0).getColor()));
+            }
+        }
+        ActionLog log = game.getActionLog();
+        GameReplay replay = new GameReplay(players, log, GameReplay.DEFAULT_CHECKPOINT_INTERVAL);
+        int seeks = 2_000;
+        for (int round = 0; round < 3; round++) {
+            SplittableRandom random = new SplittableRandom(round);
+            long start = System.nanoTime();
+            for (int i = 0; i < seeks; i++) {
+                replay.atAction(random.nextInt(log.size() + 1));
+            }
+            long checkpointNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < seeks; i++) {
+                GameReplay.replay(players, log);
+            }
+            long fullNanos = System.nanoTime() - start;
+            System.out.printf("%d actions: seek from checkpoint %d us, full replay %d us%n",
+                    log.size(), checkpointNanos / seeks / 1_000, fullNanos / seeks / 1_000);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package se2.server.hanabi.game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.api.GameStatus;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Player;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSnapshotTest {
+
+    private GameManager game;
+    private Player alice;
+    private Player bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = new Player("alice");
+        bob = new Player("bob");
+        game = GameManager.createNewGame(List.of(alice, bob));
+    }
+
+    @Test
+    void action_PublishesNewSnapshotAndSharesUnchangedParts() {
+        GameSnapshot before = game.getSnapshot();
+        game.setNumRemainingHintTokens(5);
+        GameSnapshot tokens = game.getSnapshot();
+        assertNotSame(before, tokens);
+        assertSame(before.getHands().get(alice.getId()), tokens.getHands().get(alice.getId()));
+        assertSame(before.getDiscardPile(), tokens.getDiscardPile());
+
+        game.discardCard(alice.getId(), 0);
+        GameSnapshot after = game.getSnapshot();
+        assertNotSame(tokens.getHands().get(alice.getId()), after.getHands().get(alice.getId()));
+        assertSame(tokens.getHands().get(bob.getId()), after.getHands().get(bob.getId()), "Bob's hand did not change");
+        assertEquals(1, after.getDiscardPile().size());
+        assertEquals(6, after.getNumRemainingHintTokens());
+    }
+
+    @Test
+    void status_IsNotChangedByLaterActions() {
+        game.setNumRemainingHintTokens(5);
+        GameStatus status = game.getStatusFor(bob.getId());
+        List<Card> aliceHand = List.copyOf(status.getVisibleHands().get(alice.getId()));
+
+        game.discardCard(alice.getId(), 0);
+
+        assertEquals(aliceHand, status.getVisibleHands().get(alice.getId()));
+        assertTrue(status.getDiscardPile().isEmpty());
+        assertEquals(5, status.getNumRemainingHintTokens());
+    }
+
+    @Test
+    void snapshot_IsImmutable() {
+        GameSnapshot snapshot = game.getSnapshot();
+        Card card = snapshot.getHands().get(alice.getId()).get(0);
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getHands().get(alice.getId()).remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getPlayedCards().put(Card.Color.RED, 1));
+        assertSame(card, game.getPlayerHand(alice.getId()).get(0));
+    }
+
+    @Test
+    void readers_SeeConsistentStatesWhileActionsRun() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    GameStatus status = game.getStatusFor(alice.getId());
+                    int cards = status.getNumRemainingCards() + status.getDiscardPile().size()
+                            + status.getOwnHand().size() + status.getVisibleHands().get(bob.getId()).size()
+                            + status.getPlayedCards().values().stream().mapToInt(Integer::intValue).sum();
+                    assertEquals(50, cards, "Every card is in exactly one place");
+                    game.getGameHistory().forEach(entry -> assertNotNull(entry));
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2_000 && !game.isGameOver(); i++) {
+            int current = game.getCurrentPlayerId();
+            game.setNumRemainingHintTokens(5);
+            game.discardCard(current, 0);
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,105 @@
+package se2.server.hanabi.game;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.api.StateDelta;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Player;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateLogTest {
+
+    private GameManager game;
+    private Player alice;
+    private Player bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = new Player("alice");
+        bob = new Player("bob");
+        game = GameManager.createNewGame(List.of(alice, bob));
+    }
+
+    @Test
+    void capture_ReturnsNullWithoutChanges() {
+        assertNull(game.getStateLog().capture());
+        assertEquals(0, game.getStateLog().getVersion());
+    }
+
+    @Test
+    void capture_DescribesDiscardAsDelta() {
+        game.setNumRemainingHintTokens(5);
+        game.getStateLog().capture();
+        Card discarded = game.getPlayerHand(alice.getId()).get(0);
+
+        assertTrue(game.discardCard(alice.getId(), 0).isSuccess());
+        StateDelta delta = game.getStateLog().capture();
+
+        assertEquals(1, delta.getBaseVersion());
+        assertEquals(2, delta.getVersion());
+        assertEquals(List.of(discarded), delta.getDiscarded());
+        assertEquals(6, delta.getNumRemainingHintTokens());
+        assertEquals(bob.getId(), delta.getCurrentPlayerId());
+        assertEquals(game.getDeck().getNumRemainingCards(), delta.getNumRemainingCards());
+        assertEquals(1, delta.getHands().size(), "Only the discarding player's hand changed");
+        assertEquals(1, delta.getNewCards().size(), "Exactly one card was drawn");
+        assertNull(delta.getStrikes());
+        assertTrue(delta.getPlayedCards().isEmpty());
+    }
+
+    @Test
+    void viewFor_HidesTheOwnersNewCard() {
+        game.setNumRemainingHintTokens(5);
+        game.getStateLog().capture();
+        game.discardCard(alice.getId(), 0);
+        StateDelta delta = game.getStateLog().capture();
+
+        assertTrue(delta.viewFor(alice.getId()).getNewCards().isEmpty());
+        assertEquals(1, delta.viewFor(bob.getId()).getNewCards().size());
+        assertEquals(delta.getHands(), delta.viewFor(alice.getId()).getHands());
+    }
+
+    @Test
+    void capture_TracksHintsAddedAndExpired() {
+        Card target = game.getPlayerHand(bob.getId()).get(0);
+        assertTrue(game.giveHint(alice.getId(), bob.getId(), HintType.VALUE, target.getValue()).isSuccess());
+        StateDelta hinted = game.getStateLog().capture();
+        assertEquals(target.getValue(), hinted.getValueHints().get(target.getId()));
+        assertEquals(GameRules.MAX_HINT_TOKENS - 1, hinted.getNumRemainingHintTokens());
+
+        game.removeCardFromShownHints(target.getId());
+        StateDelta expired = game.getStateLog().capture();
+        assertTrue(expired.getRemovedValueHints().contains(target.getId()));
+    }
+
+    @Test
+    void since_ReturnsBufferedDeltasInOrder() {
+        for (int i = 0; i < 3; i++) {
+            game.setStrikes(i + 1);
+            game.getStateLog().capture();
+        }
+
+        List<StateDelta> deltas = game.getStateLog().since(1);
+        assertEquals(2, deltas.size());
+        assertEquals(2, deltas.get(0).getVersion());
+        assertEquals(3, deltas.get(1).getVersion());
+        assertTrue(game.getStateLog().since(3).isEmpty());
+        assertNull(game.getStateLog().since(4), "Unknown future version needs a snapshot");
+    }
+
+    @Test
+    void since_ReturnsNullOnceDeltasLeftTheBuffer() {
+        GameStateLog log = new GameStateLog(game.getGameState(), 2);
+        for (int i = 0; i < 3; i++) {
+            game.setStrikes(i + 1);
+            log.capture();
+        }
+
+        assertNull(log.since(0));
+        assertEquals(2, log.since(1).size());
+    }
+}
@@ -2,12 +2,20 @@ package se2.server.hanabi.game;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
 
 import se2.server.hanabi.model.Card;
 import se2.server.hanabi.model.Player;
@@ -53,6 +61,63 @@ class GameStateTest {
         assertFalse(gameState.isActionValid(player2.getId()));
     }
 
+    @Test
+    void testPlayersDoNotFollowLaterChangesOfTheSourceList() {
+        List<Player> lobbyPlayers = new ArrayList<>(players);
+        GameState state = new GameState(lobbyPlayers, logger);
+        lobbyPlayers.remove(player2);
+        lobbyPlayers.add(playerX);
+
+        assertEquals(players, state.getPlayers());
+        assertTrue(state.playerExists(player2.getId()));
+        assertFalse(state.playerExists(playerX.getId()));
+    }
+
+    @Test
+    void testPlayFireworkKeepsScoreAndCompletion() {
+        for (Card.Color color : Card.Color.values()) {
+            for (int value = 0; value < GameRules.MAX_CARD_VALUE; value++) {
+                assertFalse(gameState.isPerfect());
+                gameState.playFirework(color);
+            }
+        }
+
+        assertEquals(GameRules.MAX_SCORE, gameState.getCurrentScore());
+        assertTrue(gameState.isPerfect());
+        assertThrows(IllegalStateException.class, () -> gameState.playFirework(Card.Color.RED));
+    }
+
+    @Test
+    void testPlayedCardsViewIsReadOnlyAndLive() {
+        Map<Card.Color, Integer> played = gameState.getPlayedCards();
+        gameState.playFirework(Card.Color.BLUE);
+
+        assertEquals(1, played.get(Card.Color.BLUE));
+        assertEquals(0, played.get(Card.Color.RED));
+        assertEquals(Card.Color.values().length, played.size());
+        assertThrows(UnsupportedOperationException.class, () -> played.put(Card.Color.RED, 5));
+        assertThrows(UnsupportedOperationException.class, () -> played.replaceAll((color, value) -> 5));
+        assertThrows(UnsupportedOperationException.class, () -> played.merge(Card.Color.RED, 1, Integer::sum));
+        assertThrows(UnsupportedOperationException.class, () -> played.entrySet().iterator().next().setValue(5));
+        assertThrows(UnsupportedOperationException.class, played::clear);
+        assertEquals(1, gameState.getCurrentScore());
+    }
+
+    @Test
+    void testSeatsFollowPlayerOrder() {
+        gameState.dealInitialCards();
+        assertEquals(0, gameState.getSeat(player1.getId()));
+        assertEquals(2, gameState.getSeat(player3.getId()));
+        assertEquals(-1, gameState.getSeat(playerX.getId()));
+        assertEquals(player2.getId(), gameState.getPlayerIdAtSeat(1));
+        assertSame(gameState.getHands().get(player2.getId()), gameState.getHandAtSeat(1));
+        assertNull(gameState.getHand(playerX.getId()));
+
+        gameState.advanceTurn();
+        assertEquals(1, gameState.getCurrentSeat());
+        assertEquals(player2.getId(), gameState.getCurrentPlayerId());
+    }
+
     @Test
     void testPlayerExists() {
         assertTrue(gameState.playerExists(player3.getId()));
@@ -62,9 +127,9 @@ class GameStateTest {
     @Test
     void testGetCardsShowingColorHints() {
         Card.Color cardColor = Card.Color.BLUE;
-        ColorHintAndRemainingTurns colorHintAndRemainingTurns = new ColorHintAndRemainingTurns(cardColor, 7);
+        ColorHint colorHint = new ColorHint(cardColor, 7);
         int cardId = 18;
-        gameState.getCardsShowingColorHintsAndRemainingTurns().put(cardId, colorHintAndRemainingTurns);
+        gameState.getCardsShowingColorHintsAndExpiry().put(cardId, colorHint);
         
         assertEquals(cardColor, gameState.getCardsShowingColorHints().get(cardId));
     }
@@ -72,9 +137,9 @@ class GameStateTest {
     @Test
     void testGetCardsShowingValueHints() {
         int cardValue = 4;
-        ValueHintAndRemainingTurns valueHintAndRemainingTurns = new ValueHintAndRemainingTurns(cardValue, 7);
+        ValueHint valueHint = new ValueHint(cardValue, 7);
         int cardId = 18;
-        gameState.getCardsShowingValueHintsAndRemainingTurns().put(cardId, valueHintAndRemainingTurns);
+        gameState.getCardsShowingValueHintsAndExpiry().put(cardId, valueHint);
         
         assertEquals(cardValue, gameState.getCardsShowingValueHints().get(cardId));
     }
@@ -105,7 +170,7 @@ class GameStateTest {
     @Test 
     void testIsPerfectGame() {
         for (Card.Color color : gameState.getPlayedCards().keySet()) {
-            gameState.getPlayedCards().put(color, GameRules.MAX_CARD_VALUE);
+            playUpTo(color, GameRules.MAX_CARD_VALUE);
         }
         assertTrue(gameState.checkEndCondition());
     }
@@ -125,32 +190,93 @@ class GameStateTest {
     }
 
     @Test
-    void testRemoveExpiredShownColorHints() {
-        Card.Color cardColor = Card.Color.BLUE;
-        ColorHintAndRemainingTurns colorHintAndRemainingTurns = new ColorHintAndRemainingTurns(cardColor, 0);
+    void testColorHintExpiresAfterNumTurnsHintsLast() {
         int cardId = 18;
-        gameState.getCardsShowingColorHintsAndRemainingTurns().put(cardId, colorHintAndRemainingTurns);
+        gameState.addColorHint(cardId, Card.Color.BLUE);
+        assertEquals(GameRules.TURNS_HINTS_LAST_DEFAULT + 1, gameState.getCardsShowingColorHintsAndExpiry().get(cardId).getExpiryTurn());
 
-        assertFalse(gameState.getCardsShowingColorHintsAndRemainingTurns().isEmpty());
-        gameState.removeExpiredShownHints();
-        assertTrue(gameState.getCardsShowingColorHintsAndRemainingTurns().isEmpty());
+        gameState.advanceTurn();
+        assertEquals(Card.Color.BLUE, gameState.getCardsShowingColorHints().get(cardId));
+        gameState.advanceTurn();
+        assertTrue(gameState.getCardsShowingColorHintsAndExpiry().isEmpty());
     }
 
     @Test
-    void testRemoveExpiredShownValueHints() {
-        int cardValue = 2;
-        ValueHintAndRemainingTurns valueHintAndRemainingTurns = new ValueHintAndRemainingTurns(cardValue, 0);
+    void testValueHintExpiresAfterNumTurnsHintsLast() {
         int cardId = 18;
-        gameState.getCardsShowingValueHintsAndRemainingTurns().put(cardId, valueHintAndRemainingTurns);
+        gameState.addValueHint(cardId, 2);
+
+        gameState.advanceTurn();
+        assertEquals(2, gameState.getCardsShowingValueHints().get(cardId));
+        gameState.advanceTurn();
+        assertTrue(gameState.getCardsShowingValueHintsAndExpiry().isEmpty());
+    }
+
+    @Test
+    void testRepeatedHintKeepsCardHinted() {
+        int cardId = 18;
+        gameState.addColorHint(cardId, Card.Color.BLUE);
+        gameState.advanceTurn();
+        gameState.addColorHint(cardId, Card.Color.BLUE);
+        gameState.advanceTurn();
+
+        assertEquals(Card.Color.BLUE, gameState.getCardsShowingColorHints().get(cardId), "The first hint's expiry must not remove the second");
+        gameState.advanceTurn();
+        assertTrue(gameState.getCardsShowingColorHints().isEmpty());
+    }
+
+    @Test
+    void testRemovedHintIsSkippedOnExpiry() {
+        gameState.addValueHint(18, 2);
+        gameState.removeCardFromShownHints(18);
+        gameState.advanceTurn();
+        gameState.advanceTurn();
+
+        assertTrue(gameState.getCardsShowingValueHints().isEmpty());
+    }
+
+    @Test
+    void testPersistentHintsNeverExpire() {
+        GameState casual = new GameState(players, GameRules.TURNS_HINTS_LAST_CASUAL, logger);
+        casual.addColorHint(18, Card.Color.RED);
+        casual.addValueHint(19, 3);
+        for (int i = 0; i < 100; i++) {
+            casual.advanceTurn();
+        }
+
+        assertEquals(GameState.PERSISTENT_HINT, casual.getCardsShowingColorHintsAndExpiry().get(18).getExpiryTurn());
+        assertEquals(3, casual.getCardsShowingValueHints().get(19));
+    }
+
+    @Test
+    void testMaxPossibleScoreDropsWhenLastCopyIsDiscarded() {
+        assertEquals(GameRules.MAX_SCORE, gameState.getMaxPossibleScore());
+
+        gameState.addToDiscardPile(new Card(2, Card.Color.GREEN, 13));
+        assertEquals(GameRules.MAX_SCORE, gameState.getMaxPossibleScore(), "Another green 2 is left");
+        gameState.addToDiscardPile(new Card(2, Card.Color.GREEN, 14));
+        assertEquals(GameRules.MAX_SCORE - 4, gameState.getMaxPossibleScore());
+
+        gameState.addToDiscardPile(new Card(5, Card.Color.GREEN, 19));
+        assertEquals(GameRules.MAX_SCORE - 4, gameState.getMaxPossibleScore(), "Green already stops at 1");
+        gameState.addToDiscardPile(new Card(5, Card.Color.RED, 9));
+        assertEquals(GameRules.MAX_SCORE - 5, gameState.getMaxPossibleScore());
+        assertEquals(4, gameState.getDiscardPile().size());
+    }
 
-        assertFalse(gameState.getCardsShowingValueHintsAndRemainingTurns().isEmpty());
-        gameState.removeExpiredShownHints();
-        assertTrue(gameState.getCardsShowingValueHintsAndRemainingTurns().isEmpty());
+    @Test
+    void testScoreFollowsPlayedCards() {
+        playUpTo(Card.Color.RED, 2);
+        playUpTo(Card.Color.RED, 3);
+        playUpTo(Card.Color.WHITE, 1);
+
+        assertEquals(4, gameState.getCurrentScore());
+        assertFalse(gameState.isPerfect());
     }
 
     @Test 
     void testGetCurrentScore() {
-        gameState.getPlayedCards().put(Card.Color.BLUE, 3);
+        playUpTo(Card.Color.BLUE, 3);
         assertEquals(3, gameState.getCurrentScore());
         gameState.setGameOver(true);
         gameState.setGameLost(true);
@@ -180,4 +306,48 @@ class GameStateTest {
     }
 
 
+
+    @Test
+    void testHandsAndDiscardPileHoldTheSharedStandardCards() {
+        gameState.dealInitialCards();
+        List<Card> hand = gameState.getHand(player1.getId());
+        Card card = hand.remove(0);
+        gameState.addToDiscardPile(card);
+
+        assertSame(Card.standard(card.getId()), card);
+        assertSame(card, gameState.getDiscardPile().get(0));
+        assertSame(Card.standard(hand.get(0).getId()), hand.get(0));
+        assertEquals(hand.get(1).getId(), gameState.getPlayerCardIds(player1.getId()).get(1));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_BytesPerLiveGame(TestReporter reporter) {
+        List<Player> fourPlayers = List.of(player1, player2, player3, new Player("dave"));
+        int games = 20_000;
+        GameState[] live = new GameState[games];
+        long before = usedHeap();
+        for (int i = 0; i < games; i++) {
+            live[i] = new GameState(fourPlayers, GameRules.TURNS_HINTS_LAST_DEFAULT, logger, i);
+            live[i].dealInitialCards();
+        }
+        long bytesPerGame = (usedHeap() - before) / games;
+        reporter.publishEntry("bytes per dealt 4-player game", String.valueOf(bytesPerGame));
+        assertEquals(games, live.length);
+        // about 2950 bytes while hands, deck and discard pile held card objects of their own
+        assertTrue(bytesPerGame < 2_400, bytesPerGame + " bytes per game");
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private void playUpTo(Card.Color color, int value) {
+        while (gameState.getPlayedValue(color) < value) {
+            gameState.playFirework(color);
+        }
+    }
 }
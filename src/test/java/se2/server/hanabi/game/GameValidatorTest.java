@@ -3,7 +3,6 @@ package se2.server.hanabi.game;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import se2.server.hanabi.model.Card;
-import se2.server.hanabi.model.Player;
 import se2.server.hanabi.util.GameRules;
 
 import java.util.*;
@@ -43,18 +42,16 @@ class GameValidatorTest {
     @Test
     void testIsValidCardIndex_Valid() {
         List<Card> hand = Arrays.asList(mock(Card.class), mock(Card.class));
-        Map<Integer, List<Card>> hands = new HashMap<>();
-        hands.put(1, hand);
-        when(gameManager.getHands()).thenReturn(hands);
+        when(gameManager.getSeat(1)).thenReturn(0);
+        when(gameManager.getHandAtSeat(0)).thenReturn(hand);
         assertTrue(GameValidator.isValidCardIndex(gameManager, 1, 1));
     }
 
     @Test
     void testIsValidCardIndex_InvalidIndex() {
         List<Card> hand = Arrays.asList(mock(Card.class));
-        Map<Integer, List<Card>> hands = new HashMap<>();
-        hands.put(1, hand);
-        when(gameManager.getHands()).thenReturn(hands);
+        when(gameManager.getSeat(1)).thenReturn(0);
+        when(gameManager.getHandAtSeat(0)).thenReturn(hand);
 
         assertFalse(GameValidator.isValidCardIndex(gameManager, 1, 1));
         assertFalse(GameValidator.isValidCardIndex(gameManager, 1, -1));
@@ -65,9 +62,8 @@ class GameValidatorTest {
     @Test
     void testIsValidCardIndex_ExactBoundaries() {
         List<Card> hand = Arrays.asList(mock(Card.class), mock(Card.class));
-        Map<Integer, List<Card>> hands = new HashMap<>();
-        hands.put(1, hand);
-        when(gameManager.getHands()).thenReturn(hands);
+        when(gameManager.getSeat(1)).thenReturn(0);
+        when(gameManager.getHandAtSeat(0)).thenReturn(hand);
         
         assertTrue(GameValidator.isValidCardIndex(gameManager, 1, 0));
         assertTrue(GameValidator.isValidCardIndex(gameManager, 1, 1));
@@ -76,26 +72,19 @@ class GameValidatorTest {
 
     @Test
     void testIsValidCardIndex_NoHand() {
-        Map<Integer, List<Card>> hands = new HashMap<>();
-        when(gameManager.getHands()).thenReturn(hands);
+        when(gameManager.getSeat(2)).thenReturn(-1);
         assertFalse(GameValidator.isValidCardIndex(gameManager, 2, 0));
     }
 
     @Test
     void testPlayerExists_True() {
-        Player alice = mock(Player.class);
-        when(alice.getId()).thenReturn(1);
-        Player bob = mock(Player.class);
-        when(bob.getId()).thenReturn(2);
-        when(gameManager.getPlayers()).thenReturn(Arrays.asList(alice, bob));
+        when(gameManager.getSeat(2)).thenReturn(1);
         assertTrue(GameValidator.playerExists(gameManager, 2));
     }
 
     @Test
     void testPlayerExists_False() {
-        Player alice = mock(Player.class);
-        when(alice.getId()).thenReturn(1);
-        when(gameManager.getPlayers()).thenReturn(Collections.singletonList(alice));
+        when(gameManager.getSeat(3)).thenReturn(-1);
         assertFalse(GameValidator.playerExists(gameManager, 3));
     }
 
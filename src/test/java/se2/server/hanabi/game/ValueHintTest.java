@@ -0,0 +1,27 @@
+package se2.server.hanabi.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ValueHintTest {
+    private ValueHint valueHint;
+    private int value = 2;
+    private int expiryTurn = 3;
+
+    @BeforeEach
+    public void setup(){
+        valueHint = new ValueHint(value, expiryTurn);
+    }
+
+    @Test
+    public void testvalueGetter() {
+        assertEquals(valueHint.getValue(), value);
+    }
+
+    @Test
+    public void testExpiryTurnGetter() {
+        assertEquals(valueHint.getExpiryTurn(), expiryTurn);
+    }
+}
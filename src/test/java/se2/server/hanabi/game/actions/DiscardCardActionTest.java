@@ -27,7 +27,7 @@ public class DiscardCardActionTest {
     public void testDiscardingCardAddsToDiscardPile() {
         List<Card> hand = game.getHands().get(player1.getId()); 
         hand.clear();
-        hand.add(new Card(2, Card.Color.GREEN));
+        hand.add(new Card(2, Card.Color.GREEN, 50));
         ActionResult result = new DiscardCardAction(game, player1.getId(), 0).execute(); 
         assertTrue(result.getMessage().contains("Card discarded"));
         assertEquals(1, game.getDiscardPile().size());
@@ -43,7 +43,7 @@ public class DiscardCardActionTest {
     public void testDiscardAfterGameOver() {
         game.setGameOver(true);
         List<Card> hand = game.getHands().get(player1.getId());
-        hand.add(new Card(3, Card.Color.RED));
+        hand.add(new Card(3, Card.Color.RED, 51));
         ActionResult result = new DiscardCardAction(game, player1.getId(), 0).execute();
         assertTrue(result.getMessage().contains("Game is already over"));
     }
@@ -53,7 +53,7 @@ public class DiscardCardActionTest {
         game.setNumRemainingHintTokens(GameRules.MAX_HINT_TOKENS - 1);
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(4, Card.Color.BLUE));
+        hand.add(new Card(4, Card.Color.BLUE, 52));
         new DiscardCardAction(game, player1.getId(), 0).execute();
         assertEquals(GameRules.MAX_HINT_TOKENS, game.getHints());
     }
@@ -63,7 +63,7 @@ public class DiscardCardActionTest {
         game.setNumRemainingHintTokens(GameRules.MAX_HINT_TOKENS);
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(4, Card.Color.WHITE));
+        hand.add(new Card(4, Card.Color.WHITE, 53));
         new DiscardCardAction(game, player1.getId(), 0).execute();
         assertEquals(GameRules.MAX_HINT_TOKENS, game.getHints());
     }
@@ -72,7 +72,7 @@ public class DiscardCardActionTest {
     public void testDiscardWithInvalidIndex() {
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(1, Card.Color.WHITE));
+        hand.add(new Card(1, Card.Color.WHITE, 54));
         ActionResult result = new DiscardCardAction(game, player1.getId(), 5).execute();
         assertTrue(result.getMessage().contains("Invalid card index"));
     }
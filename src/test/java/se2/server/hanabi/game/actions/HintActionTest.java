@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import se2.server.hanabi.game.GameManager;
 import se2.server.hanabi.game.HintType;
+import se2.server.hanabi.game.commands.GameCommand;
 import se2.server.hanabi.model.Card;
 import se2.server.hanabi.model.Player;
 import se2.server.hanabi.util.ActionResult;
@@ -29,8 +30,8 @@ public class HintActionTest {
         game.setNumRemainingHintTokens(4);
         List<Card> hand = game.getHands().get(player2.getId());
         hand.clear();
-        hand.add(new Card(2, Card.Color.BLUE));
-        ActionResult result = new HintAction(game, player1.getId(), player2.getId(), HintType.COLOR, Card.Color.BLUE).execute(); // Passing player IDs 1 and 2
+        hand.add(new Card(2, Card.Color.BLUE, 50));
+        ActionResult result = new HintAction(game, GameCommand.Hint.color(player1.getId(), player2.getId(), Card.Color.BLUE)).execute(); // Passing player IDs 1 and 2
         assertTrue(result.getMessage().contains("Hint given"));
         assertEquals(3, game.getHints());
     }
@@ -40,8 +41,8 @@ public class HintActionTest {
         game.setNumRemainingHintTokens(2);
         List<Card> hand = game.getHands().get(player2.getId());
         hand.clear();
-        hand.add(new Card(4, Card.Color.RED));
-        ActionResult result = new HintAction(game, player1.getId(), player2.getId(), HintType.VALUE, 4).execute(); // Passing player IDs 1 and 2
+        hand.add(new Card(4, Card.Color.RED, 51));
+        ActionResult result = new HintAction(game, GameCommand.Hint.value(player1.getId(), player2.getId(), 4)).execute(); // Passing player IDs 1 and 2
         assertTrue(result.getMessage().contains("Hint given"));
         assertEquals(1, game.getHints());
 
@@ -52,7 +53,7 @@ public class HintActionTest {
         game.setNumRemainingHintTokens(2);
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(1, Card.Color.WHITE));
+        hand.add(new Card(1, Card.Color.WHITE, 52));
 
         ActionResult result = game.giveHint(player1.getId(), player1.getId(), HintType.COLOR, Card.Color.WHITE);
 
@@ -66,7 +67,7 @@ public class HintActionTest {
         game.setNumRemainingHintTokens(0);
         List<Card> hand = game.getHands().get(player2.getId());
         hand.clear();
-        hand.add(new Card(3, Card.Color.GREEN));
+        hand.add(new Card(3, Card.Color.GREEN, 53));
 
         ActionResult result = game.giveHint(player1.getId(), player2.getId(), HintType.COLOR, Card.Color.GREEN);
 
@@ -80,7 +81,7 @@ public class HintActionTest {
         game.setNumRemainingHintTokens(2);
         List<Card> hand = game.getHands().get(player2.getId());
         hand.clear();
-        hand.add(new Card(5, Card.Color.YELLOW));
+        hand.add(new Card(5, Card.Color.YELLOW, 54));
 
         ActionResult result = game.giveHint(player1.getId(), player2.getId(), HintType.VALUE, 3);
 
@@ -91,7 +92,7 @@ public class HintActionTest {
 
     @Test
     public void testGiveHintToInvalidPlayer() {
-        ActionResult result = new HintAction(game, player1.getId(), player3.getId(), HintType.VALUE, 3).execute();
+        ActionResult result = new HintAction(game, GameCommand.Hint.value(player1.getId(), player3.getId(), 3)).execute();
 
         assertFalse(result.isSuccess());
         assertTrue(result.getMessage().contains("Target player not found"));
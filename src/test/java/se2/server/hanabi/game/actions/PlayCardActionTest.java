@@ -28,7 +28,7 @@ public class PlayCardActionTest {
         System.out.println("GameManager strikes before action: " + game.getStrikes());
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(1, Card.Color.RED));
+        hand.add(new Card(1, Card.Color.RED, 50));
         ActionResult result = new PlayCardAction(game, player1.getId(), 0).execute();
         assertTrue(result.getMessage().startsWith("You successfully played"));
         assertEquals(1, game.getPlayedCards().get(Card.Color.RED));
@@ -39,7 +39,7 @@ public class PlayCardActionTest {
         System.out.println("GameManager strikes before action: " + game.getStrikes());
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(3, Card.Color.BLUE));
+        hand.add(new Card(3, Card.Color.BLUE, 51));
         System.out.println("Before action: Strikes = " + game.getStrikes());
         ActionResult result = new PlayCardAction(game, player1.getId(), 0).execute();
         System.out.println("After action: Strikes = " + game.getStrikes());
@@ -51,10 +51,10 @@ public class PlayCardActionTest {
     public void testCompletingStackWithFiveGivesHint() {
         System.out.println("GameManager strikes before action: " + game.getStrikes());
         game.setNumRemainingHintTokens(GameRules.MAX_HINT_TOKENS - 1);
-        game.getPlayedCards().put(Card.Color.GREEN, 4);
+        playUpTo(Card.Color.GREEN, 4);
         List<Card> hand = game.getHands().get(player2.getId());
         hand.clear();
-        hand.add(new Card(5, Card.Color.GREEN));
+        hand.add(new Card(5, Card.Color.GREEN, 52));
         ActionResult result = new PlayCardAction(game, player2.getId(), 0).execute(); 
         assertTrue(result.isSuccess());
         assertEquals(GameRules.MAX_HINT_TOKENS, game.getHints());
@@ -63,13 +63,12 @@ public class PlayCardActionTest {
     @Test
     public void testPerfectGameEnds() {
         for (Card.Color color : Card.Color.values()) {
-            game.getPlayedCards().put(color, GameRules.MAX_CARD_VALUE);
+            playUpTo(color, color == Card.Color.RED ? GameRules.MAX_CARD_VALUE - 1 : GameRules.MAX_CARD_VALUE);
         }
-        game.getPlayedCards().put(Card.Color.RED, GameRules.MAX_CARD_VALUE - 1);
 
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(5, Card.Color.RED));
+        hand.add(new Card(5, Card.Color.RED, 53));
 
         ActionResult result = new PlayCardAction(game, player1.getId(), 0).execute();
         assertTrue(result.isSuccess(), "Playing the final card should succeed.");
@@ -84,7 +83,7 @@ public class PlayCardActionTest {
 
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(1, Card.Color.RED));
+        hand.add(new Card(1, Card.Color.RED, 54));
 
         ActionResult result = new PlayCardAction(game, player1.getId(), 0).execute();
         assertFalse(result.isSuccess(), "Playing a card after game over should fail.");
@@ -105,7 +104,7 @@ public class PlayCardActionTest {
         System.out.println("GameManager strikes before action: " + game.getStrikes());
         List<Card> hand = game.getHands().get(player2.getId());
         hand.clear();
-        hand.add(new Card(2, Card.Color.YELLOW));
+        hand.add(new Card(2, Card.Color.YELLOW, 55));
 
         ActionResult result = new PlayCardAction(game, player2.getId(), 5).execute();
 
@@ -120,7 +119,7 @@ public class PlayCardActionTest {
 
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(1, Card.Color.RED));
+        hand.add(new Card(1, Card.Color.RED, 56));
 
         ActionResult result = new PlayCardAction(game, player1.getId(), 0).execute();
         assertFalse(result.isSuccess(), "Playing a card should fail when the deck is empty.");
@@ -138,10 +137,16 @@ public class PlayCardActionTest {
     public void testPlayCardWithInvalidIndex() {
         List<Card> hand = game.getHands().get(player1.getId());
         hand.clear();
-        hand.add(new Card(1, Card.Color.RED));
+        hand.add(new Card(1, Card.Color.RED, 57));
 
         ActionResult result = new PlayCardAction(game, player1.getId(), -1).execute();
         assertFalse(result.isSuccess(), "Playing a card with an invalid index should fail.");
         assertEquals("Invalid card index", result.getMessage(), "Expected message for invalid card index.");
     }
+
+    private void playUpTo(Card.Color color, int value) {
+        while (game.getGameState().getPlayedValue(color) < value) {
+            game.getGameState().playFirework(color);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package se2.server.hanabi.game.commands;
+
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.game.HintType;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.GameActionMessage;
+import se2.server.hanabi.model.Player;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandDecoderTest {
+
+    @Test
+    void hint_DecodesColorNamesInAnyCase() {
+        CommandDecoder.Result result = CommandDecoder.hint(1, 2, HintType.COLOR, "blue");
+
+        assertTrue(result.isValid());
+        assertEquals(new GameCommand.Hint(1, 2, HintType.COLOR, Card.Color.BLUE.ordinal()), result.command());
+    }
+
+    @Test
+    void hint_DecodesCardValues() {
+        assertEquals(GameCommand.Hint.value(1, 2, 5), CommandDecoder.hint(1, 2, HintType.VALUE, "5").command());
+    }
+
+    @Test
+    void hint_RejectsInvalidValues() {
+        assertEquals(CommandDecoder.INVALID_COLOR, CommandDecoder.hint(1, 2, HintType.COLOR, "PURPLE").error());
+        assertEquals(CommandDecoder.INVALID_CARD_VALUE, CommandDecoder.hint(1, 2, HintType.VALUE, "6").error());
+        assertEquals(CommandDecoder.INVALID_HINT_FORMAT, CommandDecoder.hint(1, 2, HintType.VALUE, "three").error());
+        assertFalse(CommandDecoder.hint(1, 2, null, "3").isValid());
+        assertFalse(CommandDecoder.hint(1, 2, HintType.VALUE, null).isValid());
+    }
+
+    @Test
+    void decode_BuildsCommandsFromMessages() {
+        assertEquals(new GameCommand.Play(1, 3), CommandDecoder.decode(message(GameActionMessage.ActionType.PLAY, 1, 3)).command());
+        assertEquals(new GameCommand.Discard(1, 0), CommandDecoder.decode(message(GameActionMessage.ActionType.DISCARD, 1, 0)).command());
+        assertEquals(new GameCommand.Defuse(1), CommandDecoder.decode(message(GameActionMessage.ActionType.DEFUSE, 1, null)).command());
+        assertEquals(new GameCommand.IncrementStrikes(), CommandDecoder.decode(message(GameActionMessage.ActionType.CHEAT, null, null)).command());
+
+        GameActionMessage hint = message(GameActionMessage.ActionType.HINT, 1, null);
+        hint.setToPlayerId(2);
+        hint.setHintType(HintType.COLOR);
+        hint.setHintValue("Red");
+        assertEquals(GameCommand.Hint.color(1, 2, Card.Color.RED), CommandDecoder.decode(hint).command());
+    }
+
+    @Test
+    void decode_RejectsMissingFields() {
+        assertEquals("Missing playerId", CommandDecoder.decode(message(GameActionMessage.ActionType.PLAY, null, 0)).error());
+        assertEquals("Missing cardIndex", CommandDecoder.decode(message(GameActionMessage.ActionType.DISCARD, 1, null)).error());
+        assertEquals("Missing toPlayerId", CommandDecoder.decode(message(GameActionMessage.ActionType.HINT, 1, null)).error());
+        assertFalse(CommandDecoder.decode(message(null, 1, 0)).isValid());
+        assertFalse(CommandDecoder.decode(message(GameActionMessage.ActionType.SYNC, 1, null)).isValid());
+
+        GameActionMessage defuse = message(GameActionMessage.ActionType.DEFUSE_ATTEMPT, 1, null);
+        defuse.setSequence(Arrays.asList("DOWN", null));
+        assertFalse(CommandDecoder.decode(defuse).isValid());
+    }
+
+    @Test
+    void hintCommand_RunsOnTheEngine() {
+        Player alice = new Player("alice");
+        Player bob = new Player("bob");
+        GameManager game = GameManager.createNewGame(List.of(alice, bob));
+        int from = game.getCurrentPlayerId();
+        int to = from == alice.getId() ? bob.getId() : alice.getId();
+        Card target = game.getPlayerHand(to).get(0);
+
+        assertTrue(game.execute(GameCommand.Hint.color(from, to, target.getColor())).isSuccess());
+        assertEquals(target.getColor(), game.getGameState().getCardsShowingColorHints().get(target.getId()));
+        assertEquals(7, game.getHints());
+    }
+
+    private static GameActionMessage message(GameActionMessage.ActionType type, Integer playerId, Integer cardIndex) {
+        GameActionMessage message = new GameActionMessage();
+        message.setActionType(type);
+        message.setPlayerId(playerId);
+        message.setCardIndex(cardIndex);
+        return message;
+    }
+}
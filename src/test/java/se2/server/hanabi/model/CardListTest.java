@@ -0,0 +1,45 @@
+package se2.server.hanabi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardListTest {
+
+    @Test
+    void addAndRemove_KeepTheOrder() {
+        CardList cards = new CardList(2);
+        cards.add(Card.standard(0));
+        cards.add(Card.standard(10));
+        cards.add(1, Card.standard(20));
+
+        assertEquals(List.of(Card.standard(0), Card.standard(20), Card.standard(10)), cards);
+        assertSame(Card.standard(20), cards.remove(1));
+        assertEquals(List.of(Card.standard(0), Card.standard(10)), cards);
+        assertEquals(10, cards.getId(1));
+    }
+
+    @Test
+    void copy_ChangesIndependently() {
+        CardList cards = new CardList(5);
+        cards.add(Card.standard(3));
+        CardList copy = new CardList(cards);
+
+        copy.add(Card.standard(4));
+        cards.clear();
+
+        assertEquals(0, cards.size());
+        assertEquals(List.of(Card.standard(3), Card.standard(4)), copy);
+    }
+
+    @Test
+    void get_RejectsIndicesOutsideTheList() {
+        CardList cards = new CardList(5);
+        cards.add(Card.standard(3));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> cards.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> cards.add(3, Card.standard(4)));
+    }
+}
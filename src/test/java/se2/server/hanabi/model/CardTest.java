@@ -1,35 +1,65 @@
 package se2.server.hanabi.model;
 
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.BeforeEach;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CardTest {
 
-    @BeforeEach
-    void resetCardIDs() {
-        Card.resetNextID();
-    }
-
     @Test
     void testCardValueAndColorToString() {
-        Card card = new Card(3, Card.Color.RED);
+        Card card = new Card(3, Card.Color.RED, 0);
         assertEquals(3, card.getValue());
         assertEquals("Card{value=3, color=RED, id=0}", card.toString());
     }
     
     @Test
     void testCardToStringForMultipleCards() {
-        Card.resetNextID();
-
-        Card card1 = new Card(1, Card.Color.BLUE);
-        Card card2 = new Card(2, Card.Color.GREEN);
-        Card card3 = new Card(5, Card.Color.RED);
+        Card card1 = new Card(1, Card.Color.BLUE, 0);
+        Card card2 = new Card(2, Card.Color.GREEN, 1);
+        Card card3 = new Card(5, Card.Color.RED, 2);
 
         assertEquals("Card{value=1, color=BLUE, id=0}", card1.toString(), "Card 1 toString output is incorrect");
         assertEquals("Card{value=2, color=GREEN, id=1}", card2.toString(), "Card 2 toString output is incorrect");
         assertEquals("Card{value=5, color=RED, id=2}", card3.toString(), "Card 3 toString output is incorrect");
     }
 
+    @Test
+    void testCopiesShareTheirFace() {
+        Card first = new Card(4, Card.Color.WHITE, 47);
+        Card second = new Card(4, Card.Color.WHITE, 48);
+
+        assertSame(first.getFace(), second.getFace());
+        assertSame(Card.Face.of(Card.Color.WHITE, 4), first.getFace());
+        assertNotSame(first.getFace(), Card.Face.of(Card.Color.WHITE, 5));
+    }
+
+    @Test
+    void testFaceRejectsInvalidValue() {
+        assertThrows(IllegalArgumentException.class, () -> Card.Face.of(Card.Color.RED, 6));
+    }
+
+    @Test
+    void testUnpackReturnsTheSharedStandardCard() {
+        Card card = Card.standard(17);
+
+        assertSame(card, Card.unpack(card.pack()));
+        assertEquals(17, Card.idOf(card.pack()));
+    }
+
+    @Test
+    void testUnpackOfOtherCardsKeepsIdAndFace() {
+        Card card = new Card(3, Card.Color.RED, 0);
+        Card unpacked = Card.unpack(card.pack());
+
+        assertNotSame(Card.standard(0), unpacked);
+        assertEquals(card, unpacked);
+        assertEquals(3, unpacked.getValue());
+        assertEquals(Card.Color.RED, unpacked.getColor());
+    }
+
+    @Test
+    void testPackRejectsIdsThatDoNotFit() {
+        assertThrows(IllegalArgumentException.class, () -> new Card(1, Card.Color.RED, 1024).pack());
+    }
 }
@@ -1,7 +1,11 @@
 package se2.server.hanabi.model;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -49,7 +53,6 @@ public class DeckTest {
 
     @Test
     void testDeckCardDistribution() {
-        Card.resetNextID();
         Deck deck = new Deck();
 
         int[][] cardCounts = new int[Card.Color.values().length][5];
@@ -80,7 +83,6 @@ public class DeckTest {
 
     @Test
     void testCardIdsAndDetails() {
-        Card.resetNextID();
         Deck deck = new Deck();
         Card[] cardsById = new Card[50];
 
@@ -99,7 +101,6 @@ public class DeckTest {
 
     @Test
     void testPrintCardIdsAndDetails() {
-        Card.resetNextID();
         Deck deck = new Deck();
 
         while (!deck.isEmpty()) {
@@ -111,7 +112,6 @@ public class DeckTest {
 
     @Test
     void testPrintCardIdsAndDetailsInRow() {
-        Card.resetNextID();
         Deck deck = new Deck();
 
         StringBuilder cardDetails = new StringBuilder();
@@ -127,7 +127,6 @@ public class DeckTest {
 
     @Test
     void testPrintCardIdsInOrder() {
-        Card.resetNextID();
         Deck deck = new Deck();
         Card[] cardsById = new Card[50];
 
@@ -152,9 +151,117 @@ public class DeckTest {
     @Test
     void testAddCardToTop() {
         deck.clear();
-        Card card = new Card(1, Card.Color.RED);
+        Card card = new Card(1, Card.Color.RED, 50);
         deck.addCardToTop(card);
         assertEquals(1, deck.getNumRemainingCards(), "Deck should have one card after adding a card to the top");
         assertEquals(card, deck.drawCard(), "The card added to the top should be the first card drawn");
     }
+
+    @Test
+    void testSameSeedSameOrder() {
+        Deck first = new Deck(1234L);
+        Deck second = new Deck(1234L);
+        assertEquals(1234L, first.getSeed());
+        while (!first.isEmpty()) {
+            Card a = first.drawCard();
+            Card b = second.drawCard();
+            assertEquals(a.getColor(), b.getColor());
+            assertEquals(a.getValue(), b.getValue());
+        }
+        assertTrue(second.isEmpty());
+    }
+
+    @Test
+    void testDifferentSeedsDifferentOrder() {
+        assertNotEquals(faces(new Deck(1L)), faces(new Deck(2L)));
+    }
+
+    @Test
+    void testGetRemainingCardsStartsAtTop() {
+        Card top = deck.getRemainingCards().get(0);
+        assertEquals(50, deck.getRemainingCards().size());
+        assertSame(top, deck.drawCard());
+        assertEquals(49, deck.getRemainingCards().size());
+    }
+
+    @Test
+    void testCardIdsAreTheSameInEveryDeck() {
+        Deck first = new Deck(5L);
+        Deck second = new Deck(5L);
+        new Deck();
+
+        for (int i = 0; i < 50; i++) {
+            Card a = first.drawCard();
+            Card b = second.drawCard();
+            assertEquals(a.getId(), b.getId(), "Ids are per deck and do not depend on other games");
+            assertSame(a.getFace(), b.getFace());
+        }
+    }
+
+    @Test
+    void testAddCardToTopOfFullDeck() {
+        assertThrows(IllegalStateException.class, () -> deck.addCardToTop(new Card(1, Card.Color.RED, 51)));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkBuildShuffleAndDraw() {
+        int rounds = 200_000;
+        // warm up both variants
+        buildAndDrawList(rounds);
+        buildAndDrawDeck(rounds);
+
+        long start = System.nanoTime();
+        long listCards = buildAndDrawList(rounds);
+        long list = System.nanoTime() - start;
+        start = System.nanoTime();
+        long deckCards = buildAndDrawDeck(rounds);
+        long array = System.nanoTime() - start;
+
+        System.out.printf("Build, shuffle and draw 50 cards: ArrayList.remove(0) %d ns, array deck %d ns%n",
+                list / rounds, array / rounds);
+        assertEquals(listCards, deckCards);
+    }
+
+    private static List<String> faces(Deck deck) {
+        List<String> faces = new ArrayList<>();
+        while (!deck.isEmpty()) {
+            Card card = deck.drawCard();
+            faces.add(card.getColor() + "" + card.getValue());
+        }
+        return faces;
+    }
+
+    private static long buildAndDrawDeck(int rounds) {
+        long drawn = 0;
+        for (int round = 0; round < rounds; round++) {
+            Deck deck = new Deck(round);
+            while (deck.drawCard() != null) {
+                drawn++;
+            }
+        }
+        return drawn;
+    }
+
+    // the previous implementation: a shuffled ArrayList drawn from the front
+    private static long buildAndDrawList(int rounds) {
+        long drawn = 0;
+        int[] copies = {3, 2, 2, 2, 1};
+        for (int round = 0; round < rounds; round++) {
+            List<Card> cards = new ArrayList<>();
+            for (Card.Color color : Card.Color.values()) {
+                for (int value = 1; value <= copies.length; value++) {
+                    for (int i = 0; i < copies[value - 1]; i++) {
+                        cards.add(new Card(value, color, cards.size()));
+                    }
+                }
+            }
+            Collections.shuffle(cards);
+            while (!cards.isEmpty()) {
+                cards.remove(0);
+                drawn++;
+            }
+        }
+        return drawn;
+    }
 }
@@ -0,0 +1,177 @@
+package se2.server.hanabi.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.model.GameActionMessage;
+import se2.server.hanabi.util.ActionResult;
+import se2.server.hanabi.util.ActionResultType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActionBatchRunnerTest {
+
+    private ExecutorService pool;
+    private LobbyManager lobbyManager;
+    private ActionBatchRunner runner;
+    private final ConcurrentMap<String, AtomicInteger> publishes = new ConcurrentHashMap<>();
+    private final StatePublisher publisher = lobbyId -> publishes.computeIfAbsent(lobbyId, id -> new AtomicInteger()).incrementAndGet();
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+        GameActionExecutor executor = new GameActionExecutor(pool);
+        lobbyManager = new LobbyManager(executor);
+        runner = new ActionBatchRunner(lobbyManager, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void run_ExecutesActionsInOrderAndPublishesOncePerLobby() {
+        String lobbyA = startedLobby();
+        String lobbyB = startedLobby();
+        GameManager gameA = lobbyManager.getGameManager(lobbyA);
+        GameManager gameB = lobbyManager.getGameManager(lobbyB);
+        gameA.setNumRemainingHintTokens(5);
+        gameB.setNumRemainingHintTokens(5);
+
+        // alternating discards, so each one is only valid if the one before it in the same lobby already ran
+        List<GameActionMessage> actions = new ArrayList<>();
+        int[] seatsA = seats(gameA);
+        int[] seatsB = seats(gameB);
+        for (int i = 0; i < 3; i++) {
+            actions.add(discard(lobbyA, seatsA[i % 2]));
+            actions.add(discard(lobbyB, seatsB[i % 2]));
+        }
+
+        List<ActionResult> results = runner.run(actions, null, publisher).join();
+
+        assertEquals(6, results.size());
+        results.forEach(result -> assertTrue(result.isSuccess(), result.getMessage()));
+        assertEquals(8, gameA.getHints());
+        assertEquals(3, gameB.getDiscardPile().size());
+        assertEquals(1, publishes.get(lobbyA).get());
+        assertEquals(1, publishes.get(lobbyB).get());
+    }
+
+    @Test
+    void run_ReportsInvalidActionsInPlaceAndRunsTheRest() {
+        String lobbyId = startedLobby();
+        GameManager game = lobbyManager.getGameManager(lobbyId);
+        game.setNumRemainingHintTokens(5);
+
+        GameActionMessage missingIndex = discard(null, game.getCurrentPlayerId());
+        missingIndex.setCardIndex(null);
+        List<GameActionMessage> actions = List.of(
+                discard("unknown", 1),
+                missingIndex,
+                discard(null, game.getCurrentPlayerId()));
+
+        List<ActionResult> results = runner.run(actions, lobbyId, publisher).join();
+
+        assertEquals(ActionResultType.INVALID_MOVE, results.get(0).getType());
+        assertEquals("Missing cardIndex", results.get(1).getMessage());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(1, publishes.get(lobbyId).get());
+        assertFalse(publishes.containsKey("unknown"));
+    }
+
+    @Test
+    void run_TurnsAThrowingCommandIntoAFailureAndPublishes() {
+        LobbyManager mockedLobbies = mock(LobbyManager.class);
+        GameManager game = mock(GameManager.class);
+        when(mockedLobbies.getGameManager("lobby")).thenReturn(game);
+        when(game.execute(any()))
+                .thenReturn(ActionResult.success("first"))
+                .thenThrow(new IllegalStateException("boom"))
+                .thenReturn(ActionResult.success("third"));
+        ActionBatchRunner mockedRunner = new ActionBatchRunner(mockedLobbies, new GameActionExecutor(pool));
+
+        List<ActionResult> results = mockedRunner.run(
+                List.of(discard("lobby", 1), discard("lobby", 2), discard("lobby", 1)), null, publisher).join();
+
+        assertEquals("first", results.get(0).getMessage());
+        assertEquals(ActionResultType.FAILURE, results.get(1).getType());
+        assertTrue(results.get(1).getMessage().contains("boom"), results.get(1).getMessage());
+        assertEquals("third", results.get(2).getMessage());
+        assertEquals(1, publishes.get("lobby").get());
+    }
+
+    @Test
+    void run_FailsTheActionsOfALobbyRemovedWhileDraining() throws Exception {
+        String lobbyId = startedLobby();
+        GameManager game = lobbyManager.getGameManager(lobbyId);
+        CountDownLatch release = new CountDownLatch(1);
+        GameActionExecutor executor = new GameActionExecutor(pool);
+        ActionBatchRunner blockedRunner = new ActionBatchRunner(lobbyManager, executor);
+        executor.execute(lobbyId, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        executor.remove(lobbyId);
+
+        List<ActionResult> results = blockedRunner.run(List.of(discard(lobbyId, game.getCurrentPlayerId())), null, publisher)
+                .get(5, TimeUnit.SECONDS);
+        release.countDown();
+
+        assertEquals(ActionResultType.FAILURE, results.get(0).getType());
+        assertEquals("Game or lobby not found", results.get(0).getMessage());
+        assertFalse(publishes.containsKey(lobbyId));
+    }
+
+    @Test
+    void run_RejectsOversizedBatches() {
+        List<GameActionMessage> actions = new ArrayList<>();
+        for (int i = 0; i <= ActionBatchRunner.MAX_BATCH_SIZE; i++) {
+            actions.add(discard("lobby", 1));
+        }
+        assertThrows(IllegalArgumentException.class, () -> runner.run(actions, null, publisher));
+    }
+
+    private String startedLobby() {
+        String lobbyId = lobbyManager.createLobby();
+        lobbyManager.joinLobby(lobbyId, "Alice", 1);
+        lobbyManager.joinLobby(lobbyId, "Bob", 2);
+        assertTrue(lobbyManager.startGame(lobbyId));
+        return lobbyId;
+    }
+
+    // player ids starting with the current player
+    private static int[] seats(GameManager game) {
+        int current = game.getCurrentPlayerIndex();
+        return new int[]{
+                game.getPlayers().get(current).getId(),
+                game.getPlayers().get((current + 1) % 2).getId()};
+    }
+
+    private static GameActionMessage discard(String lobbyId, int playerId) {
+        GameActionMessage message = new GameActionMessage();
+        message.setActionType(GameActionMessage.ActionType.DISCARD);
+        message.setLobbyId(lobbyId);
+        message.setPlayerId(playerId);
+        message.setCardIndex(0);
+        return message;
+    }
+}
@@ -0,0 +1,232 @@
+package se2.server.hanabi.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.util.ActionResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameActionExecutorTest {
+
+    private ExecutorService pool;
+    private GameActionExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(8);
+        executor = new GameActionExecutor(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void submit_CompletesWithActionResult() {
+        ActionResult result = executor.submit("lobby", () -> ActionResult.success("done")).join();
+        assertTrue(result.isSuccess());
+        assertEquals("done", result.getMessage());
+        assertEquals(1, executor.getProcessedCount("lobby"));
+    }
+
+    @Test
+    void submit_RunsActionsOfOneLobbySerially() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<ActionResult>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            int index = i;
+            futures.add(executor.submit("lobby", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(index); // not thread-safe on purpose, the mailbox must serialize access
+                running.decrementAndGet();
+                return ActionResult.success("ok");
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        assertEquals(1, maxRunning.get(), "Only one action of a lobby may run at a time");
+        assertEquals(1000, order.size());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, order.get(i), "Actions must run in submission order");
+        }
+        assertEquals(0, executor.getQueueDepth("lobby"));
+    }
+
+    @Test
+    void submit_RunsDifferentLobbiesInParallel() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CompletableFuture<ActionResult> first = executor.submit("lobby1", () -> awaitOther(bothRunning));
+        CompletableFuture<ActionResult> second = executor.submit("lobby2", () -> awaitOther(bothRunning));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(second.get(5, TimeUnit.SECONDS).isSuccess());
+    }
+
+    @Test
+    void submit_FailingActionCompletesExceptionallyAndKeepsMailboxAlive() {
+        CompletableFuture<ActionResult> failed = executor.submit("lobby", () -> {
+            throw new IllegalStateException("boom");
+        });
+        assertThrows(Exception.class, failed::join);
+
+        assertTrue(executor.submit("lobby", () -> ActionResult.success("ok")).join().isSuccess());
+    }
+
+    @Test
+    void submit_ErrorCompletesExceptionallyAndKeepsMailboxAlive() {
+        CompletableFuture<ActionResult> failed = executor.submit("lobby", () -> {
+            throw new AssertionError("broken invariant");
+        });
+        CompletionException thrown = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(AssertionError.class, thrown.getCause());
+
+        assertTrue(executor.submit("lobby", () -> ActionResult.success("ok")).join().isSuccess());
+    }
+
+    @Test
+    void metrics_ReportQueueDepthAndLatency() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ActionResult> blocker = executor.submit("lobby", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ActionResult.success("released");
+        });
+        CompletableFuture<ActionResult> queued = executor.submit("lobby", () -> ActionResult.success("queued"));
+
+        assertTrue(executor.getQueueDepth("lobby") >= 1, "Second action should wait in the mailbox");
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, executor.getQueueDepth("lobby"));
+        assertEquals(2, executor.getProcessedCount("lobby"));
+        assertTrue(executor.getAverageLatencyNanos("lobby") > 0);
+        assertTrue(executor.getLastLatencyNanos("lobby") > 0);
+    }
+
+    @Test
+    void remove_RejectsSubmitsWhileTheClosedMailboxDrains() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CompletableFuture<ActionResult> draining = executor.submit("lobby", () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return ActionResult.success("drained");
+        });
+        CompletableFuture<ActionResult> queued = executor.submit("lobby", () -> ActionResult.success("queued"));
+
+        executor.remove("lobby");
+        CompletableFuture<ActionResult> late = executor.submit("lobby", () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            running.decrementAndGet();
+            return ActionResult.success("late");
+        });
+
+        CompletionException thrown = assertThrows(CompletionException.class, late::join);
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+        release.countDown();
+        assertTrue(draining.get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(queued.get(5, TimeUnit.SECONDS).isSuccess(), "Actions queued before the removal still run");
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void remove_DropsTheMailboxOnceDrained() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ActionResult> draining = executor.submit("lobby", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ActionResult.success("drained");
+        });
+        executor.remove("lobby");
+        release.countDown();
+        draining.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, executor.getProcessedCount("lobby"), "The drained mailbox should be gone");
+        CompletionException thrown = assertThrows(CompletionException.class,
+                () -> executor.submit("lobby", () -> ActionResult.success("late")).join());
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+    }
+
+    @Test
+    void remove_IdleMailboxIsDroppedAtOnce() {
+        executor.submit("lobby", () -> ActionResult.success("ok")).join();
+        executor.remove("lobby");
+
+        assertEquals(0, executor.getProcessedCount("lobby"));
+        assertThrows(CompletionException.class, () -> executor.submit("lobby", () -> ActionResult.success("late")).join());
+    }
+
+    @Test
+    void open_AcceptsActionsForAReusedIdAgain() {
+        executor.submit("lobby", () -> ActionResult.success("ok")).join();
+        executor.remove("lobby");
+        executor.open("lobby");
+
+        assertTrue(executor.submit("lobby", () -> ActionResult.success("fresh")).join().isSuccess());
+        assertEquals(1, executor.getProcessedCount("lobby"));
+    }
+
+    @Test
+    void open_RejectsAMailboxThatIsStillDraining() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ActionResult> draining = executor.submit("lobby", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ActionResult.success("drained");
+        });
+        executor.remove("lobby");
+
+        assertThrows(IllegalStateException.class, () -> executor.open("lobby"));
+        release.countDown();
+        draining.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void metrics_UnknownLobbyReportsZero() {
+        assertEquals(0, executor.getQueueDepth("unknown"));
+        assertEquals(0, executor.getProcessedCount("unknown"));
+        assertEquals(0, executor.getAverageLatencyNanos("unknown"));
+    }
+
+    private static ActionResult awaitOther(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS) ? ActionResult.success("parallel") : ActionResult.failure("serial");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ActionResult.failure("interrupted");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package se2.server.hanabi.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LobbyCodeAllocatorTest {
+
+    private static final long QUARANTINE = 1000;
+
+    @Test
+    void allocate_ReturnsCodesFromTheLobbyAlphabet() {
+        LobbyCodeAllocator allocator = new LobbyCodeAllocator();
+        String code = allocator.allocate();
+        assertEquals(6, code.length());
+        assertTrue(code.matches("[ABCDEFGHJKLMNPQRSTUVWXYZ123456789]+"));
+    }
+
+    @Test
+    void allocate_CoversTheWholeSpaceWithoutDuplicates() {
+        // 33^2 codes, small enough to exhaust
+        LobbyCodeAllocator allocator = new LobbyCodeAllocator(2, QUARANTINE, 42);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < allocator.getCapacity(); i++) {
+            assertTrue(codes.add(allocator.allocate(0)), "Code handed out twice");
+        }
+        assertEquals(33 * 33, codes.size());
+        assertThrows(IllegalStateException.class, () -> allocator.allocate(0));
+    }
+
+    @Test
+    void allocate_ConsecutiveCodesLookUnrelated() {
+        LobbyCodeAllocator allocator = new LobbyCodeAllocator(6, QUARANTINE, 7);
+        String first = allocator.allocate();
+        String second = allocator.allocate();
+        int sameCharacters = 0;
+        for (int i = 0; i < first.length(); i++) {
+            if (first.charAt(i) == second.charAt(i)) {
+                sameCharacters++;
+            }
+        }
+        assertTrue(sameCharacters < 4, "Sequential codes should not share most characters: " + first + " " + second);
+    }
+
+    @Test
+    void allocate_DifferentKeysGiveDifferentSequences() {
+        LobbyCodeAllocator a = new LobbyCodeAllocator(6, QUARANTINE, 1);
+        LobbyCodeAllocator b = new LobbyCodeAllocator(6, QUARANTINE, 2);
+        assertNotEquals(a.allocate(), b.allocate());
+    }
+
+    @Test
+    void release_RecyclesCodeOnlyAfterQuarantine() {
+        LobbyCodeAllocator allocator = new LobbyCodeAllocator(2, QUARANTINE, 3);
+        String code = allocator.allocate(0);
+        allocator.release(code, 100);
+
+        assertNotEquals(code, allocator.allocate(100 + QUARANTINE - 1), "Code is still in quarantine");
+        assertEquals(code, allocator.allocate(100 + QUARANTINE));
+    }
+
+    @Test
+    void release_IgnoresForeignCodes() {
+        LobbyCodeAllocator allocator = new LobbyCodeAllocator(2, 0, 3);
+        allocator.release("not-a-code", 0);
+        allocator.release("00", 0);
+        assertNotNull(allocator.allocate(10));
+    }
+
+    @Test
+    void constructor_RejectsOddLength() {
+        assertThrows(IllegalArgumentException.class, () -> new LobbyCodeAllocator(5, QUARANTINE, 1));
+    }
+
+    /**
+     * Compares minting a fresh code with the allocator against the retry-on-collision generator
+     * at 10%, 50% and 90% occupancy. Uses 4 character codes (33^4 = 1,185,921) so the registry fits
+     * into a bitset; the collision probability depends only on the occupancy, not the space size.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmark_AllocatorVersusRetryGenerator() {
+        int length = 4;
+        int samples = 20_000;
+        for (double occupancy : new double[]{0.1, 0.5, 0.9}) {
+            LobbyCodeAllocator allocator = new LobbyCodeAllocator(length, QUARANTINE, 11);
+            long capacity = allocator.getCapacity();
+            long occupied = (long) (capacity * occupancy);
+            BitSet registry = new BitSet((int) capacity);
+
+            for (long i = 0; i < occupied; i++) {
+                registry.set((int) allocator.toIndex(allocator.allocate(0)));
+            }
+            BitSet generatorRegistry = (BitSet) registry.clone();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < samples; i++) {
+                int index = (int) allocator.toIndex(allocator.allocate(0));
+                assertFalse(registry.get(index), "Allocator returned a code that is in use");
+                registry.set(index);
+            }
+            long allocatorNanos = System.nanoTime() - start;
+
+            long attempts = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < samples; i++) {
+                int index;
+                do {
+                    index = (int) allocator.toIndex(LobbyCodeGenerator.generateLobbyCode(length));
+                    attempts++;
+                } while (generatorRegistry.get(index));
+                generatorRegistry.set(index);
+            }
+            long generatorNanos = System.nanoTime() - start;
+
+            double attemptsPerCode = (double) attempts / samples;
+            System.out.printf("occupancy %.0f%%: allocator %d ns/code, generator %d ns/code (%.2f attempts/code)%n",
+                    occupancy * 100, allocatorNanos / samples, generatorNanos / samples, attemptsPerCode);
+
+            // the generator needs about 1 / (1 - occupancy) draws per code
+            assertTrue(attemptsPerCode >= 0.8 / (1 - occupancy), "Unexpectedly few retries: " + attemptsPerCode);
+        }
+    }
+}
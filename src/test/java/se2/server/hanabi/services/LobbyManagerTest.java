@@ -2,8 +2,21 @@ package se2.server.hanabi.services;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import se2.server.hanabi.api.LobbyPage;
+import se2.server.hanabi.api.LobbySummary;
 import se2.server.hanabi.model.Lobby;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
  public class LobbyManagerTest {
@@ -183,4 +196,203 @@ import static org.junit.jupiter.api.Assertions.*;
         assertFalse(removed, "Return false if player doesnt exist");
     }
 
+    @Test
+    void concurrentCreateJoinLeaveRemove_KeepsRegistryConsistent() throws Exception {
+        int threads = 16;
+        int iterations = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> createdIds = ConcurrentHashMap.newKeySet();
+        Set<String> removedIds = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<String> own = new ArrayList<>();
+                for (int i = 0; i < iterations; i++) {
+                    String id = lobbyManager.createLobby();
+                    assertTrue(createdIds.add(id), "Lobby IDs must never be handed out twice");
+                    own.add(id);
+
+                    // join and leave lobbies owned by any thread to force contention on single lobbies
+                    String target = createdIds.stream().skip(random.nextInt(createdIds.size())).findFirst().orElse(id);
+                    int playerId = lobbyManager.joinLobby(target, "Player" + i, White);
+                    if (playerId != -1 && random.nextBoolean()) {
+                        lobbyManager.leaveLobby(target, playerId);
+                    }
+
+                    if (random.nextInt(4) == 0) {
+                        String removed = own.remove(own.size() - 1);
+                        assertTrue(lobbyManager.removeLobby(removed), "Own lobby must still be present");
+                        removedIds.add(removed);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(threads * iterations, createdIds.size());
+        assertEquals(createdIds.size() - removedIds.size(), lobbyManager.getAllLobbies().size(),
+                "No lobby may be lost or duplicated");
+        for (Lobby lobby : lobbyManager.getAllLobbies()) {
+            assertFalse(removedIds.contains(lobby.getId()));
+            assertTrue(lobby.getPlayers().size() <= 5, "Lobby must never exceed 5 players");
+            assertEquals(lobby.getPlayers().size(), lobby.getPlayers().stream().map(p -> p.getId()).distinct().count(),
+                    "Player IDs must stay unique");
+        }
+    }
+
+    @Test
+    void evictExpiredLobbies_RemovesIdlePregameLobby() {
+        LobbyManager manager = new LobbyManager(new GameActionExecutor(), new LobbyTimeouts(60_000, 30_000, 45_000));
+        String lobbyId = manager.createLobby();
+        long now = System.currentTimeMillis();
+
+        assertEquals(0, manager.evictExpiredLobbies(now + 30_000), "Lobby is not idle long enough yet");
+        assertNotNull(manager.getLobby(lobbyId));
+
+        assertEquals(1, manager.evictExpiredLobbies(now + 62_000));
+        assertNull(manager.getLobby(lobbyId));
+        assertEquals(1, manager.getEvictedLobbyCount());
+        assertEquals(0, manager.getLiveLobbyCount());
+    }
+
+    @Test
+    void evictExpiredLobbies_ActivityPostponesEviction() {
+        LobbyManager manager = new LobbyManager(new GameActionExecutor(), new LobbyTimeouts(60_000, 30_000, 45_000));
+        String lobbyId = manager.createLobby();
+        Lobby lobby = manager.getLobby(lobbyId);
+        long now = System.currentTimeMillis();
+
+        // simulate a join 50 seconds after creation
+        lobby.touch(now + 50_000);
+
+        assertEquals(0, manager.evictExpiredLobbies(now + 62_000));
+        assertNotNull(manager.getLobby(lobbyId));
+        assertEquals(1, manager.evictExpiredLobbies(now + 112_000));
+    }
+
+    @Test
+    void evictExpiredLobbies_KeepsRunningGameWithConnectedSessions() {
+        LobbyManager manager = new LobbyManager(new GameActionExecutor(), new LobbyTimeouts(60_000, 30_000, 45_000));
+        String lobbyId = manager.createLobby();
+        manager.joinLobby(lobbyId, "Player1", Red);
+        manager.joinLobby(lobbyId, "Player2", Blue);
+        manager.startGame(lobbyId);
+        manager.sessionOpened(lobbyId);
+        long now = System.currentTimeMillis();
+
+        assertEquals(0, manager.evictExpiredLobbies(now + 600_000));
+        assertNotNull(manager.getLobby(lobbyId));
+
+        manager.sessionClosed(lobbyId);
+        manager.getLobby(lobbyId).touch(now);
+        assertEquals(1, manager.evictExpiredLobbies(now + 1_300_000), "Disconnected game should be evicted");
+    }
+
+    @Test
+    void evictExpiredLobbies_UsesFinishedTimeoutForFinishedGame() {
+        LobbyManager manager = new LobbyManager(new GameActionExecutor(), new LobbyTimeouts(600_000, 30_000, 450_000));
+        String lobbyId = manager.createLobby();
+        manager.joinLobby(lobbyId, "Player1", Red);
+        manager.joinLobby(lobbyId, "Player2", Blue);
+        manager.startGame(lobbyId);
+        manager.sessionOpened(lobbyId);
+        manager.getGameManager(lobbyId).setGameOver(true);
+        long now = System.currentTimeMillis();
+
+        // the pregame deadline is the first check, the finished timeout has long passed by then
+        assertEquals(1, manager.evictExpiredLobbies(now + 601_000));
+    }
+
+    @Test
+    void evictExpiredLobbies_ScalesToManyLobbies() {
+        LobbyManager manager = new LobbyManager(new GameActionExecutor(), new LobbyTimeouts(60_000, 30_000, 45_000));
+        for (int i = 0; i < 20_000; i++) {
+            manager.createLobby();
+        }
+        long now = System.currentTimeMillis();
+
+        assertEquals(0, manager.evictExpiredLobbies(now + 1_000));
+        assertEquals(20_000, manager.evictExpiredLobbies(now + 62_000));
+        assertEquals(0, manager.getLiveLobbyCount());
+    }
+
+    @Test
+    void listLobbies_PaginatesWithCursorInIdOrder() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(lobbyManager.createLobby());
+        }
+        ids.sort(String::compareTo);
+
+        LobbyPage first = lobbyManager.listLobbies(null, 2, false, null, null);
+        assertEquals(List.of(ids.get(0), ids.get(1)), first.getLobbies().stream().map(LobbySummary::getId).toList());
+        assertEquals(ids.get(1), first.getNextCursor());
+
+        LobbyPage second = lobbyManager.listLobbies(first.getNextCursor(), 2, false, null, null);
+        assertEquals(List.of(ids.get(2), ids.get(3)), second.getLobbies().stream().map(LobbySummary::getId).toList());
+
+        LobbyPage last = lobbyManager.listLobbies(second.getNextCursor(), 2, false, null, null);
+        assertEquals(List.of(ids.get(4)), last.getLobbies().stream().map(LobbySummary::getId).toList());
+        assertNull(last.getNextCursor(), "Last page should not have a cursor");
+    }
+
+    @Test
+    void listLobbies_OpenOnlySkipsStartedAndFullLobbies() {
+        String open = lobbyManager.createLobby();
+        String started = lobbyManager.createLobby();
+        lobbyManager.joinLobby(started, "Player1", Red);
+        lobbyManager.joinLobby(started, "Player2", Blue);
+        lobbyManager.startGame(started, true);
+        String full = lobbyManager.createLobby();
+        for (int i = 0; i < 5; i++) {
+            lobbyManager.joinLobby(full, "Player" + i, White);
+        }
+
+        LobbyPage page = lobbyManager.listLobbies(null, 10, true, null, null);
+        assertEquals(List.of(open), page.getLobbies().stream().map(LobbySummary::getId).toList());
+
+        LobbySummary startedSummary = lobbyManager.listLobbies(null, 10, false, null, null).getLobbies().stream()
+                .filter(summary -> summary.getId().equals(started)).findFirst().orElseThrow();
+        assertTrue(startedSummary.isGameStarted());
+        assertTrue(startedSummary.isCasualMode());
+        assertEquals(2, startedSummary.getPlayerCount());
+    }
+
+    @Test
+    void listLobbies_FiltersByPlayerCount() {
+        String one = lobbyManager.createLobby();
+        lobbyManager.joinLobby(one, "Player1", Red);
+        String three = lobbyManager.createLobby();
+        for (int i = 0; i < 3; i++) {
+            lobbyManager.joinLobby(three, "Player" + i, White);
+        }
+
+        LobbyPage page = lobbyManager.listLobbies(null, 10, false, 2, 4);
+        assertEquals(List.of(three), page.getLobbies().stream().map(LobbySummary::getId).toList());
+    }
+
+    @Test
+    void listLobbies_IndexFollowsLeaveAndRemove() {
+        String lobbyId = lobbyManager.createLobby();
+        int playerId = lobbyManager.joinLobby(lobbyId, "Player1", Red);
+        long version = lobbyManager.getLobbyIndexVersion();
+
+        lobbyManager.leaveLobby(lobbyId, playerId);
+        assertTrue(lobbyManager.getLobbyIndexVersion() > version, "Index version should change on leave");
+        assertEquals(0, lobbyManager.listLobbies(null, 10, true, null, null).getLobbies().get(0).getPlayerCount());
+
+        lobbyManager.removeLobby(lobbyId);
+        assertTrue(lobbyManager.listLobbies(null, 10, false, null, null).getLobbies().isEmpty());
+    }
+
 }
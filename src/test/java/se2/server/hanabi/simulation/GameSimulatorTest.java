@@ -0,0 +1,84 @@
+package se2.server.hanabi.simulation;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.game.commands.GameCommand;
+import se2.server.hanabi.util.GameRules;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSimulatorTest {
+
+    @Test
+    void run_PlaysEveryGameToTheEnd() {
+        for (int players = GameRules.MIN_PLAYERS; players <= GameRules.MAX_PLAYERS; players++) {
+            SimulationResult result = new GameSimulator(players, BuiltInStrategy.RANDOM, players % 2 == 0).run(2_000, 1);
+
+            assertEquals(2_000, result.getGames());
+            assertEquals(0, result.getStalledGames());
+            assertEquals(2_000, Arrays.stream(result.getScoreDistribution()).sum());
+        }
+    }
+
+    @Test
+    void run_IsReproducibleWithAnyParallelism() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            long games = 3 * GameSimulator.LEAF_SIZE + 17;
+            SimulationResult first = new GameSimulator(3, BuiltInStrategy.HINT_AND_PLAY, false, single).run(games, 99);
+            SimulationResult second = new GameSimulator(3, BuiltInStrategy.HINT_AND_PLAY, false, parallel).run(games, 99);
+
+            assertArrayEquals(first.getScoreDistribution(), second.getScoreDistribution());
+            assertEquals(first.getLostGames(), second.getLostGames());
+            assertEquals(first.getAverageTurns(), second.getAverageTurns());
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void hintAndPlay_ScoresBetterThanRandom() {
+        SimulationResult random = new GameSimulator(4, BuiltInStrategy.RANDOM, false).run(5_000, 7);
+        SimulationResult hinted = new GameSimulator(4, BuiltInStrategy.HINT_AND_PLAY, false).run(5_000, 7);
+
+        assertTrue(hinted.getAverageScore() > random.getAverageScore(),
+                hinted.getAverageScore() + " <= " + random.getAverageScore());
+        assertTrue(hinted.getLostGames() < random.getLostGames());
+    }
+
+    @Test
+    void run_StopsGamesWhereTheStrategyMakesNoMove() {
+        SimulationResult result = new GameSimulator(2, (game, random) -> null, false).run(10, 1);
+
+        assertEquals(10, result.getStalledGames());
+        assertEquals(10, result.getScoreDistribution()[0]);
+    }
+
+    @Test
+    void run_CountsGamesWhereTheStrategyOnlyProposesRejectedMoves() {
+        // hints to yourself are never legal
+        SimulationResult result = new GameSimulator(3, (game, random) ->
+                GameCommand.Hint.value(game.getCurrentPlayerId(), game.getCurrentPlayerId(), 1), false).run(5, 1);
+
+        assertEquals(5, result.getStalledGames());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_GamesPerSecond() {
+        GameSimulator simulator = new GameSimulator(4, BuiltInStrategy.HINT_AND_PLAY, false);
+        // warm up, so the measured run executes compiled code
+        simulator.run(20_000, 1);
+
+        SimulationResult result = simulator.run(100_000, 2);
+
+        System.out.println(result);
+        assertEquals(100_000, result.getGames());
+        assertTrue(result.getGamesPerSecond() > 0);
+    }
+}
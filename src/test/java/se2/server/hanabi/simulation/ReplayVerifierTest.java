@@ -0,0 +1,85 @@
+package se2.server.hanabi.simulation;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import se2.server.hanabi.game.GameManager;
+import se2.server.hanabi.game.commands.GameCommand;
+import se2.server.hanabi.model.Card;
+import se2.server.hanabi.model.Player;
+import se2.server.hanabi.simulation.ReplayVerifier.ArchivedGame;
+import se2.server.hanabi.simulation.ReplayVerifier.Mismatch;
+import se2.server.hanabi.simulation.ReplayVerifier.Outcome;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayVerifierTest {
+
+    private static List<ArchivedGame> archive(int games, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<ArchivedGame> archived = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            List<Player> players = List.of(new Player("a"), new Player("b"), new Player("c"));
+            GameManager game = GameManager.createNewGame(players, i % 2 == 0, random.nextLong());
+            for (int step = 0; step < 200 && !game.isGameOver(); step++) {
+                int actor = game.getCurrentPlayerId();
+                int handSize = game.getPlayerHand(actor).size();
+                int roll = random.nextInt(10);
+                if (roll < 4) {
+                    game.execute(new GameCommand.Play(actor, random.nextInt(handSize)));
+                } else if (roll < 7) {
+                    game.execute(new GameCommand.Discard(actor, random.nextInt(handSize)));
+                } else {
+                    int target = players.get(random.nextInt(players.size())).getId();
+                    game.execute(GameCommand.Hint.color(actor, target, Card.Color.values()[random.nextInt(5)]));
+                }
+            }
+            archived.add(ArchivedGame.of(game));
+        }
+        return archived;
+    }
+
+    @Test
+    void unchangedRulesReplayEveryGameToItsOutcome() {
+        assertEquals(List.of(), new ReplayVerifier().verify(archive(500, 1L)));
+    }
+
+    @Test
+    void reportsGamesWhoseOutcomeDiffers() {
+        List<ArchivedGame> games = new ArrayList<>(archive(50, 2L));
+        ArchivedGame original = games.get(17);
+        Outcome changed = new Outcome(original.outcome().score() + 1, original.outcome().strikes(), original.outcome().hintTokens(),
+                original.outcome().discards(), original.outcome().turns(), original.outcome().gameOver(), original.outcome().gameLost());
+        games.set(17, new ArchivedGame(original.actionLog(), changed));
+        games.set(30, new ArchivedGame(Arrays.copyOf(games.get(30).actionLog(), 5), games.get(30).outcome()));
+
+        List<Mismatch> mismatches = new ReplayVerifier().verify(games);
+
+        assertEquals(2, mismatches.size());
+        assertEquals(17, mismatches.get(0).index());
+        assertEquals(original.outcome(), mismatches.get(0).actual());
+        assertEquals(30, mismatches.get(1).index());
+        assertNull(mismatches.get(1).actual());
+        assertNotNull(mismatches.get(1).error());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark_VerifyArchivedGames() {
+        List<ArchivedGame> games = archive(5_000, 3L);
+        long bytes = games.stream().mapToLong(game -> game.actionLog().length).sum();
+        ReplayVerifier verifier = new ReplayVerifier();
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            List<Mismatch> mismatches = verifier.verify(games);
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%d games (%d bytes of logs) verified in %d ms, %d games/s%n",
+                    games.size(), bytes, nanos / 1_000_000, games.size() * 1_000_000_000L / nanos);
+            assertTrue(mismatches.isEmpty());
+        }
+    }
+}
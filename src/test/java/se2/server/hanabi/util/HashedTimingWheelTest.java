@@ -0,0 +1,85 @@
+package se2.server.hanabi.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel<String> wheel;
+    private List<String> expired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel<>(100, 8, 0);
+        expired = new ArrayList<>();
+    }
+
+    @Test
+    void advance_ExpiresOnlyDueItems() {
+        wheel.schedule("early", 250);
+        wheel.schedule("late", 550);
+
+        assertEquals(0, wheel.advance(200, expired::add));
+        assertEquals(1, wheel.advance(300, expired::add));
+        assertEquals(List.of("early"), expired);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(600, expired::add);
+        assertEquals(List.of("early", "late"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_HandlesDeadlinesBeyondOneRevolution() {
+        // 8 slots of 100 ms, so this item hashes into a slot that is visited twice before it is due
+        wheel.schedule("far", 1250);
+
+        wheel.advance(900, expired::add);
+        assertTrue(expired.isEmpty(), "Item must survive the first pass over its slot");
+
+        wheel.advance(1300, expired::add);
+        assertEquals(List.of("far"), expired);
+    }
+
+    @Test
+    void advance_LargeJumpExpiresEverythingDue() {
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule("item" + i, 100L * i);
+        }
+        assertEquals(100, wheel.advance(100_000, expired::add));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_PastDeadlineExpiresOnNextTick() {
+        wheel.advance(1000, expired::add);
+        wheel.schedule("past", 10);
+
+        wheel.advance(1100, expired::add);
+        assertEquals(List.of("past"), expired);
+    }
+
+    @Test
+    void advance_ItemsRescheduledFromCallbackAreNotExpiredAgain() {
+        wheel.schedule("again", 100);
+
+        wheel.advance(200, item -> {
+            expired.add(item);
+            wheel.schedule(item, 0);
+        });
+
+        assertEquals(1, expired.size());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void constructor_RejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(0, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(100, 0, 0));
+    }
+}